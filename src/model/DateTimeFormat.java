@@ -1,7 +1,60 @@
 package model;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.time.format.DateTimeFormatter;
 
 public final class DateTimeFormat {
     public static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm dd.MM.yyyy");
+    public static final int DATE_TIME_LENGTH = 16;
+    public static final LocalDateTime NO_TIME = LocalDateTime.of(1, 1, 1, 0, 0); // Время задачи без расписания в JSON и CSV
+    public static final long NO_TIME_MINUTE = toEpochMinute(NO_TIME);
+
+    private DateTimeFormat() {
+    }
+
+    // Быстрый разбор строки фиксированного формата "HH:mm dd.MM.yyyy" без промежуточных объектов
+    public static LocalDateTime parse(CharSequence text, int from) {
+        if (text.length() - from < DATE_TIME_LENGTH
+            || text.charAt(from + 2) != ':'
+            || text.charAt(from + 5) != ' '
+            || text.charAt(from + 8) != '.'
+            || text.charAt(from + 11) != '.') {
+            throw new DateTimeParseException("Неверный формат даты", text, from);
+        }
+        int hour = digits(text, from, 2);
+        int minute = digits(text, from + 3, 2);
+        int day = digits(text, from + 6, 2);
+        int month = digits(text, from + 9, 2);
+        int year = digits(text, from + 12, 4);
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    // Минуты от 01.01.1970, секунды отбрасываются
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // Первая целая минута не раньше заданного времени: граница окна по началу задач
+    public static long ceilEpochMinute(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC) + (dateTime.getNano() > 0 ? 1 : 0);
+        return -Math.floorDiv(-seconds, 60);
+    }
+
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeParseException("Неверный формат даты", text, i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
 }
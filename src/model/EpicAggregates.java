@@ -0,0 +1,99 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ Накопленные итоги подзадач эпика: счётчики статусов, суммарная длительность, самое раннее начало
+ и самое позднее окончание. Изменение одной подзадачи обновляет итоги за O(log k) вместо полного пересчёта.
+ Для каждой подзадачи хранится слепок учтённых значений: подзадачу могут изменить на месте до вызова updateTask,
+ и вычитать нужно именно то, что было учтено раньше. Начала и окончания считаются в TreeMap со счётчиками
+ повторов, границы эпика - первый и последний ключ
+ */
+final class EpicAggregates {
+    private final Map<Integer, Counted> counted = new HashMap<>();
+    private final TreeMap<Long, Integer> starts = new TreeMap<>(); // Только подзадачи со временем
+    private final TreeMap<Long, Integer> ends = new TreeMap<>();
+    private int newCount;
+    private int doneCount;
+    private long durationMinutes;
+
+    // Добавление подзадачи или замена ранее учтённой подзадачи с тем же id
+    void put(SubTask subTask) {
+        Counted old = counted.put(subTask.getId(), new Counted(subTask));
+        if (old != null) apply(old, -1);
+        apply(counted.get(subTask.getId()), 1);
+    }
+
+    void remove(int id) {
+        Counted old = counted.remove(id);
+        if (old != null) apply(old, -1);
+    }
+
+    void clear() {
+        counted.clear();
+        starts.clear();
+        ends.clear();
+        newCount = 0;
+        doneCount = 0;
+        durationMinutes = 0;
+    }
+
+    // Пустой эпик и эпик из новых подзадач - NEW, все подзадачи выполнены - DONE, иначе IN_PROGRESS
+    StatusTask getStatus() {
+        if (newCount == counted.size()) return StatusTask.NEW;
+        if (doneCount == counted.size()) return StatusTask.DONE;
+        return StatusTask.IN_PROGRESS;
+    }
+
+    // Есть ли подзадачи со временем: только они определяют границы эпика
+    boolean isScheduled() {
+        return !starts.isEmpty();
+    }
+
+    // Самое раннее начало среди подзадач со временем
+    long getStartMinute() {
+        return starts.firstKey();
+    }
+
+    // Самое позднее окончание среди подзадач со временем
+    long getEndMinute() {
+        return ends.lastKey();
+    }
+
+    long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    private void apply(Counted subTask, int sign) {
+        if (subTask.status == StatusTask.NEW) newCount += sign;
+        if (subTask.status == StatusTask.DONE) doneCount += sign;
+        durationMinutes += sign * subTask.duration;
+        // Время без значения в границы эпика не входит
+        if (!subTask.scheduled) return;
+        count(starts, subTask.start, sign);
+        count(ends, subTask.end, sign);
+    }
+
+    private static void count(TreeMap<Long, Integer> counts, long minute, int sign) {
+        counts.merge(minute, sign, (old, change) -> old + change == 0 ? null : old + change);
+    }
+
+    // Учтённые значения подзадачи
+    private static final class Counted {
+        private final StatusTask status;
+        private final boolean scheduled;
+        private final long start;
+        private final long end;
+        private final long duration;
+
+        Counted(SubTask subTask) {
+            this.status = subTask.getStatusTask();
+            this.scheduled = subTask.isScheduled();
+            this.start = subTask.getStartMinute();
+            this.end = subTask.getEndMinute();
+            this.duration = subTask.getDurationMinutes();
+        }
+    }
+}
@@ -1,24 +1,38 @@
 package model;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.time.Duration;
-import java.time.LocalDateTime;
 
 public class EpicTask extends Task {
-    private final List<SubTask> subTasks;
-    private LocalDateTime endTime;
-
-    private static final LocalDateTime NO_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private final SubTaskIndex subTasks;
+    // Итоги подзадач не сериализуются: после чтения из JSON они строятся заново по списку подзадач
+    private transient EpicAggregates aggregates;
 
     public EpicTask(String name, String description) {
         super(name, description, StatusTask.NEW);
-        this.subTasks = new ArrayList<>();
-        this.endTime = LocalDateTime.of(1, 1, 1, 0, 0);
+        this.subTasks = new SubTaskIndex();
+    }
+
+    private EpicTask(EpicTask epicTask) { // Копия эпика вместе с копиями подзадач
+        super(epicTask);
+        this.subTasks = new SubTaskIndex();
+        for (SubTask subTask : epicTask.subTasks) {
+            this.subTasks.add(subTask.copy());
+        }
+    }
+
+    private EpicTask(EpicTask epicTask, List<SubTask> subTasks) { // Копия эпика с общими объектами подзадач
+        super(epicTask);
+        this.subTasks = new SubTaskIndex();
+        this.subTasks.addAll(subTasks);
     }
 
+    // Подзадачи в порядке добавления: неизменяемая копия, менять подзадачи можно только через эпик
     public List<SubTask> getSubTasks() {
-        return this.subTasks;
+        return List.copyOf(this.subTasks);
+    }
+
+    public int getSubTaskCount() {
+        return this.subTasks.size();
     }
 
     public void setStatus(StatusTask statusTask) {
@@ -36,75 +50,64 @@ public class EpicTask extends Task {
     }
 
     public void removeSubTask(SubTask subTask) {
-        subTasks.remove(subTask);
+        subTasks.remove(subTask.getId());
+        aggregates().remove(subTask.getId());
         statusTask = calcStatus();
         calcTime();
     }
 
     public void modifySubTask(SubTask subTask) { // Добавляем новую подзадачу если её не было, или изменяем
-        boolean findSubTask = false;
-        for (int i = 0; i < this.subTasks.size(); i++) {
-            if (this.subTasks.get(i).hashCode() == subTask.hashCode()) {
-                this.subTasks.set(i, subTask);
-                findSubTask = true;
-            }
-        }
-        if (!findSubTask) {
-            this.subTasks.add(subTask);
-        }
+        this.subTasks.add(subTask);
+        aggregates().put(subTask);
+
+        this.statusTask = calcStatus();
+        calcTime();
+    }
 
+    public void clearSubTasks() { // Удаление всех подзадач с однократным пересчётом
+        this.subTasks.clear();
+        aggregates().clear();
         this.statusTask = calcStatus();
         calcTime();
     }
 
-    private boolean isAllSubTasksByStatusTask(StatusTask statusTask) {
-        return subTasks.stream()
-                       .allMatch(subTask -> subTask.getStatusTask().equals(statusTask));
+    public void addSubTasks(List<SubTask> subTasks) { // Добавление подзадач пачкой с однократным пересчётом
+        this.subTasks.addAll(subTasks);
+        EpicAggregates aggregates = aggregates();
+        subTasks.forEach(aggregates::put);
+        this.statusTask = calcStatus();
+        calcTime();
     }
 
+    // Время эпика по итогам подзадач: самое раннее начало, самое позднее окончание и суммарная длительность
     public void calcTime() {
-        if (this.subTasks.isEmpty()) {
-            setTimeFields(NO_TIME, NO_TIME, Duration.ofMinutes(0));
-            return;
-        }
-        LocalDateTime startTime = subTasks.stream()
-                                          .map(Task::getStartTime)
-                                          .filter(time -> !time.isEqual(NO_TIME))
-                                          .min(LocalDateTime::compareTo)
-                                          .orElse(NO_TIME);
-
-        LocalDateTime endTime = subTasks.stream()
-                                        .map(Task::getEndTime)
-                                        .filter(time -> !time.isEqual(NO_TIME))
-                                        .max(LocalDateTime::compareTo)
-                                        .orElse(NO_TIME);
-
-        Duration duration = subTasks.stream()
-                                    .map(Task::getDuration)
-                                    .reduce(Duration.ZERO, Duration::plus);
-
-        setTimeFields(startTime, endTime, duration);
+        EpicAggregates aggregates = aggregates();
+        this.scheduled = aggregates.isScheduled();
+        this.startMinute = scheduled ? aggregates.getStartMinute() : DateTimeFormat.NO_TIME_MINUTE;
+        this.endMinute = scheduled ? aggregates.getEndMinute() : DateTimeFormat.NO_TIME_MINUTE;
+        this.durationMinutes = aggregates.getDurationMinutes();
     }
 
     public StatusTask calcStatus() {
-        if (this.subTasks.isEmpty() || isAllSubTasksByStatusTask(StatusTask.NEW)) {
-            return StatusTask.NEW;
-        } else if (isAllSubTasksByStatusTask(StatusTask.DONE)) {
-            return StatusTask.DONE;
-        } else {
-            return StatusTask.IN_PROGRESS;
-        }
+        return aggregates().getStatus();
     }
 
-    private void setTimeFields(LocalDateTime startTime, LocalDateTime endTime, Duration duration) {
-        this.startTime = startTime;
-        this.endTime = endTime;
-        this.duration = duration;
+    private EpicAggregates aggregates() {
+        if (aggregates == null) {
+            aggregates = new EpicAggregates();
+            subTasks.forEach(aggregates::put);
+        }
+        return aggregates;
     }
 
     @Override
-    public LocalDateTime getEndTime() {
-        return endTime;
+    public EpicTask copy() {
+        return new EpicTask(this);
+    }
+
+    // Копия эпика, которая хранит переданные объекты подзадач, а не их копии: подзадачи уже никто не меняет
+    public EpicTask copyWith(List<SubTask> subTasks) {
+        return new EpicTask(this, subTasks);
     }
 
     @Override
@@ -20,6 +20,9 @@ public class SingleTask extends Task {
         super(name, description, statusTask, startTime, durationInMinutes);
     }
 
+    private SingleTask(SingleTask singleTask) {
+        super(singleTask);
+    }
 
     public void setStatus(StatusTask statusTask) {
         this.statusTask = statusTask;
@@ -30,6 +33,11 @@ public class SingleTask extends Task {
         return TypeTask.REG;
     }
 
+    @Override
+    public SingleTask copy() {
+        return new SingleTask(this);
+    }
+
     @Override
     public String toString() {
         return String.format("%d,%s,%s,%s,%s,%s,%s",
@@ -38,7 +46,7 @@ public class SingleTask extends Task {
                              this.getName(),
                              this.getStatusTask(),
                              this.getDescription(),
-                             startTime.format(DateTimeFormat.DATE_TIME_FORMAT),
-                             duration.toMinutes());
+                             getStartTime().format(DateTimeFormat.DATE_TIME_FORMAT),
+                             durationMinutes);
     }
 }
\ No newline at end of file
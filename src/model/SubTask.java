@@ -1,6 +1,5 @@
 package model;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 
 public class SubTask extends Task {
@@ -26,6 +25,10 @@ public class SubTask extends Task {
         this.statusTask = statusTask;
     }
 
+    private SubTask(SubTask subTask) {
+        super(subTask);
+        this.epicTaskId = subTask.epicTaskId;
+    }
 
     public void removeFromEpic(EpicTask epicTask) {
         epicTask.removeSubTask(this);
@@ -50,12 +53,12 @@ public class SubTask extends Task {
     }
 
     @Override
-    public Duration getDuration() {
-        return duration;
+    public SubTask copy() {
+        return new SubTask(this);
     }
 
     @Override
     public String toString() {
-        return String.format("%d,%s,%s,%s,%s,%s,%s,%d", this.getId(), this.getTypeTask(), this.getName(), this.getStatusTask(), this.getDescription(), startTime.format(DateTimeFormat.DATE_TIME_FORMAT), duration.toMinutes(), this.getEpicId());
+        return String.format("%d,%s,%s,%s,%s,%s,%s,%d", this.getId(), this.getTypeTask(), this.getName(), this.getStatusTask(), this.getDescription(), getStartTime().format(DateTimeFormat.DATE_TIME_FORMAT), durationMinutes, this.getEpicId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package model;
+
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ Подзадачи эпика по id в порядке добавления: поиск, замена и удаление за O(1).
+ Для Gson это обычная коллекция, поэтому в JSON подзадачи эпика остаются массивом
+ */
+final class SubTaskIndex extends AbstractCollection<SubTask> {
+    private final Map<Integer, SubTask> subTaskById = new LinkedHashMap<>();
+
+    // Добавление подзадачи или замена подзадачи с тем же id на её прежнем месте
+    @Override
+    public boolean add(SubTask subTask) {
+        return subTaskById.put(subTask.getId(), subTask) == null;
+    }
+
+    SubTask remove(int id) {
+        return subTaskById.remove(id);
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        if (!(object instanceof SubTask)) return false;
+        SubTask subTask = (SubTask) object;
+        return subTaskById.remove(subTask.getId(), subTask);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return object instanceof SubTask && subTaskById.containsKey(((SubTask) object).getId());
+    }
+
+    @Override
+    public void clear() {
+        subTaskById.clear();
+    }
+
+    @Override
+    public int size() {
+        return subTaskById.size();
+    }
+
+    // Изменения идут только через эпик, иначе разойдутся итоги подзадач
+    @Override
+    public Iterator<SubTask> iterator() {
+        return Collections.unmodifiableCollection(subTaskById.values()).iterator();
+    }
+}
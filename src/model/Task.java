@@ -3,29 +3,53 @@ package model;
 import java.util.Objects;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 public abstract class Task {
     private int id;
     private final String name;
     private final String description;
     protected StatusTask statusTask;
-    protected Duration duration;
-    protected LocalDateTime startTime;
+    // Время в минутах от 01.01.1970 без объектов даты: у задачи без расписания начало - NO_TIME_MINUTE.
+    // LocalDateTime и Duration создаются только в геттерах для JSON и CSV
+    protected boolean scheduled;
+    protected long startMinute;
+    protected long durationMinutes;
+    protected long endMinute; // Окончание считается один раз при установке времени
 
     public Task(String name, String description, StatusTask statusTask) { // Конструктор с установкой статуса
         this.name = name;
         this.description = description;
         this.statusTask = statusTask;
-        this.duration = Duration.ZERO;
-        this.startTime = LocalDateTime.of(1, 1, 1, 0, 0);
+        setTime(null, 0);
     }
 
     public Task(String name, String description, StatusTask statusTask, LocalDateTime startTime, int durationInMinutes) {
         this.name = name;
         this.description = description;
         this.statusTask = statusTask;
-        this.duration = Duration.ofMinutes(durationInMinutes);
-        this.startTime = startTime;
+        setTime(startTime, durationInMinutes);
+    }
+
+    protected Task(Task task) { // Копия задачи со всеми полями
+        this.id = task.id;
+        this.name = task.name;
+        this.description = task.description;
+        this.statusTask = task.statusTask;
+        this.scheduled = task.scheduled;
+        this.startMinute = task.startMinute;
+        this.durationMinutes = task.durationMinutes;
+        this.endMinute = task.endMinute;
+    }
+
+    // Время NO_TIME или null - задача без расписания. Начало хранится с точностью до минуты, как в JSON и CSV:
+    // секунды и доли секунды отбрасываются здесь, и getStartTime возвращает уже округлённое вниз время
+    private void setTime(LocalDateTime startTime, long durationInMinutes) {
+        this.scheduled = startTime != null && !startTime.isEqual(DateTimeFormat.NO_TIME);
+        LocalDateTime start = scheduled ? startTime.truncatedTo(ChronoUnit.MINUTES) : DateTimeFormat.NO_TIME;
+        this.startMinute = DateTimeFormat.toEpochMinute(start);
+        this.durationMinutes = durationInMinutes;
+        this.endMinute = startMinute + durationInMinutes;
     }
 
     public void setId(int id) {
@@ -49,15 +73,32 @@ public abstract class Task {
     }
 
     public Duration getDuration() {
-        return duration;
+        return Duration.ofMinutes(durationMinutes);
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return DateTimeFormat.fromEpochMinute(startMinute);
     }
 
     public LocalDateTime getEndTime() {
-        return startTime.plus(duration);
+        return DateTimeFormat.fromEpochMinute(endMinute);
+    }
+
+    // Задачи без расписания не участвуют в приоритетах и проверке пересечений
+    public boolean isScheduled() {
+        return scheduled;
+    }
+
+    public long getStartMinute() {
+        return startMinute;
+    }
+
+    public long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public long getEndMinute() {
+        return endMinute;
     }
 
     @Override
@@ -75,6 +116,8 @@ public abstract class Task {
 
     public abstract TypeTask getTypeTask(); // Определение типа задачи
 
+    public abstract Task copy(); // Независимая копия: изменения оригинала её не затрагивают
+
     @Override
     public abstract String toString();
 }
\ No newline at end of file
@@ -2,7 +2,17 @@ package server;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.HttpExchange;
+import model.EpicTask;
+import model.SingleTask;
+import model.SubTask;
+import model.Task;
+import model.TypeTask;
+import service.TaskManager;
+import service.VersionedTaskManager;
 
 import java.nio.charset.StandardCharsets;
 
@@ -11,21 +21,76 @@ import java.time.LocalDateTime;
 import java.io.IOException;
 
 public class BaseHttpHandler {
+    public static final String VERSION_HEADER = "X-Board-Version";
+
+    private final TaskManager versionSource;
+
+    public BaseHttpHandler() {
+        this(null);
+    }
+
+    protected BaseHttpHandler(TaskManager taskManager) {
+        this.versionSource = taskManager;
+    }
 
     public Gson getGson() {
         GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter());
         gsonBuilder.registerTypeAdapter(Duration.class, new DurationAdapter());
+        gsonBuilder.registerTypeAdapterFactory(new TaskAdapterFactory());
         return gsonBuilder.create();
     }
 
+    // Задача из JSON-объекта с полем type (REG, SUB, EPIC): тип задачи нужен, когда в одном запросе задачи разных типов
+    protected static Task toTypedTask(Gson gson, JsonElement element) {
+        if (!element.isJsonObject()) throw new JsonParseException("Элемент запроса не является задачей");
+        JsonObject json = element.getAsJsonObject();
+        JsonElement type = json.get("type");
+        if (type == null || type.isJsonNull()) throw new JsonParseException("Не задан тип задачи");
+        TypeTask typeTask;
+        try {
+            typeTask = TypeTask.valueOf(type.getAsString());
+        } catch (IllegalArgumentException exception) {
+            throw new JsonParseException("Неизвестный тип задачи: " + type.getAsString());
+        }
+        switch (typeTask) {
+            case REG:
+                return gson.fromJson(json, SingleTask.class);
+            case SUB:
+                return gson.fromJson(json, SubTask.class);
+            default:
+                return gson.fromJson(json, EpicTask.class);
+        }
+    }
+
     protected void sendResponse(HttpExchange httpExchange, String text) throws IOException {
         byte[] response = text.getBytes(StandardCharsets.UTF_8);
         httpExchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        addVersionHeader(httpExchange);
         httpExchange.sendResponseHeaders(HttpCodeResponse.OK.getCode(), response.length);
         httpExchange.getResponseBody().write(response);
     }
 
+    // Ответ без тела на изменение доски
+    protected void sendStatus(HttpExchange httpExchange, HttpCodeResponse codeResponse) throws IOException {
+        addVersionHeader(httpExchange);
+        httpExchange.sendResponseHeaders(codeResponse.getCode(), 0);
+    }
+
+    // Версия доски, из которой построен ответ, если менеджер публикует доску версиями
+    private void addVersionHeader(HttpExchange httpExchange) {
+        if (versionSource instanceof VersionedTaskManager) {
+            long version = ((VersionedTaskManager) versionSource).getServedVersion();
+            httpExchange.getResponseHeaders().set(VERSION_HEADER, String.valueOf(version));
+        }
+    }
+
+    protected void sendBadRequest(HttpExchange httpExchange, String message) throws IOException {
+        byte[] response = message.getBytes(StandardCharsets.UTF_8);
+        httpExchange.sendResponseHeaders(HttpCodeResponse.BAD_REQUEST.getCode(), response.length);
+        httpExchange.getResponseBody().write(response);
+    }
+
     protected void sendNotFound(HttpExchange httpExchange, String message) throws IOException {
         httpExchange.sendResponseHeaders(HttpCodeResponse.NOT_FOUND.getCode(), 0);
         httpExchange.getResponseBody().write(message.getBytes(StandardCharsets.UTF_8));
@@ -0,0 +1,107 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.Task;
+import service.BatchOutcome;
+import service.BatchResult;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+ Пакетная загрузка задач: POST /batch с JSON-массивом задач. Тип задачи задаётся полем type (REG, SUB, EPIC),
+ задача с id 0 создаётся, с другим id - изменяется. Сначала применяются изменения, затем создания, каждые
+ одной пакетной операцией менеджера. Ответ - массив результатов по каждому элементу в порядке запроса:
+ index, id, outcome (CREATED, UPDATED, OVERLAP, NOT_FOUND, INVALID) и message для отклонённых
+ */
+public class BatchHandler extends BaseHttpHandler implements HttpHandler {
+
+    private final TaskManager taskManager;
+
+    public BatchHandler(TaskManager taskManager) {
+        super(taskManager);
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) throws IOException {
+        try {
+            HttpRequestMethods requestMethod = HttpRequestMethods.valueOf(httpExchange.getRequestMethod());
+            if (requestMethod.equals(HttpRequestMethods.POST)) {
+                postByRequest(httpExchange);
+            } else {
+                System.out.println("Такой метод запроса не возможен");
+                sendMethodNotAllowed(httpExchange);
+            }
+        } catch (Exception exception) {
+            httpExchange.sendResponseHeaders(HttpCodeResponse.SERVER_ERROR.getCode(), 0);
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    protected void postByRequest(HttpExchange httpExchange) throws IOException {
+        String path = httpExchange.getRequestURI().getPath();
+        if (!Pattern.matches("^/batch$", path)) {
+            sendMethodNotAllowed(httpExchange);
+            return;
+        }
+        String body = new String(httpExchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        JsonArray array;
+        try {
+            JsonElement element = JsonParser.parseString(body);
+            if (!element.isJsonArray()) {
+                sendBadRequest(httpExchange, "Ожидается JSON-массив задач");
+                return;
+            }
+            array = element.getAsJsonArray();
+        } catch (JsonParseException exception) {
+            sendBadRequest(httpExchange, "Неверный формат JSON");
+            return;
+        }
+        Gson gson = getGson();
+        BatchResult.Item[] items = new BatchResult.Item[array.size()];
+        List<Task> creates = new ArrayList<>();
+        List<Integer> createIndexes = new ArrayList<>();
+        List<Task> updates = new ArrayList<>();
+        List<Integer> updateIndexes = new ArrayList<>();
+        for (int index = 0; index < array.size(); index++) {
+            Task task;
+            try {
+                task = toTypedTask(gson, array.get(index));
+            } catch (RuntimeException exception) {
+                items[index] = new BatchResult.Item(index, 0, BatchOutcome.INVALID, exception.getMessage());
+                continue;
+            }
+            if (task.getId() == 0) {
+                creates.add(task);
+                createIndexes.add(index);
+            } else {
+                updates.add(task);
+                updateIndexes.add(index);
+            }
+        }
+        // Изменения раньше созданий: освободившееся время уже можно занять новыми задачами
+        if (!updates.isEmpty()) merge(items, taskManager.updateTasks(updates), updateIndexes);
+        if (!creates.isEmpty()) merge(items, taskManager.createTasks(creates), createIndexes);
+        sendResponse(httpExchange, gson.toJson(items));
+    }
+
+    // Результаты пакетной операции на места элементов в запросе
+    private static void merge(BatchResult.Item[] items, BatchResult result, List<Integer> indexes) {
+        for (BatchResult.Item item : result.getItems()) {
+            int index = indexes.get(item.getIndex());
+            items[index] = new BatchResult.Item(index, item.getId(), item.getOutcome(), item.getMessage());
+        }
+    }
+}
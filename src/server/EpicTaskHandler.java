@@ -4,13 +4,12 @@ import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import model.EpicTask;
 import model.Task;
+import model.TypeTask;
 import service.NotFoundException;
 import service.TaskManager;
 import service.TaskTimeOverlapException;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Optional;
 import java.util.regex.Pattern;
 
 
@@ -18,6 +17,7 @@ public class EpicTaskHandler extends BaseHttpHandler implements HttpHandler {
     protected final TaskManager taskManager;
 
     public EpicTaskHandler(TaskManager taskManager) {
+        super(taskManager);
         this.taskManager = taskManager;
     }
 
@@ -42,6 +42,9 @@ public class EpicTaskHandler extends BaseHttpHandler implements HttpHandler {
         } catch (NotFoundException notFoundException) {
             System.out.println(notFoundException.getMessage());
             sendNotFound(httpExchange, notFoundException.getMessage());
+        } catch (IllegalArgumentException illegalArgumentException) {
+            System.out.println(illegalArgumentException.getMessage());
+            sendBadRequest(httpExchange, illegalArgumentException.getMessage());
         } catch (Exception exception) {
             httpExchange.sendResponseHeaders(HttpCodeResponse.SERVER_ERROR.getCode(), 0);
         } finally {
@@ -51,41 +54,39 @@ public class EpicTaskHandler extends BaseHttpHandler implements HttpHandler {
 
     protected void getByRequest(HttpExchange httpExchange) throws IOException, NotFoundException {
         String path = httpExchange.getRequestURI().getPath();
-        List<Task> epicTasks = taskManager.getEpicTasks();
         if (Pattern.matches("^/epics$", path)) {
-            String response = getGson().toJson(epicTasks);
+            String response = getGson().toJson(taskManager.listEpicTasks());
             sendResponse(httpExchange, response);
             return;
         }
         if (Pattern.matches("^/epics/\\d+$", path)) {
             Integer id = parseTaskId(path.replaceFirst("/epics/", ""));
             if (id != -1) {
-                Optional<Task> epicTask = epicTasks.stream().filter(taskTmp -> taskTmp.getId() == id).findFirst();
-                if (epicTask.isPresent()) {
-                    sendResponse(httpExchange, getGson().toJson(epicTask.get()));
-                } else {
-                    throw new NotFoundException("Задача не найдена в списке. id: " + id);
-                }
+                EpicTask epicTask = findEpicTask(id);
+                taskManager.markViewed(id);
+                sendResponse(httpExchange, getGson().toJson(epicTask));
             }
+            return;
         }
 
         if (Pattern.matches("^/epics/\\d+/subtasks$", path)) {
             String pathId = path.replaceFirst("/epics/", "").replaceFirst("/subtasks", "");
             Integer id = parseTaskId(pathId);
             if (id != -1) {
-                Optional<Task> epicTask = epicTasks.stream().filter(taskTmp -> taskTmp.getId() == id).findFirst();
-                if (epicTask.isPresent()) {
-                    EpicTask epicTaskTmp = (EpicTask) epicTask.get();
-                    sendResponse(httpExchange, getGson().toJson(epicTaskTmp.getSubTasks()));
-                } else {
-                    throw new NotFoundException("Задача не найдена в списке. id: " + id);
-                }
+                sendResponse(httpExchange, getGson().toJson(findEpicTask(id).getSubTasks()));
             }
         } else {
             sendMethodNotAllowed(httpExchange);
         }
     }
 
+    // Эпик по id без записи в историю, задача другого типа считается ненайденной
+    private EpicTask findEpicTask(int id) throws NotFoundException {
+        Task task = taskManager.findTask(id);
+        if (task.getTypeTask() != TypeTask.EPIC) throw new NotFoundException("Задача не найдена в списке. id: " + id);
+        return (EpicTask) task;
+    }
+
     protected void postByRequest(HttpExchange httpExchange) throws IOException, TaskTimeOverlapException {
         String path = httpExchange.getRequestURI().getPath();
         String body = new String(httpExchange.getRequestBody().readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
@@ -96,7 +97,7 @@ public class EpicTaskHandler extends BaseHttpHandler implements HttpHandler {
             } else {
                 taskManager.updateTask(epicTask);
             }
-            httpExchange.sendResponseHeaders(HttpCodeResponse.MODIFIED.getCode(), 0);
+            sendStatus(httpExchange, HttpCodeResponse.MODIFIED);
         } else {
             sendMethodNotAllowed(httpExchange);
         }
@@ -106,14 +107,14 @@ public class EpicTaskHandler extends BaseHttpHandler implements HttpHandler {
         String path = httpExchange.getRequestURI().getPath();
         if (Pattern.matches("^/epics$", path)) {
             taskManager.clearEpicTasks();
-            httpExchange.sendResponseHeaders(HttpCodeResponse.OK.getCode(), 0);
+            sendStatus(httpExchange, HttpCodeResponse.OK);
             return;
         }
         if (Pattern.matches("^/epics/\\d+$", path)) {
             Integer id = parseTaskId(path.replaceFirst("/epics/", ""));
             if (id != -1) {
                 taskManager.removeTask(id);
-                httpExchange.sendResponseHeaders(HttpCodeResponse.OK.getCode(), 0);
+                sendStatus(httpExchange, HttpCodeResponse.OK);
             }
         } else {
             sendMethodNotAllowed(httpExchange);
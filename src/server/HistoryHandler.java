@@ -13,6 +13,7 @@ public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager taskManager;
 
     public HistoryHandler(TaskManager taskManager) {
+        super(taskManager);
         this.taskManager = taskManager;
     }
 
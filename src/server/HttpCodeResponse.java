@@ -1,7 +1,7 @@
 package server;
 
 public enum HttpCodeResponse {
-    OK(200), MODIFIED(201), NOT_FOUND(404), NOT_ALLOWED(405), OVERLAP(406), SERVER_ERROR(500);
+    OK(200), MODIFIED(201), BAD_REQUEST(400), NOT_FOUND(404), NOT_ALLOWED(405), OVERLAP(406), SERVER_ERROR(500);
 
     private final int code;
 
@@ -10,6 +10,7 @@ import java.io.IOException;
 import com.sun.net.httpserver.HttpServer;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
 
 public class HttpTaskServer {
     private static final int PORT = 8080;
@@ -22,6 +23,12 @@ public class HttpTaskServer {
         setEndPoints();
     }
 
+    // Обработка запросов пулом потоков: менеджер должен быть потокобезопасным (Managers.getConcurrentTaskManager)
+    public HttpTaskServer(TaskManager taskManager, Executor executor) throws IOException {
+        this(taskManager);
+        server.setExecutor(executor);
+    }
+
     public void start() {
         server.start();
     }
@@ -36,6 +43,8 @@ public class HttpTaskServer {
         server.createContext("/subtasks", new SubTaskHandler(taskManager));
         server.createContext("/history", new HistoryHandler(taskManager));
         server.createContext("/prioritized", new PrioritizedHandler(taskManager));
+        server.createContext("/batch", new BatchHandler(taskManager));
+        server.createContext("/transaction", new TransactionHandler(taskManager));
     }
 
     public static void main(String[] args) throws IOException {
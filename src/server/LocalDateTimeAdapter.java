@@ -7,9 +7,9 @@ import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 
-
 import static model.DateTimeFormat.DATE_TIME_FORMAT;
 
+// Время в JSON - строка "HH:mm dd.MM.yyyy" без секунд: задачи хранят начало с точностью до минуты
 public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
     @Override
     public void write(final JsonWriter jsonWriter, final LocalDateTime localDate) throws IOException {
@@ -6,13 +6,22 @@ import service.NotFoundException;
 import service.TaskManager;
 
 import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
+import static model.DateTimeFormat.DATE_TIME_FORMAT;
+
 public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
 
     private final TaskManager taskManager;
 
     public PrioritizedHandler(TaskManager taskManager) {
+        super(taskManager);
         this.taskManager = taskManager;
     }
 
@@ -27,7 +36,10 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
                 sendMethodNotAllowed(httpExchange);
             }
         } catch (Exception exception) {
-            httpExchange.sendResponseHeaders(HttpCodeResponse.SERVER_ERROR.getCode(), 0);
+            // После отправленных заголовков код ответа уже не изменить, обмен просто закрывается
+            if (httpExchange.getResponseCode() == -1) {
+                httpExchange.sendResponseHeaders(HttpCodeResponse.SERVER_ERROR.getCode(), 0);
+            }
         } finally {
             httpExchange.close();
         }
@@ -36,12 +48,47 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
     protected void getByRequest(HttpExchange httpExchange) throws IOException, NotFoundException {
         String path = httpExchange.getRequestURI().getPath();
         if (Pattern.matches("^/prioritized$", path)) {
-            String response = getGson().toJson(taskManager.getPrioritizedTasks());
-            sendResponse(httpExchange, response);
+            String query = httpExchange.getRequestURI().getRawQuery();
+            if (query == null) {
+                String response = getGson().toJson(taskManager.getPrioritizedTasks());
+                sendResponse(httpExchange, response);
+                return;
+            }
+            // Окно по времени начала: /prioritized?from=09:00 17.10.2026&to=18:00 17.10.2026, любая граница необязательна
+            LocalDateTime from;
+            LocalDateTime to;
+            try {
+                Map<String, String> parameters = parseQuery(query);
+                from = parseTime(parameters.get("from"));
+                to = parseTime(parameters.get("to"));
+                if (from != null && to != null && to.isBefore(from)) {
+                    sendBadRequest(httpExchange, "Конец интервала раньше начала");
+                    return;
+                }
+            } catch (DateTimeParseException | IllegalArgumentException exception) {
+                sendBadRequest(httpExchange, "Неверный формат даты, ожидается HH:mm dd.MM.yyyy");
+                return;
+            }
+            // Окно копируется менеджером и сериализуется до отправки заголовков: ошибка не оборвёт ответ с кодом 200
+            sendResponse(httpExchange, getGson().toJson(taskManager.getPrioritizedTasks(from, to)));
         } else {
             sendMethodNotAllowed(httpExchange);
         }
     }
 
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator < 0) continue;
+            parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                           URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
 
+    private static LocalDateTime parseTime(String value) {
+        if (value == null || value.isEmpty()) return null;
+        return LocalDateTime.parse(value, DATE_TIME_FORMAT);
+    }
 }
@@ -15,6 +15,7 @@ public class SingleTaskHandler extends BaseHttpHandler implements HttpHandler {
     protected final TaskManager taskManager;
 
     public SingleTaskHandler(TaskManager taskManager) {
+        super(taskManager);
         this.taskManager = taskManager;
     }
 
@@ -39,6 +40,9 @@ public class SingleTaskHandler extends BaseHttpHandler implements HttpHandler {
         } catch (NotFoundException notFoundException) {
             System.out.println(notFoundException.getMessage());
             sendNotFound(httpExchange, notFoundException.getMessage());
+        } catch (IllegalArgumentException illegalArgumentException) {
+            System.out.println(illegalArgumentException.getMessage());
+            sendBadRequest(httpExchange, illegalArgumentException.getMessage());
         } catch (Exception exception) {
             httpExchange.sendResponseHeaders(HttpCodeResponse.SERVER_ERROR.getCode(), 0);
         } finally {
@@ -50,14 +54,14 @@ public class SingleTaskHandler extends BaseHttpHandler implements HttpHandler {
         String path = httpExchange.getRequestURI().getPath();
         if (Pattern.matches("^/singletasks$", path)) {
             taskManager.clearSingleTasks();
-            httpExchange.sendResponseHeaders(HttpCodeResponse.OK.getCode(), 0);
+            sendStatus(httpExchange, HttpCodeResponse.OK);
             return;
         }
         if (Pattern.matches("^/singletasks/\\d+$", path)) {
             Integer id = parseTaskId(path.replaceFirst("/singletasks/", ""));
             if (id != -1) {
                 taskManager.removeTask(id);
-                httpExchange.sendResponseHeaders(HttpCodeResponse.OK.getCode(), 0);
+                sendStatus(httpExchange, HttpCodeResponse.OK);
             }
         } else {
             sendMethodNotAllowed(httpExchange);
@@ -67,7 +71,7 @@ public class SingleTaskHandler extends BaseHttpHandler implements HttpHandler {
     protected void getByRequest(HttpExchange httpExchange) throws IOException, NotFoundException {
         String path = httpExchange.getRequestURI().getPath();
         if (Pattern.matches("^/singletasks$", path)) {
-            String response = getGson().toJson(taskManager.getSingleTasks());
+            String response = getGson().toJson(taskManager.listSingleTasks());
             sendResponse(httpExchange, response);
             return;
         }
@@ -92,7 +96,7 @@ public class SingleTaskHandler extends BaseHttpHandler implements HttpHandler {
             } else {
                 taskManager.updateTask(singleTask);
             }
-            httpExchange.sendResponseHeaders(HttpCodeResponse.MODIFIED.getCode(), 0);
+            sendStatus(httpExchange, HttpCodeResponse.MODIFIED);
         } else {
             sendMethodNotAllowed(httpExchange);
         }
@@ -15,6 +15,7 @@ public class SubTaskHandler extends BaseHttpHandler implements HttpHandler {
     protected final TaskManager taskManager;
 
     public SubTaskHandler(TaskManager taskManager) {
+        super(taskManager);
         this.taskManager = taskManager;
     }
 
@@ -39,6 +40,9 @@ public class SubTaskHandler extends BaseHttpHandler implements HttpHandler {
         } catch (NotFoundException notFoundException) {
             System.out.println(notFoundException.getMessage());
             sendNotFound(httpExchange, notFoundException.getMessage());
+        } catch (IllegalArgumentException illegalArgumentException) {
+            System.out.println(illegalArgumentException.getMessage());
+            sendBadRequest(httpExchange, illegalArgumentException.getMessage());
         } catch (Exception exception) {
             httpExchange.sendResponseHeaders(HttpCodeResponse.SERVER_ERROR.getCode(), 0);
         } finally {
@@ -49,7 +53,7 @@ public class SubTaskHandler extends BaseHttpHandler implements HttpHandler {
     protected void getByRequest(HttpExchange httpExchange) throws IOException, NotFoundException {
         String path = httpExchange.getRequestURI().getPath();
         if (Pattern.matches("^/subtasks$", path)) {
-            String response = getGson().toJson(taskManager.getSubTasks());
+            String response = getGson().toJson(taskManager.listSubTasks());
             sendResponse(httpExchange, response);
             return;
         }
@@ -74,7 +78,7 @@ public class SubTaskHandler extends BaseHttpHandler implements HttpHandler {
             } else {
                 taskManager.updateTask(subTask);
             }
-            httpExchange.sendResponseHeaders(HttpCodeResponse.MODIFIED.getCode(), 0);
+            sendStatus(httpExchange, HttpCodeResponse.MODIFIED);
         } else {
             sendMethodNotAllowed(httpExchange);
         }
@@ -84,14 +88,14 @@ public class SubTaskHandler extends BaseHttpHandler implements HttpHandler {
         String path = httpExchange.getRequestURI().getPath();
         if (Pattern.matches("^/subtasks$", path)) {
             taskManager.clearSubTasks();
-            httpExchange.sendResponseHeaders(HttpCodeResponse.OK.getCode(), 0);
+            sendStatus(httpExchange, HttpCodeResponse.OK);
             return;
         }
         if (Pattern.matches("^/subtasks/\\d+$", path)) {
             Integer id = parseTaskId(path.replaceFirst("/subtasks/", ""));
             if (id != -1) {
                 taskManager.removeTask(id);
-                httpExchange.sendResponseHeaders(HttpCodeResponse.OK.getCode(), 0);
+                sendStatus(httpExchange, HttpCodeResponse.OK);
             }
         } else {
             sendMethodNotAllowed(httpExchange);
@@ -0,0 +1,140 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ JSON задач с прежними полями: время в модели хранится минутами, а в JSON остаются startTime, duration
+ и endTime у эпика в формате LocalDateTimeAdapter и DurationAdapter. При чтении задача собирается через
+ конструкторы, поэтому минуты и признак задачи без времени считаются как у любой новой задачи.
+ Секунд в JSON нет: время, переданное в Java с секундами, отдаётся округлённым вниз до минуты.
+ Статус и время эпика считаются по его подзадачам, endTime эпика при чтении не используется
+ */
+public class TaskAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!Task.class.isAssignableFrom(type.getRawType())) return null;
+        return (TypeAdapter<T>) new TaskAdapter(gson, type.getRawType());
+    }
+
+    private static class TaskAdapter extends TypeAdapter<Task> {
+        private final Gson gson;
+        private final Class<?> rawType;
+        private final TypeAdapter<LocalDateTime> timeAdapter;
+        private final TypeAdapter<Duration> durationAdapter;
+        private final TypeAdapter<JsonElement> elementAdapter;
+
+        TaskAdapter(Gson gson, Class<?> rawType) {
+            this.gson = gson;
+            this.rawType = rawType;
+            this.timeAdapter = gson.getAdapter(LocalDateTime.class);
+            this.durationAdapter = gson.getAdapter(Duration.class);
+            this.elementAdapter = gson.getAdapter(JsonElement.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            if (task == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            switch (task.getTypeTask()) {
+                case SUB:
+                    out.name("epicTaskId").value(((SubTask) task).getEpicId());
+                    break;
+                case EPIC:
+                    out.name("subTasks").beginArray();
+                    for (SubTask subTask : ((EpicTask) task).getSubTasks()) {
+                        write(out, subTask);
+                    }
+                    out.endArray();
+                    out.name("endTime");
+                    timeAdapter.write(out, task.getEndTime());
+                    break;
+                default:
+                    break;
+            }
+            out.name("id").value(task.getId());
+            if (task.getName() != null) out.name("name").value(task.getName());
+            if (task.getDescription() != null) out.name("description").value(task.getDescription());
+            if (task.getStatusTask() != null) out.name("statusTask").value(task.getStatusTask().name());
+            out.name("duration");
+            durationAdapter.write(out, task.getDuration());
+            out.name("startTime");
+            timeAdapter.write(out, task.getStartTime());
+            out.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            JsonElement element = elementAdapter.read(in);
+            if (element == null || element.isJsonNull()) return null;
+            return toTask(element.getAsJsonObject(), rawType);
+        }
+
+        private Task toTask(JsonObject json, Class<?> taskClass) {
+            String name = text(json, "name");
+            String description = text(json, "description");
+            StatusTask statusTask = field(json, "statusTask") == null
+                                    ? null
+                                    : gson.fromJson(json.get("statusTask"), StatusTask.class);
+            LocalDateTime startTime = field(json, "startTime") == null
+                                      ? null
+                                      : timeAdapter.fromJsonTree(json.get("startTime"));
+            int duration = field(json, "duration") == null
+                           ? 0
+                           : (int) durationAdapter.fromJsonTree(json.get("duration")).toMinutes();
+            Task task;
+            if (taskClass == SingleTask.class) {
+                task = new SingleTask(name, description, statusTask, startTime, duration);
+            } else if (taskClass == SubTask.class) {
+                Integer epicTaskId = field(json, "epicTaskId") == null ? null : json.get("epicTaskId").getAsInt();
+                task = new SubTask(name, description, startTime, duration, epicTaskId, statusTask);
+            } else if (taskClass == EpicTask.class) {
+                EpicTask epicTask = new EpicTask(name, description);
+                if (statusTask != null) epicTask.setStatus(statusTask);
+                List<SubTask> subTasks = new ArrayList<>();
+                if (field(json, "subTasks") != null) {
+                    JsonArray array = json.getAsJsonArray("subTasks");
+                    for (JsonElement subTask : array) {
+                        subTasks.add((SubTask) toTask(subTask.getAsJsonObject(), SubTask.class));
+                    }
+                }
+                if (!subTasks.isEmpty()) epicTask.addSubTasks(subTasks);
+                task = epicTask;
+            } else {
+                throw new JsonParseException("Тип задачи не определён: " + taskClass.getName());
+            }
+            if (field(json, "id") != null) task.setId(json.get("id").getAsInt());
+            return task;
+        }
+
+        private static JsonElement field(JsonObject json, String name) {
+            JsonElement element = json.get(name);
+            return element == null || element.isJsonNull() ? null : element;
+        }
+
+        private static String text(JsonObject json, String name) {
+            JsonElement element = field(json, name);
+            return element == null ? null : element.getAsString();
+        }
+    }
+}
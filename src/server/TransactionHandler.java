@@ -0,0 +1,121 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import service.NotFoundException;
+import service.TaskManager;
+import service.TaskTimeOverlapException;
+import service.TaskTransaction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+ Транзакция одним запросом: POST /transaction с JSON-массивом изменений, которые применяются все или ни одно.
+ Изменение - объект с полем action: CREATE и UPDATE содержат задачу с полем type (REG, SUB, EPIC),
+ REMOVE - только id. Ответ - массив id задач по изменениям в порядке запроса (у созданных - новые id).
+ Если изменение не проходит, доска не меняется, а код ответа тот же, что у одиночного изменения:
+ 406 - пересечение по времени, 404 - нет задачи или эпика, 400 - неверный запрос
+ */
+public class TransactionHandler extends BaseHttpHandler implements HttpHandler {
+
+    private final TaskManager taskManager;
+
+    public TransactionHandler(TaskManager taskManager) {
+        super(taskManager);
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) throws IOException {
+        try {
+            HttpRequestMethods requestMethod = HttpRequestMethods.valueOf(httpExchange.getRequestMethod());
+            if (requestMethod.equals(HttpRequestMethods.POST)) {
+                postByRequest(httpExchange);
+            } else {
+                System.out.println("Такой метод запроса не возможен");
+                sendMethodNotAllowed(httpExchange);
+            }
+        } catch (TaskTimeOverlapException taskTimeOverlapException) {
+            System.out.println(taskTimeOverlapException.getMessage());
+            sendHasOverlap(httpExchange);
+        } catch (NotFoundException notFoundException) {
+            System.out.println(notFoundException.getMessage());
+            sendNotFound(httpExchange, notFoundException.getMessage());
+        } catch (IllegalArgumentException illegalArgumentException) {
+            // Например, смена типа задачи, отклонённая при применении транзакции
+            System.out.println(illegalArgumentException.getMessage());
+            sendBadRequest(httpExchange, illegalArgumentException.getMessage());
+        } catch (Exception exception) {
+            System.out.println(exception);
+            httpExchange.sendResponseHeaders(HttpCodeResponse.SERVER_ERROR.getCode(), 0);
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    protected void postByRequest(HttpExchange httpExchange) throws IOException {
+        String path = httpExchange.getRequestURI().getPath();
+        if (!Pattern.matches("^/transaction$", path)) {
+            sendMethodNotAllowed(httpExchange);
+            return;
+        }
+        String body = new String(httpExchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        TaskTransaction transaction = taskManager.beginTransaction();
+        try {
+            JsonElement element = JsonParser.parseString(body);
+            if (!element.isJsonArray()) {
+                sendBadRequest(httpExchange, "Ожидается JSON-массив изменений");
+                return;
+            }
+            Gson gson = getGson();
+            for (JsonElement change : element.getAsJsonArray()) {
+                addChange(gson, transaction, change);
+            }
+        } catch (RuntimeException exception) {
+            // Неверное изменение отклоняет всю транзакцию ещё до применения
+            sendBadRequest(httpExchange, "Неверное изменение: " + exception.getMessage());
+            return;
+        }
+        transaction.commit();
+        List<Integer> ids = new ArrayList<>();
+        for (TaskTransaction.Operation operation : transaction.getOperations()) {
+            ids.add(operation.getId());
+        }
+        sendResponse(httpExchange, getGson().toJson(ids));
+    }
+
+    private static void addChange(Gson gson, TaskTransaction transaction, JsonElement change) {
+        if (!change.isJsonObject()) throw new JsonParseException("Изменение не является объектом");
+        JsonObject json = change.getAsJsonObject();
+        JsonElement action = json.get("action");
+        if (action == null || action.isJsonNull()) throw new JsonParseException("Не задано действие");
+        TaskTransaction.Action transactionAction;
+        try {
+            transactionAction = TaskTransaction.Action.valueOf(action.getAsString());
+        } catch (IllegalArgumentException exception) {
+            throw new JsonParseException("Неизвестное действие: " + action.getAsString());
+        }
+        switch (transactionAction) {
+            case CREATE:
+                transaction.createTask(toTypedTask(gson, json));
+                break;
+            case UPDATE:
+                transaction.updateTask(toTypedTask(gson, json));
+                break;
+            case REMOVE:
+                JsonElement id = json.get("id");
+                if (id == null || id.isJsonNull()) throw new JsonParseException("Не задан id удаляемой задачи");
+                transaction.removeTask(id.getAsInt());
+                break;
+        }
+    }
+}
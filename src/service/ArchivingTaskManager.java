@@ -0,0 +1,216 @@
+package service;
+
+import model.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ Менеджер с архивом выполненных задач. Выполненные обычные задачи и эпики (вместе с подзадачами),
+ завершившиеся раньше заданного срока, переносятся в сжатый архив (TaskArchive) и убираются из памяти,
+ списков задач и снимка. Задачи без времени не архивируются: момент их завершения неизвестен.
+ getTaskById находит архивные задачи по индексу архива и возвращает их в рабочий набор, изменение и удаление
+ по id архивной задачи тоже сначала возвращают её из архива.
+ Время архивных задач не занято: если после архивации на него создана задача, архивная задача не возвращается
+ и поиск по её id завершается TaskTimeOverlapException.
+ Архивация выполняется при загрузке и по вызову archiveDoneTasks.
+ Порядок записи: блок архива, индекс архива, затем снимок. При сбое между ними задача окажется и в снимке,
+ и в архиве - приоритет у снимка, а повторная архивация просто добавит новый блок.
+ */
+public class ArchivingTaskManager extends FileBackedTaskManager implements AutoCloseable {
+    public static final Duration DEFAULT_ARCHIVE_AGE = Duration.ofDays(30);
+    private static final String ARCHIVE_SUFFIX = ".archive";
+
+    private final TaskArchive archive;
+    private final Duration archiveAge;
+    private boolean committing;
+    private boolean restoredInCommit;
+
+    public ArchivingTaskManager(Path path) {
+        this(path, DEFAULT_ARCHIVE_AGE);
+    }
+
+    public ArchivingTaskManager(Path path, Duration archiveAge) {
+        super(path);
+        this.archiveAge = archiveAge;
+        this.archive = new TaskArchive(path.resolveSibling(path.getFileName() + ARCHIVE_SUFFIX));
+    }
+
+    public static ArchivingTaskManager loadFromFile(Path path) {
+        return loadFromFile(path, DEFAULT_ARCHIVE_AGE);
+    }
+
+    public static ArchivingTaskManager loadFromFile(Path path, Duration archiveAge) {
+        ArchivingTaskManager taskManager = new ArchivingTaskManager(path, archiveAge);
+        taskManager.readSnapshot();
+        taskManager.setNextFreeId(Math.max(taskManager.getLastId(), taskManager.archive.getMaxId()));
+        taskManager.archiveDoneTasks();
+        return taskManager;
+    }
+
+    public Path getArchivePath() {
+        return archive.getPath();
+    }
+
+    public int getArchivedTasks() {
+        return archive.size();
+    }
+
+    public Duration getArchiveAge() {
+        return archiveAge;
+    }
+
+    // Перенос в архив выполненных задач старше срока архивации, возвращает число перенесённых задач
+    public int archiveDoneTasks() {
+        long border = DateTimeFormat.ceilEpochMinute(LocalDateTime.now().minus(archiveAge)); // Окончание раньше этой минуты
+        List<Task> archived = new ArrayList<>();
+        for (Task task : peekTasks(TypeTask.REG)) {
+            if (isArchivable(task, border)) {
+                archived.add(task);
+            }
+        }
+        for (Task task : peekTasks(TypeTask.EPIC)) {
+            // Статус эпика DONE означает, что выполнены все его подзадачи
+            if (isArchivable(task, border)) {
+                archived.add(task);
+                archived.addAll(((EpicTask) task).getSubTasks());
+            }
+        }
+        if (archived.isEmpty()) return 0;
+        archive.append(archived);
+        evictTasks(archived);
+        save();
+        return archived.size();
+    }
+
+    @Override
+    public void createTask(Task task) {
+        faultInEpic(task);
+        super.createTask(task);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        faultInEpic(task);
+        faultInArchived(task.getId());
+        super.updateTask(task);
+    }
+
+    @Override
+    public void removeTask(Integer id) {
+        faultInArchived(id);
+        super.removeTask(id);
+    }
+
+    @Override
+    public BatchResult createTasks(Collection<Task> tasks) {
+        faultInEpics(tasks);
+        return super.createTasks(tasks);
+    }
+
+    @Override
+    public BatchResult updateTasks(Collection<Task> tasks) {
+        faultInEpics(tasks);
+        for (Task task : tasks) {
+            if (task != null) faultInArchived(task.getId());
+        }
+        return super.updateTasks(tasks);
+    }
+
+    /*
+     Архивные задачи транзакции возвращаются до применения первого изменения: снимок, записанный при возврате,
+     не должен содержать изменений транзакции, которые потом будут откачены
+     */
+    @Override
+    public void commit(TaskTransaction transaction) {
+        for (TaskTransaction.Operation operation : transaction.getOperations()) {
+            switch (operation.getAction()) {
+                case CREATE:
+                    faultInEpic(operation.getTask());
+                    break;
+                case UPDATE:
+                    faultInEpic(operation.getTask());
+                    faultInArchived(operation.getTask().getId());
+                    break;
+                case REMOVE:
+                    faultInArchived(operation.getId());
+                    break;
+            }
+        }
+        committing = true;
+        boolean committed = false;
+        try {
+            super.commit(transaction);
+            committed = true;
+        } finally {
+            committing = false;
+            // Задачи, всё же возвращённые во время откаченной транзакции, сохраняются уже без её изменений
+            if (restoredInCommit && !committed) save();
+            restoredInCommit = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            archive.close();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка закрытия архива: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    protected Task faultIn(int id) {
+        List<Task> group = archive.fetch(id);
+        if (group.isEmpty()) return null;
+        if (overlapsPrioritized(group)) {
+            throw new TaskTimeOverlapException("Архивная задача пересекается по времени с задачами, созданными после архивации. id: " + id);
+        }
+        restoreTasks(group.iterator());
+        archive.markRestored(group);
+        if (committing) {
+            restoredInCommit = true; // Снимок посреди транзакции содержал бы её неподтверждённые изменения
+        } else {
+            save();
+        }
+        return peekTask(id);
+    }
+
+    // Подзадача архивного эпика возвращает эпик из архива
+    private void faultInEpic(Task task) {
+        if (task.getTypeTask() != TypeTask.SUB) return;
+        int epicId = ((SubTask) task).getEpicId();
+        if (peekTask(epicId) == null) {
+            faultIn(epicId);
+        }
+    }
+
+    /*
+     Изменение и удаление по id архивной задачи сначала возвращают её из архива: иначе изменение добавит новую задачу,
+     а архив продолжит выдавать старую копию и после удаления. Копия в архиве у задачи, оставшейся в снимке
+     после сбоя архивации, просто забывается - приоритет у снимка
+     */
+    private void faultInArchived(int id) {
+        if (!archive.contains(id)) return;
+        if (peekTask(id) == null) {
+            faultIn(id);
+        } else {
+            archive.markRestored(archive.fetch(id));
+        }
+    }
+
+    private void faultInEpics(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            if (task != null) faultInEpic(task);
+        }
+    }
+
+    private static boolean isArchivable(Task task, long border) {
+        return task.getStatusTask() == StatusTask.DONE && task.isScheduled() && task.getEndMinute() < border;
+    }
+}
@@ -0,0 +1,82 @@
+package service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ Атомарная запись файлов: содержимое пишется во временный файл рядом с целевым, сбрасывается на диск
+ и переименовывается поверх целевого. При сбое во время записи целевой файл остаётся прежним.
+ Для снимков предыдущая версия файла сохраняется как предыдущее поколение (<файл>.prev).
+ */
+public class AtomicFiles {
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String PREVIOUS_SUFFIX = ".prev";
+
+    private AtomicFiles() {
+    }
+
+    public interface Content {
+        void writeTo(OutputStream output) throws IOException;
+    }
+
+    public static Path previousGeneration(Path path) {
+        return path.resolveSibling(path.getFileName() + PREVIOUS_SUFFIX);
+    }
+
+    public static void write(Path path, Content content) throws IOException {
+        write(path, content, false);
+    }
+
+    // Запись с сохранением предыдущего поколения файла
+    public static void writeKeepingPrevious(Path path, Content content) throws IOException {
+        write(path, content, true);
+    }
+
+    private static void write(Path path, Content content, boolean keepPrevious) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary,
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel));
+            content.writeTo(output);
+            output.flush();
+            channel.force(true);
+        }
+        // Предыдущее поколение - жёсткая ссылка (или копия) на текущий файл, сам файл заменяется одним переименованием
+        // и не пропадает ни в какой момент записи
+        if (keepPrevious && Files.exists(path) && Files.size(path) > 0) {
+            keepPrevious(path);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(path.toAbsolutePath().getParent());
+    }
+
+    private static void keepPrevious(Path path) throws IOException {
+        Path previous = previousGeneration(path);
+        Files.deleteIfExists(previous);
+        try {
+            Files.createLink(previous, path);
+        } catch (UnsupportedOperationException | IOException exception) {
+            // Файловая система без жёстких ссылок
+            Files.copy(path, previous, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Переименование становится устойчивым к сбою питания только после сброса каталога
+    private static void forceDirectory(Path directory) {
+        if (directory == null) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Не все системы позволяют открыть каталог как файл (например, Windows)
+        }
+    }
+}
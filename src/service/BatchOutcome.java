@@ -0,0 +1,10 @@
+package service;
+
+// Результат одного элемента пакетной операции
+public enum BatchOutcome {
+    CREATED,
+    UPDATED,
+    OVERLAP,   // Пересечение по времени с задачами доски или с другими задачами пачки
+    NOT_FOUND, // Нет изменяемой задачи или эпика подзадачи
+    INVALID    // Элемент нельзя применить: пустой, повтор id в пачке, смена типа задачи
+}
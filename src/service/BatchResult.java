@@ -0,0 +1,73 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Итог пакетной операции: по элементу на каждую задачу пачки в порядке входа
+public class BatchResult {
+    private final List<Item> items;
+
+    public BatchResult(List<Item> items) {
+        this.items = List.copyOf(items);
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public Item getItem(int index) {
+        return items.get(index);
+    }
+
+    // Число созданных и изменённых задач
+    public int getAppliedCount() {
+        int count = 0;
+        for (Item item : items) {
+            if (item.isApplied()) count++;
+        }
+        return count;
+    }
+
+    // id созданных и изменённых задач в порядке входа
+    public List<Integer> getAppliedIds() {
+        List<Integer> ids = new ArrayList<>();
+        for (Item item : items) {
+            if (item.isApplied()) ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    public static class Item {
+        private final int index; // Позиция задачи в пачке
+        private final int id;    // id задачи, 0 - задача не создана
+        private final BatchOutcome outcome;
+        private final String message;
+
+        public Item(int index, int id, BatchOutcome outcome, String message) {
+            this.index = index;
+            this.id = id;
+            this.outcome = outcome;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public BatchOutcome getOutcome() {
+            return outcome;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public boolean isApplied() {
+            return outcome == BatchOutcome.CREATED || outcome == BatchOutcome.UPDATED;
+        }
+    }
+}
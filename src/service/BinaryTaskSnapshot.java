@@ -0,0 +1,218 @@
+package service;
+
+import model.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/*
+ Бинарный снимок задач. Запись атомарная, прежний файл остаётся предыдущим поколением.
+ Заголовок: MAGIC(int), VERSION(short), зарезервировано(short), количество задач(int), количество строк(int).
+ Далее колонки фиксированной ширины по всем задачам подряд:
+ id(int), тип(byte), статус(byte), начало в минутах от эпохи UTC(long), длительность в минутах(int),
+ id эпика(int), номер названия(int), номер описания(int).
+ Далее таблица строк: длина(int) и байты UTF-8 для каждой строки. Одинаковые строки хранятся один раз.
+ Начиная с версии 2 в конце файла записаны суммы CRC32C блоков данных (см. SnapshotChecksums).
+ Версия 1 (без сумм) читается без проверки.
+ */
+public class BinaryTaskSnapshot {
+    public static final int MAGIC = 0x544D4253; // "TMBS"
+    public static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_CHECKSUMS = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ROW_SIZE = Integer.BYTES * 5 + Byte.BYTES * 2 + Long.BYTES;
+
+    private static final TypeTask[] TYPES = TypeTask.values();
+    private static final StatusTask[] STATUSES = StatusTask.values();
+
+    private BinaryTaskSnapshot() {
+    }
+
+    public static void write(Path path, List<Task> tasks) throws IOException {
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] nameRefs = new int[tasks.size()];
+        int[] descriptionRefs = new int[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            nameRefs[i] = stringRef(tasks.get(i).getName(), stringIndex, strings);
+            descriptionRefs[i] = stringRef(tasks.get(i).getDescription(), stringIndex, strings);
+        }
+
+        AtomicFiles.writeKeepingPrevious(path, file -> {
+            SnapshotChecksums.BlockOutputStream blocks = new SnapshotChecksums.BlockOutputStream(file);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(blocks));
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeShort(0);
+            output.writeInt(tasks.size());
+            output.writeInt(strings.size());
+            for (Task task : tasks) {
+                output.writeInt(task.getId());
+            }
+            for (Task task : tasks) {
+                output.writeByte(task.getTypeTask().ordinal());
+            }
+            for (Task task : tasks) {
+                output.writeByte(task.getStatusTask().ordinal());
+            }
+            for (Task task : tasks) {
+                output.writeLong(task.getStartMinute());
+            }
+            for (Task task : tasks) {
+                output.writeInt((int) task.getDurationMinutes());
+            }
+            for (Task task : tasks) {
+                output.writeInt(task.getTypeTask() == TypeTask.SUB ? ((SubTask) task).getEpicId() : 0);
+            }
+            for (int nameRef : nameRefs) {
+                output.writeInt(nameRef);
+            }
+            for (int descriptionRef : descriptionRefs) {
+                output.writeInt(descriptionRef);
+            }
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+            output.flush();
+            blocks.finish();
+        });
+    }
+
+    // Чтение снимка через отображение файла в память: колонки читаются напрямую, без разбора текста
+    public static Iterator<Task> read(Path path) throws IOException {
+        if (Files.size(path) == 0) return new ArrayList<Task>().iterator();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new ManagerSaveException("Файл не является бинарным снимком задач: " + path);
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION && version != VERSION_WITHOUT_CHECKSUMS) {
+            throw new ManagerSaveException("Неподдерживаемая версия бинарного снимка: " + buffer.getShort(4));
+        }
+        int count = buffer.getInt(8);
+        String[] strings = readStrings(buffer, HEADER_SIZE + (long) count * ROW_SIZE, buffer.getInt(12));
+        return new ColumnIterator(buffer, count, strings);
+    }
+
+    // Проверка сумм блоков за один последовательный проход по отображённому файлу
+    public static boolean validate(Path path) throws IOException {
+        if (Files.size(path) == 0) return true;
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) return false;
+        if (buffer.getShort(4) == VERSION_WITHOUT_CHECKSUMS) return true;
+        return SnapshotChecksums.validateBlocks(buffer);
+    }
+
+    public static boolean isBinarySnapshot(Path path) throws IOException {
+        if (Files.size(path) < HEADER_SIZE) return false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, Integer.BYTES).getInt(0) == MAGIC;
+        }
+    }
+
+    private static String[] readStrings(MappedByteBuffer buffer, long offset, int count) {
+        String[] strings = new String[count];
+        ByteBuffer table = buffer.duplicate();
+        table.position(Math.toIntExact(offset));
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[table.getInt()];
+            table.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static int stringRef(String string, Map<String, Integer> stringIndex, List<String> strings) {
+        return stringIndex.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    private static class ColumnIterator implements Iterator<Task> {
+        private final MappedByteBuffer buffer;
+        private final int count;
+        private final String[] strings;
+        private final int idColumn;
+        private final int typeColumn;
+        private final int statusColumn;
+        private final int startColumn;
+        private final int durationColumn;
+        private final int epicColumn;
+        private final int nameColumn;
+        private final int descriptionColumn;
+        private int row;
+
+        ColumnIterator(MappedByteBuffer buffer, int count, String[] strings) {
+            this.buffer = buffer;
+            this.count = count;
+            this.strings = strings;
+            this.idColumn = HEADER_SIZE;
+            this.typeColumn = idColumn + count * Integer.BYTES;
+            this.statusColumn = typeColumn + count;
+            this.startColumn = statusColumn + count;
+            this.durationColumn = startColumn + count * Long.BYTES;
+            this.epicColumn = durationColumn + count * Integer.BYTES;
+            this.nameColumn = epicColumn + count * Integer.BYTES;
+            this.descriptionColumn = nameColumn + count * Integer.BYTES;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return row < count;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int id = buffer.getInt(idColumn + row * Integer.BYTES);
+            TypeTask typeTask = TYPES[buffer.get(typeColumn + row)];
+            StatusTask statusTask = STATUSES[buffer.get(statusColumn + row)];
+            LocalDateTime startTime = DateTimeFormat.fromEpochMinute(buffer.getLong(startColumn + row * Long.BYTES));
+            int duration = buffer.getInt(durationColumn + row * Integer.BYTES);
+            String name = strings[buffer.getInt(nameColumn + row * Integer.BYTES)];
+            String description = strings[buffer.getInt(descriptionColumn + row * Integer.BYTES)];
+            Task task;
+            switch (typeTask) {
+                case REG:
+                    task = new SingleTask(name, description, statusTask, startTime, duration);
+                    break;
+                case SUB:
+                    int epicId = buffer.getInt(epicColumn + row * Integer.BYTES);
+                    task = new SubTask(name, description, startTime, duration, epicId, statusTask);
+                    break;
+                default:
+                    EpicTask epicTask = new EpicTask(name, description);
+                    epicTask.setStatus(statusTask);
+                    task = epicTask;
+                    break;
+            }
+            task.setId(id);
+            row++;
+            return task;
+        }
+    }
+}
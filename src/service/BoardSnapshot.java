@@ -0,0 +1,149 @@
+package service;
+
+import model.*;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ Неизменяемая версия доски задач для чтения без блокировок: задачи по типам в PersistentIntMap (в порядке id)
+ и индекс приоритетов в PersistentTaskTree. Задачи в версии - копии, которые никто не меняет после публикации,
+ вызывающий код тоже не должен их менять.
+ */
+public final class BoardSnapshot {
+    static final BoardSnapshot EMPTY = new BoardSnapshot(0,
+                                                         PersistentIntMap.empty(),
+                                                         PersistentIntMap.empty(),
+                                                         PersistentIntMap.empty(),
+                                                         PersistentTaskTree.empty());
+
+    private final long version;
+    private final PersistentIntMap<Task> singleTasks;
+    private final PersistentIntMap<Task> epicTasks;
+    private final PersistentIntMap<Task> subTasks;
+    private final PersistentTaskTree prioritized;
+
+    private BoardSnapshot(long version,
+                          PersistentIntMap<Task> singleTasks,
+                          PersistentIntMap<Task> epicTasks,
+                          PersistentIntMap<Task> subTasks,
+                          PersistentTaskTree prioritized) {
+        this.version = version;
+        this.singleTasks = singleTasks;
+        this.epicTasks = epicTasks;
+        this.subTasks = subTasks;
+        this.prioritized = prioritized;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Задача по id, null если её нет в этой версии
+    public Task findTask(int id) {
+        Task task = singleTasks.get(id);
+        if (task == null) task = subTasks.get(id);
+        if (task == null) task = epicTasks.get(id);
+        return task;
+    }
+
+    public List<Task> listTasks(TypeTask typeTask) {
+        return tasks(typeTask).values();
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return prioritized.toList();
+    }
+
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        return prioritized.range(from, to);
+    }
+
+    public Iterator<Task> iteratePrioritized(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        return prioritized.iterator(from, to);
+    }
+
+    // Следующая версия с заменой задачи id: old - задача в этой версии, current - копия новой (null - задача удалена)
+    BoardSnapshot replace(Task old, Task current, long nextVersion) {
+        PersistentIntMap<Task> single = singleTasks;
+        PersistentIntMap<Task> epic = epicTasks;
+        PersistentIntMap<Task> sub = subTasks;
+        PersistentTaskTree tree = prioritized;
+        if (old != null) {
+            switch (old.getTypeTask()) {
+                case REG:
+                    single = single.remove(old.getId());
+                    break;
+                case EPIC:
+                    epic = epic.remove(old.getId());
+                    break;
+                case SUB:
+                    sub = sub.remove(old.getId());
+                    break;
+            }
+            if (isPrioritized(old)) tree = tree.remove(old);
+        }
+        if (current != null) {
+            switch (current.getTypeTask()) {
+                case REG:
+                    single = single.put(current.getId(), current);
+                    break;
+                case EPIC:
+                    epic = epic.put(current.getId(), current);
+                    break;
+                case SUB:
+                    sub = sub.put(current.getId(), current);
+                    break;
+            }
+            if (isPrioritized(current)) tree = tree.add(current);
+        }
+        return new BoardSnapshot(nextVersion, single, epic, sub, tree);
+    }
+
+    // Версия по полному набору задач (копий), например после очистки целого типа
+    static BoardSnapshot of(List<Task> tasks, long version) {
+        PersistentIntMap<Task> single = PersistentIntMap.empty();
+        PersistentIntMap<Task> epic = PersistentIntMap.empty();
+        PersistentIntMap<Task> sub = PersistentIntMap.empty();
+        PersistentTaskTree tree = PersistentTaskTree.empty();
+        for (Task task : tasks) {
+            switch (task.getTypeTask()) {
+                case REG:
+                    single = single.put(task.getId(), task);
+                    break;
+                case EPIC:
+                    epic = epic.put(task.getId(), task);
+                    break;
+                case SUB:
+                    sub = sub.put(task.getId(), task);
+                    break;
+            }
+            if (isPrioritized(task)) tree = tree.add(task);
+        }
+        return new BoardSnapshot(version, single, epic, sub, tree);
+    }
+
+    private PersistentIntMap<Task> tasks(TypeTask typeTask) {
+        switch (typeTask) {
+            case REG:
+                return singleTasks;
+            case EPIC:
+                return epicTasks;
+            default:
+                return subTasks;
+        }
+    }
+
+    private static boolean isPrioritized(Task task) {
+        return task.getTypeTask() != TypeTask.EPIC && task.isScheduled();
+    }
+
+    private static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец интервала раньше начала: " + from + " - " + to);
+        }
+    }
+}
@@ -0,0 +1,746 @@
+package service;
+
+import model.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ Менеджер задач для очень больших досок: задачи хранятся не объектами, а строками параллельных примитивных массивов
+ (id, тип, статус, начало и длительность в минутах, эпик, номера названия и описания в общем пуле строк).
+ Объекты Task создаются только на выдаче и всегда новые, поэтому изменения доски идут только через методы менеджера.
+ Время хранится с точностью до минуты, как в форматах CSV и JSON, в int-минутах: время и длительность,
+ не помещающиеся в int, отклоняются с IllegalArgumentException.
+ Строка по id ищется в IntObjectMap, как и в InMemoryTaskManager, поэтому память зависит от числа задач, а не от их id.
+ Индекс приоритетов и проверка пересечений - декартово дерево прямо на строках: у каждой строки есть столбцы
+ левого и правого потомка и наибольшего конца в поддереве. Подзадачи эпика - двусвязный список на столбцах ссылок.
+ Статус и время эпика считаются по его подзадачам при выдаче эпика.
+ */
+public class CompactTaskManager implements TaskManager {
+    private static final int NIL = -1; // Нет строки
+    private static final int FREE = -1; // Тип освобождённой строки
+    private static final int UNSCHEDULED = Integer.MIN_VALUE; // Начало задачи без времени
+    private static final int INITIAL_ROWS = 16;
+    private static final TypeTask[] TYPES = TypeTask.values();
+    private static final StatusTask[] STATUSES = StatusTask.values();
+    private static final String overlapError = "Новая задача пересекается по времени с уже существующими задачами";
+
+    private final HistoryManager historyManager;
+    private final StringPool strings = new StringPool();
+
+    private int[] ids = new int[INITIAL_ROWS];
+    private byte[] types = new byte[INITIAL_ROWS];
+    private byte[] statuses = new byte[INITIAL_ROWS];
+    private int[] starts = new int[INITIAL_ROWS]; // Минуты от 01.01.1970 или UNSCHEDULED
+    private int[] durations = new int[INITIAL_ROWS]; // Минуты
+    private int[] epicIds = new int[INITIAL_ROWS];
+    private int[] names = new int[INITIAL_ROWS];
+    private int[] descriptions = new int[INITIAL_ROWS];
+    // Подзадача: соседи в списке эпика. Эпик: первая и последняя подзадача. Свободная строка: следующая свободная
+    private int[] nextLinks = new int[INITIAL_ROWS];
+    private int[] prevLinks = new int[INITIAL_ROWS];
+    // Узлы дерева приоритетов
+    private int[] lefts = new int[INITIAL_ROWS];
+    private int[] rights = new int[INITIAL_ROWS];
+    private int[] maxEnds = new int[INITIAL_ROWS];
+
+    private final IntObjectMap<Integer> rowById = new IntObjectMap<>(); // Номер строки по id
+    private int rowCount; // Строки от rowCount и дальше ещё не использовались
+    private int freeRow = NIL;
+    private final int[] typeCounts = new int[TYPES.length];
+    private int root = NIL;
+    private int taskIdGenerator;
+    private int modCount; // Число изменений дерева приоритетов для проверки ленивых обходов
+
+    public CompactTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public CompactTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = findTask(id);
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Task findTask(int id) {
+        return toTask(requireRow(id));
+    }
+
+    @Override
+    public void markViewed(int id) {
+        getTaskById(id);
+    }
+
+    @Override
+    public List<Task> getSingleTasks() {
+        return view(listSingleTasks());
+    }
+
+    @Override
+    public List<Task> getSubTasks() {
+        return view(listSubTasks());
+    }
+
+    @Override
+    public List<Task> getEpicTasks() {
+        return view(listEpicTasks());
+    }
+
+    @Override
+    public List<Task> listSingleTasks() {
+        return listTasks(TypeTask.REG);
+    }
+
+    @Override
+    public List<Task> listSubTasks() {
+        return listTasks(TypeTask.SUB);
+    }
+
+    @Override
+    public List<Task> listEpicTasks() {
+        return listTasks(TypeTask.EPIC);
+    }
+
+    // История хранит выданные ранее объекты, поэтому задачи в ней заново собираются по текущим строкам
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>();
+        for (Task task : historyManager.getHistory()) {
+            int row = rowOf(task.getId());
+            if (row != NIL) {
+                history.add(toTask(row));
+            }
+        }
+        return history;
+    }
+
+    @Override
+    public void createTask(Task task) throws TaskTimeOverlapException {
+        TypeTask typeTask = task.getTypeTask();
+        int start = startOf(task);
+        int duration = durationOf(task);
+        if (typeTask != TypeTask.EPIC && overlaps(start, end(start, duration))) {
+            throw new TaskTimeOverlapException(overlapError);
+        }
+        int epicRow = typeTask == TypeTask.SUB ? requireEpicRow(((SubTask) task).getEpicId()) : NIL;
+        task.setId(++taskIdGenerator);
+        insertRow(task, start, duration, epicRow);
+    }
+
+    @Override
+    public void updateTask(Task task) throws TaskTimeOverlapException {
+        int row = rowOf(task.getId());
+        // id, которые менеджер ещё не выдавал, не принимаются: иначе клиент задавал бы генератор id
+        if (task.getId() <= 0 || row == NIL && task.getId() > taskIdGenerator) {
+            throw new NotFoundException("Задача не найдена в списке. id: " + task.getId());
+        }
+        if (row == NIL) {
+            // Как и в InMemoryTaskManager, изменение неизвестной задачи её добавляет
+            TypeTask typeTask = task.getTypeTask();
+            int start = startOf(task);
+            int duration = durationOf(task);
+            if (typeTask != TypeTask.EPIC && overlaps(start, end(start, duration))) {
+                throw new TaskTimeOverlapException(overlapError);
+            }
+            int epicRow = typeTask == TypeTask.SUB ? requireEpicRow(((SubTask) task).getEpicId()) : NIL;
+            insertRow(task, start, duration, epicRow);
+            return;
+        }
+        if (types[row] != task.getTypeTask().ordinal()) {
+            throw new IllegalArgumentException("Тип задачи нельзя изменить. id: " + task.getId());
+        }
+        if (task.getTypeTask() == TypeTask.EPIC) {
+            // Статус и время эпика считаются по подзадачам, меняются только название и описание
+            setText(row, task);
+            return;
+        }
+        int start = startOf(task);
+        int duration = durationOf(task);
+        int epicRow = task.getTypeTask() == TypeTask.SUB ? requireEpicRow(((SubTask) task).getEpicId()) : NIL;
+        // Прежний интервал убирается до проверки, чтобы задача не пересекалась сама с собой
+        boolean wasPrioritized = starts[row] != UNSCHEDULED;
+        if (wasPrioritized) removePrioritized(row);
+        if (overlaps(start, end(start, duration))) {
+            if (wasPrioritized) addPrioritized(row);
+            throw new TaskTimeOverlapException(overlapError);
+        }
+        setText(row, task);
+        statuses[row] = (byte) task.getStatusTask().ordinal();
+        starts[row] = start;
+        durations[row] = duration;
+        if (epicRow != NIL && epicIds[row] != ids[epicRow]) {
+            unlinkFromEpic(row);
+            linkToEpic(row, epicRow);
+        }
+        if (start != UNSCHEDULED) addPrioritized(row);
+    }
+
+    /*
+     Транзакция применяется обычными методами по одному изменению. Строки доски - не объекты, поэтому для отката
+     запоминаются копии прежних задач: изменение отменяется обратным updateTask, удалённая задача вставляется
+     строкой заново, подзадача - на прежнее место в списке эпика. Из истории удалённые задачи убираются только
+     после успешного применения всей транзакции, поэтому откату историю восстанавливать не нужно
+     */
+    @Override
+    public void commit(TaskTransaction transaction) throws TaskTimeOverlapException, NotFoundException {
+        List<Runnable> undo = new ArrayList<>();
+        List<Task> created = new ArrayList<>();
+        int lastId = taskIdGenerator;
+        List<Integer> removedIds = new ArrayList<>();
+        try {
+            for (TaskTransaction.Operation operation : transaction.getOperations()) {
+                Task task = operation.getTask();
+                switch (operation.getAction()) {
+                    case CREATE:
+                        createTask(task);
+                        created.add(task);
+                        undo.add(() -> removeTask(task.getId()));
+                        break;
+                    case UPDATE:
+                        int row = task.getId() > 0 ? rowOf(task.getId()) : NIL;
+                        Task oldTask = row == NIL ? null : toTask(row);
+                        updateTask(task);
+                        undo.add(oldTask == null ? () -> removeTask(task.getId()) : () -> updateTask(oldTask));
+                        break;
+                    case REMOVE:
+                        int removedRow = requireRow(operation.getId());
+                        Task removed = toTask(removedRow);
+                        boolean isSubTask = types[removedRow] == TypeTask.SUB.ordinal();
+                        int nextSubTaskId = isSubTask && nextLinks[removedRow] != NIL ? ids[nextLinks[removedRow]] : 0;
+                        removedIds.addAll(deleteTask(removedRow));
+                        undo.add(() -> unremove(removed, nextSubTaskId));
+                        break;
+                }
+            }
+        } catch (RuntimeException exception) {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                undo.get(i).run();
+            }
+            created.forEach(task -> task.setId(0));
+            taskIdGenerator = lastId;
+            throw exception;
+        }
+        historyManager.removeAll(removedIds);
+    }
+
+    private void unremove(Task task, int nextSubTaskId) {
+        TypeTask typeTask = task.getTypeTask();
+        int epicRow = typeTask == TypeTask.SUB ? requireEpicRow(((SubTask) task).getEpicId()) : NIL;
+        // Статус и время эпика считаются по подзадачам и в строке эпика не хранятся
+        int start = typeTask == TypeTask.EPIC ? UNSCHEDULED : startOf(task);
+        int duration = typeTask == TypeTask.EPIC ? 0 : durationOf(task);
+        insertRow(task, start, duration, epicRow);
+        if (epicRow != NIL && nextSubTaskId != 0) {
+            moveBefore(rowOf(task.getId()), rowOf(nextSubTaskId), epicRow);
+        }
+        if (typeTask == TypeTask.EPIC) {
+            for (SubTask subTask : ((EpicTask) task).getSubTasks()) {
+                unremove(subTask, 0);
+            }
+        }
+    }
+
+    // Перенос подзадачи из конца списка эпика на место перед другой подзадачей
+    private void moveBefore(int row, int nextRow, int epicRow) {
+        unlinkFromEpic(row);
+        int prev = prevLinks[nextRow];
+        prevLinks[row] = prev;
+        nextLinks[row] = nextRow;
+        prevLinks[nextRow] = row;
+        if (prev == NIL) {
+            nextLinks[epicRow] = row;
+        } else {
+            nextLinks[prev] = row;
+        }
+    }
+
+    // Пачка применяется по одной задаче: пересечения проверяются по дереву на строках, а статус и время эпика
+    // и так считаются только при выдаче, поэтому пересчитывать после пачки нечего
+    @Override
+    public BatchResult createTasks(Collection<Task> tasks) {
+        List<BatchResult.Item> items = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            items.add(applyBatchItem(items.size(), task, false, null));
+        }
+        return new BatchResult(items);
+    }
+
+    @Override
+    public BatchResult updateTasks(Collection<Task> tasks) {
+        List<BatchResult.Item> items = new ArrayList<>(tasks.size());
+        Set<Integer> batchIds = new HashSet<>();
+        for (Task task : tasks) {
+            items.add(applyBatchItem(items.size(), task, true, batchIds));
+        }
+        return new BatchResult(items);
+    }
+
+    private BatchResult.Item applyBatchItem(int index, Task task, boolean update, Set<Integer> batchIds) {
+        if (task == null) return new BatchResult.Item(index, 0, BatchOutcome.INVALID, "Пустая задача");
+        try {
+            if (!update) {
+                createTask(task);
+                return new BatchResult.Item(index, task.getId(), BatchOutcome.CREATED, null);
+            }
+            if (task.getId() <= 0 || rowOf(task.getId()) == NIL) {
+                throw new NotFoundException("Задача не найдена в списке. id: " + task.getId());
+            }
+            if (!batchIds.add(task.getId())) {
+                throw new IllegalArgumentException("Задача уже есть в пачке. id: " + task.getId());
+            }
+            updateTask(task);
+            return new BatchResult.Item(index, task.getId(), BatchOutcome.UPDATED, null);
+        } catch (TaskTimeOverlapException exception) {
+            return new BatchResult.Item(index, task.getId(), BatchOutcome.OVERLAP, exception.getMessage());
+        } catch (NotFoundException exception) {
+            return new BatchResult.Item(index, task.getId(), BatchOutcome.NOT_FOUND, exception.getMessage());
+        } catch (IllegalArgumentException exception) {
+            return new BatchResult.Item(index, task.getId(), BatchOutcome.INVALID, exception.getMessage());
+        }
+    }
+
+    @Override
+    public void removeTask(Integer id) {
+        historyManager.removeAll(deleteTask(requireRow(id)));
+    }
+
+    // Удаление задачи (эпика - вместе с подзадачами) без истории, возвращает id удалённых задач
+    private List<Integer> deleteTask(int row) {
+        List<Integer> removedIds = new ArrayList<>();
+        if (types[row] == TypeTask.EPIC.ordinal()) {
+            for (int subRow = nextLinks[row]; subRow != NIL; ) {
+                int next = nextLinks[subRow];
+                removedIds.add(ids[subRow]);
+                deleteRow(subRow);
+                subRow = next;
+            }
+        } else if (types[row] == TypeTask.SUB.ordinal()) {
+            unlinkFromEpic(row);
+        }
+        removedIds.add(ids[row]);
+        deleteRow(row);
+        return removedIds;
+    }
+
+    @Override
+    public void clearSingleTasks() {
+        clearByType(TypeTask.REG);
+    }
+
+    @Override
+    public void clearEpicTasks() {
+        // Подзадачи без эпиков не существуют и удаляются вместе с ними
+        clearByType(TypeTask.EPIC);
+        clearByType(TypeTask.SUB);
+    }
+
+    @Override
+    public void clearSubTasks() {
+        for (int row = 0; row < rowCount; row++) {
+            if (types[row] == TypeTask.EPIC.ordinal()) {
+                nextLinks[row] = NIL;
+                prevLinks[row] = NIL;
+            }
+        }
+        clearByType(TypeTask.SUB);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return getPrioritizedTasks(null, null);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        List<Task> tasks = new ArrayList<>();
+        iteratePrioritized(from, to).forEachRemaining(tasks::add);
+        return tasks;
+    }
+
+    // Ленивый обход дерева приоритетов: задачи собираются по одной, изменение доски во время обхода - ошибка
+    @Override
+    public Iterator<Task> iteratePrioritized(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец интервала раньше начала: " + from + " - " + to);
+        }
+        return new RangeIterator(from == null ? Long.MIN_VALUE : DateTimeFormat.ceilEpochMinute(from),
+                                 to == null ? Long.MAX_VALUE : DateTimeFormat.ceilEpochMinute(to));
+    }
+
+    // Число разных названий и описаний в пуле строк
+    public int getPooledStringCount() {
+        return strings.size();
+    }
+
+    // Просмотр списка записывает задачи в историю одной операцией
+    private List<Task> view(List<Task> tasks) {
+        historyManager.addAll(tasks);
+        return tasks;
+    }
+
+    // Задачи типа в порядке id, то есть в порядке создания: строки типа сортируются парами (id, строка) в long
+    private List<Task> listTasks(TypeTask typeTask) {
+        long[] rows = new long[typeCounts[typeTask.ordinal()]];
+        int count = 0;
+        for (int row = 0; row < rowCount && count < rows.length; row++) {
+            if (types[row] == typeTask.ordinal()) {
+                rows[count++] = (long) ids[row] << 32 | row;
+            }
+        }
+        Arrays.sort(rows);
+        List<Task> tasks = new ArrayList<>(rows.length);
+        for (long idAndRow : rows) {
+            tasks.add(toTask((int) idAndRow));
+        }
+        return tasks;
+    }
+
+    // Удаление всех задач типа одним проходом по строкам, история очищается одной операцией
+    private void clearByType(TypeTask typeTask) {
+        if (typeCounts[typeTask.ordinal()] == 0) return;
+        List<Integer> removedIds = new ArrayList<>(typeCounts[typeTask.ordinal()]);
+        for (int row = 0; row < rowCount; row++) {
+            if (types[row] == typeTask.ordinal()) {
+                removedIds.add(ids[row]);
+                deleteRow(row);
+            }
+        }
+        historyManager.removeAll(removedIds);
+    }
+
+    private void insertRow(Task task, int start, int duration, int epicRow) {
+        int row = allocateRow();
+        int id = task.getId();
+        ids[row] = id;
+        types[row] = (byte) task.getTypeTask().ordinal();
+        statuses[row] = (byte) task.getStatusTask().ordinal();
+        starts[row] = start;
+        durations[row] = duration;
+        names[row] = strings.acquire(task.getName());
+        descriptions[row] = strings.acquire(task.getDescription());
+        nextLinks[row] = NIL;
+        prevLinks[row] = NIL;
+        epicIds[row] = 0;
+        if (epicRow != NIL) linkToEpic(row, epicRow);
+        rowById.put(id, row);
+        typeCounts[types[row]]++;
+        if (start != UNSCHEDULED && task.getTypeTask() != TypeTask.EPIC) addPrioritized(row);
+    }
+
+    // Строка убирается из дерева приоритетов, пула строк и индекса по id и становится свободной
+    private void deleteRow(int row) {
+        if (starts[row] != UNSCHEDULED && types[row] != TypeTask.EPIC.ordinal()) removePrioritized(row);
+        strings.release(names[row]);
+        strings.release(descriptions[row]);
+        rowById.remove(ids[row]);
+        typeCounts[types[row]]--;
+        types[row] = FREE;
+        nextLinks[row] = freeRow;
+        freeRow = row;
+    }
+
+    private int allocateRow() {
+        if (freeRow != NIL) {
+            int row = freeRow;
+            freeRow = nextLinks[row];
+            return row;
+        }
+        if (rowCount == ids.length) {
+            grow(ids.length * 2);
+        }
+        return rowCount++;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        nextLinks = Arrays.copyOf(nextLinks, capacity);
+        prevLinks = Arrays.copyOf(prevLinks, capacity);
+        lefts = Arrays.copyOf(lefts, capacity);
+        rights = Arrays.copyOf(rights, capacity);
+        maxEnds = Arrays.copyOf(maxEnds, capacity);
+    }
+
+    private void setText(int row, Task task) {
+        int name = strings.acquire(task.getName());
+        int description = strings.acquire(task.getDescription());
+        strings.release(names[row]);
+        strings.release(descriptions[row]);
+        names[row] = name;
+        descriptions[row] = description;
+    }
+
+    // Подзадача добавляется в конец списка эпика
+    private void linkToEpic(int row, int epicRow) {
+        epicIds[row] = ids[epicRow];
+        int last = prevLinks[epicRow];
+        prevLinks[row] = last;
+        nextLinks[row] = NIL;
+        if (last == NIL) {
+            nextLinks[epicRow] = row;
+        } else {
+            nextLinks[last] = row;
+        }
+        prevLinks[epicRow] = row;
+    }
+
+    private void unlinkFromEpic(int row) {
+        int epicRow = rowOf(epicIds[row]);
+        if (epicRow == NIL) return;
+        int prev = prevLinks[row];
+        int next = nextLinks[row];
+        if (prev == NIL) {
+            nextLinks[epicRow] = next;
+        } else {
+            nextLinks[prev] = next;
+        }
+        if (next == NIL) {
+            prevLinks[epicRow] = prev;
+        } else {
+            prevLinks[next] = prev;
+        }
+    }
+
+    private int rowOf(int id) {
+        Integer row = rowById.get(id);
+        return row == null ? NIL : row;
+    }
+
+    private int requireRow(int id) {
+        int row = rowOf(id);
+        if (row == NIL) throw new NotFoundException("Задача не найдена в списке. id: " + id);
+        return row;
+    }
+
+    private int requireEpicRow(int epicId) {
+        int row = rowOf(epicId);
+        if (row == NIL || types[row] != TypeTask.EPIC.ordinal()) {
+            throw new NotFoundException("Эпик подзадачи не найден. id: " + epicId);
+        }
+        return row;
+    }
+
+    // Объект задачи по строке: новый при каждом вызове
+    private Task toTask(int row) {
+        String name = strings.get(names[row]);
+        String description = strings.get(descriptions[row]);
+        StatusTask status = STATUSES[statuses[row]];
+        Task task;
+        switch (TYPES[types[row]]) {
+            case REG:
+                task = new SingleTask(name, description, status, toTime(starts[row]), durations[row]);
+                break;
+            case SUB:
+                task = new SubTask(name, description, toTime(starts[row]), durations[row], epicIds[row], status);
+                break;
+            default:
+                EpicTask epicTask = new EpicTask(name, description);
+                List<SubTask> subTasks = new ArrayList<>();
+                for (int subRow = nextLinks[row]; subRow != NIL; subRow = nextLinks[subRow]) {
+                    subTasks.add((SubTask) toTask(subRow));
+                }
+                epicTask.addSubTasks(subTasks);
+                task = epicTask;
+                break;
+        }
+        task.setId(ids[row]);
+        return task;
+    }
+
+    private static int startOf(Task task) {
+        if (!task.isScheduled()) return UNSCHEDULED;
+        long start = task.getStartMinute();
+        if (start <= UNSCHEDULED || start + task.getDurationMinutes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Время задачи вне допустимого диапазона. id: " + task.getId());
+        }
+        return (int) start;
+    }
+
+    private static int durationOf(Task task) {
+        long duration = task.getDurationMinutes();
+        if (duration < Integer.MIN_VALUE || duration > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Длительность задачи вне допустимого диапазона. id: " + task.getId());
+        }
+        return (int) duration;
+    }
+
+    private static LocalDateTime toTime(int minutes) {
+        return minutes == UNSCHEDULED ? DateTimeFormat.NO_TIME : DateTimeFormat.fromEpochMinute(minutes);
+    }
+
+    private static int end(int start, int duration) {
+        return start == UNSCHEDULED ? UNSCHEDULED : Math.addExact(start, duration);
+    }
+
+    // Есть ли задача, пересекающая интервал [start, end). Касание границами и совпадающий интервал - не пересечение
+    private boolean overlaps(int start, int end) {
+        return start != UNSCHEDULED && overlaps(root, start, end);
+    }
+
+    private boolean overlaps(int node, int start, int end) {
+        if (node == NIL || maxEnds[node] <= start) return false;
+        if (overlaps(lefts[node], start, end)) return true;
+        // У узла и всего правого поддерева начало не раньше конца интервала
+        if (starts[node] >= end) return false;
+        int nodeEnd = starts[node] + durations[node];
+        boolean identical = starts[node] == start && nodeEnd == end;
+        if (nodeEnd > start && !identical) return true;
+        return overlaps(rights[node], start, end);
+    }
+
+    private void addPrioritized(int row) {
+        lefts[row] = NIL;
+        rights[row] = NIL;
+        maxEnds[row] = starts[row] + durations[row];
+        root = insert(root, row);
+        modCount++;
+    }
+
+    private void removePrioritized(int row) {
+        root = delete(root, row);
+        modCount++;
+    }
+
+    private int insert(int node, int row) {
+        if (node == NIL) return row;
+        if (compare(row, node) < 0) {
+            lefts[node] = insert(lefts[node], row);
+            if (priority(ids[lefts[node]]) > priority(ids[node])) node = rotateRight(node);
+        } else {
+            rights[node] = insert(rights[node], row);
+            if (priority(ids[rights[node]]) > priority(ids[node])) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private int delete(int node, int row) {
+        if (node == NIL) return NIL;
+        int comparison = compare(row, node);
+        if (comparison < 0) {
+            lefts[node] = delete(lefts[node], row);
+        } else if (comparison > 0) {
+            rights[node] = delete(rights[node], row);
+        } else {
+            return merge(lefts[node], rights[node]);
+        }
+        update(node);
+        return node;
+    }
+
+    private int merge(int left, int right) {
+        if (left == NIL) return right;
+        if (right == NIL) return left;
+        if (priority(ids[left]) > priority(ids[right])) {
+            rights[left] = merge(rights[left], right);
+            update(left);
+            return left;
+        }
+        lefts[right] = merge(left, lefts[right]);
+        update(right);
+        return right;
+    }
+
+    private int rotateRight(int node) {
+        int left = lefts[node];
+        lefts[node] = rights[left];
+        rights[left] = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private int rotateLeft(int node) {
+        int right = rights[node];
+        rights[node] = lefts[right];
+        lefts[right] = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private void update(int node) {
+        int maxEnd = starts[node] + durations[node];
+        if (lefts[node] != NIL && maxEnds[lefts[node]] > maxEnd) maxEnd = maxEnds[lefts[node]];
+        if (rights[node] != NIL && maxEnds[rights[node]] > maxEnd) maxEnd = maxEnds[rights[node]];
+        maxEnds[node] = maxEnd;
+    }
+
+    // Порядок по времени начала, при равном времени - по id
+    private int compare(int row, int node) {
+        int comparison = Integer.compare(starts[row], starts[node]);
+        return comparison != 0 ? comparison : Integer.compare(ids[row], ids[node]);
+    }
+
+    // Приоритет узла из id (как в PersistentTaskTree): не нужен ни столбец, ни генератор случайных чисел
+    private static int priority(int id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (mixed ^ (mixed >>> 31));
+    }
+
+    // Обход дерева по возрастанию начала со стеком строк, поддеревья вне [from, to) пропускаются
+    private class RangeIterator implements Iterator<Task> {
+        private int[] stack = new int[64];
+        private int depth;
+        private final long to;
+        private final int expectedModCount = modCount;
+
+        RangeIterator(long from, long to) {
+            this.to = to;
+            int node = root;
+            while (node != NIL) {
+                if (starts[node] < from) {
+                    node = rights[node];
+                } else {
+                    push(node);
+                    node = lefts[node];
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0 && starts[stack[depth - 1]] < to;
+        }
+
+        @Override
+        public Task next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (!hasNext()) throw new NoSuchElementException();
+            int node = stack[--depth];
+            for (int child = rights[node]; child != NIL; child = lefts[child]) {
+                push(child);
+            }
+            return toTask(node);
+        }
+
+        private void push(int node) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth++] = node;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package service;
+
+import model.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/*
+ Потокобезопасный менеджер задач для многопоточного HTTP-сервера. Доска (InMemoryTaskManager) защищена StampedLock:
+ поиск задачи по id сначала выполняется оптимистично без блокировки и повторяется под блокировкой чтения,
+ только если за это время прошла запись; списки и выборки по времени читаются под общей блокировкой чтения.
+ Изменения выполняются под блокировкой записи: проверка пересечений, индекс приоритетов и итоги эпиков
+ должны меняться согласованно.
+ История просмотров защищена своей блокировкой и пишется под блокировкой чтения доски: просмотры разных
+ потоков не ждут друг друга на доске, а удалённая задача не может вернуться в историю.
+ Чтения возвращают копии задач, снятые под блокировкой: объекты доски за её пределы не выходят.
+ Порядок блокировок всегда доска -> история.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private final InMemoryTaskManager board;
+    private final StampedLock lock = new StampedLock();
+
+    public ConcurrentTaskManager() {
+        this.board = new InMemoryTaskManager(new SynchronizedHistoryManager(Managers.getDefaultHistory()));
+    }
+
+    @Override
+    public void clearSingleTasks() {
+        write(board::clearSingleTasks);
+    }
+
+    @Override
+    public void clearEpicTasks() {
+        write(board::clearEpicTasks);
+    }
+
+    @Override
+    public void clearSubTasks() {
+        write(board::clearSubTasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return read(() -> board.getTaskById(id).copy());
+    }
+
+    @Override
+    public List<Task> getSingleTasks() {
+        return read(() -> copies(board.getSingleTasks()));
+    }
+
+    @Override
+    public List<Task> getSubTasks() {
+        return read(() -> copies(board.getSubTasks()));
+    }
+
+    @Override
+    public List<Task> getEpicTasks() {
+        return read(() -> copies(board.getEpicTasks()));
+    }
+
+    @Override
+    public Task findTask(int id) {
+        return readOptimistic(() -> board.findTask(id).copy());
+    }
+
+    @Override
+    public List<Task> listSingleTasks() {
+        return read(() -> copies(board.listSingleTasks()));
+    }
+
+    @Override
+    public List<Task> listSubTasks() {
+        return read(() -> copies(board.listSubTasks()));
+    }
+
+    @Override
+    public List<Task> listEpicTasks() {
+        return read(() -> copies(board.listEpicTasks()));
+    }
+
+    @Override
+    public void markViewed(int id) {
+        read(() -> {
+            board.markViewed(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeTask(Integer id) {
+        write(() -> board.removeTask(id));
+    }
+
+    @Override
+    public void createTask(Task task) {
+        write(() -> board.createTask(task));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> board.updateTask(task));
+    }
+
+    @Override
+    public BatchResult createTasks(Collection<Task> tasks) {
+        return write(() -> board.createTasks(tasks));
+    }
+
+    @Override
+    public BatchResult updateTasks(Collection<Task> tasks) {
+        return write(() -> board.updateTasks(tasks));
+    }
+
+    @Override
+    public void commit(TaskTransaction transaction) {
+        write(() -> board.commit(transaction));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        // История защищена своей блокировкой, задачи истории копируются под блокировкой чтения доски
+        return read(() -> copies(board.getHistory()));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(() -> copies(board.getPrioritizedTasks()));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return read(() -> copies(board.getPrioritizedTasks(from, to)));
+    }
+
+    // Ленивый обход индекса не может пережить блокировку: окно копируется под блокировкой чтения
+    @Override
+    public Iterator<Task> iteratePrioritized(LocalDateTime from, LocalDateTime to) {
+        return getPrioritizedTasks(from, to).iterator();
+    }
+
+    /*
+     Оптимистичное чтение для поиска по id: поиск в IntObjectMap и копирование задачи во время записи могут
+     вернуть что угодно или упасть, поэтому результат и исключение принимаются только после проверки,
+     что записи не было
+     */
+    private <T> T readOptimistic(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) return result;
+            } catch (RuntimeException exception) {
+                if (lock.validate(stamp)) throw exception;
+            }
+        }
+        return read(reader);
+    }
+
+    // Копии задач снимаются под блокировкой: сериализация живых объектов доски после её снятия
+    // могла бы застать эпик посреди изменения подзадач
+    private static List<Task> copies(List<Task> tasks) {
+        List<Task> copies = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            copies.add(task.copy());
+        }
+        return copies;
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> writer) {
+        long stamp = lock.writeLock();
+        try {
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(Runnable writer) {
+        long stamp = lock.writeLock();
+        try {
+            writer.run();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package service;
+
+// Политика сброса журнала на диск
+public final class DurabilityPolicy {
+    public enum Mode {
+        SYNC,       // Запись и fsync в потоке вызова после каждого изменения
+        INTERVAL,   // Фоновая запись накопленных изменений раз в заданное число миллисекунд
+        OPERATIONS  // Фоновая запись, как только накопится заданное число изменений или истечёт предельная задержка
+    }
+
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 1_000;
+
+    private final Mode mode;
+    private final long value;
+    private final long maxDelayMillis; // Предельная задержка записи в режиме OPERATIONS
+
+    private DurabilityPolicy(Mode mode, long value, long maxDelayMillis) {
+        this.mode = mode;
+        this.value = value;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public static DurabilityPolicy syncEachOperation() {
+        return new DurabilityPolicy(Mode.SYNC, 1, 0);
+    }
+
+    public static DurabilityPolicy everyMillis(long millis) {
+        if (millis <= 0) throw new IllegalArgumentException("Интервал сброса должен быть положительным");
+        return new DurabilityPolicy(Mode.INTERVAL, millis, millis);
+    }
+
+    public static DurabilityPolicy everyOperations(int operations) {
+        return everyOperations(operations, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    // Неполная группа записывается, когда самое старое изменение в ней ждёт дольше maxDelayMillis
+    public static DurabilityPolicy everyOperations(int operations, long maxDelayMillis) {
+        if (operations <= 0) throw new IllegalArgumentException("Число изменений должно быть положительным");
+        if (maxDelayMillis <= 0) throw new IllegalArgumentException("Предельная задержка должна быть положительной");
+        return new DurabilityPolicy(Mode.OPERATIONS, operations, maxDelayMillis);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.OPERATIONS ? mode + "(" + value + ", " + maxDelayMillis + " ms)" : mode + "(" + value + ")";
+    }
+}
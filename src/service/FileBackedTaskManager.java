@@ -2,23 +2,26 @@ package service;
 
 import model.*;
 
-import model.DateTimeFormat;
-
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
-    private static final String TITLE = "id,type,name,status,description,startTime,duration,epic";
-    private final Path path;
+    protected final Path path;
+    protected final StorageFormat storageFormat;
+    private LoadStatistics loadStatistics = new LoadStatistics(0, 0, 0);
 
     public FileBackedTaskManager(Path path) {
+        this(path, StorageFormat.CSV);
+    }
+
+    public FileBackedTaskManager(Path path, StorageFormat storageFormat) {
         super();
         this.path = path;
+        this.storageFormat = storageFormat;
         if (Files.notExists(path)) {
             createTasksStorage(path);
         }
@@ -26,7 +29,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
     private void createTasksStorage(Path path) {
         try {
-            if (Files.notExists(path.getParent())) {
+            if (path.getParent() != null && Files.notExists(path.getParent())) {
                 Files.createDirectories(path.getParent());
             }
             Files.createFile(path);
@@ -35,116 +38,198 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    public StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
     public void save() {
-        try (Writer fileWriter = new FileWriter(path.toString(), StandardCharsets.UTF_8)) {
-            fileWriter.write(TITLE + "\n");
-            for (Task task : getSingleTasks()) {
-                fileWriter.write(task.toString() + "\n");
-            }
-            for (Task task : getEpicTasks()) {
-                fileWriter.write(task.toString() + "\n");
-            }
-            for (Task task : getSubTasks()) {
-                fileWriter.write(task.toString() + "\n");
+        // Сохранение не должно попадать в историю просмотров
+        List<Task> tasks = new ArrayList<>();
+        tasks.addAll(peekTasks(TypeTask.REG));
+        tasks.addAll(peekTasks(TypeTask.EPIC));
+        tasks.addAll(peekTasks(TypeTask.SUB));
+        try {
+            if (storageFormat == StorageFormat.BINARY) {
+                BinaryTaskSnapshot.write(path, tasks);
+            } else {
+                TaskCsvWriter.write(path, tasks);
             }
+            saveIndexes();
         } catch (IOException exception) {
             throw new ManagerSaveException("Ошибка авто сохранения данных: " + exception.getMessage());
         }
     }
 
     public static FileBackedTaskManager loadFromFile(Path path) {
-        FileBackedTaskManager taskManager = new FileBackedTaskManager(path);
-        int countID = -1;
+        return loadFromFile(path, StorageFormat.CSV);
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path path, StorageFormat storageFormat) {
+        FileBackedTaskManager taskManager = new FileBackedTaskManager(path, storageFormat);
+        taskManager.readSnapshot();
+        return taskManager;
+    }
+
+    protected void readSnapshot() {
+        long startNanos = System.nanoTime();
         try {
-            // Считывание файла
-            String content = Files.readString(path);
-
-            // Проверка на наличие данных
-            if (content.length() < TITLE.length()) return taskManager;
-
-            // Получение строк с данными
-            String[] lines = content.substring(TITLE.length() + 1).split("\n");
-            if (!lines[0].isEmpty()) {
-                // Обработка данных построчно
-                for (String line : lines) {
-                    Task task = fromString(line);
-                    if (countID < task.getId()) {
-                        countID = task.getId();
-                    }
-                    taskManager.updateTask(task);
+            // Перед разбором снимок проверяется по контрольным суммам, повреждённый заменяется предыдущим поколением
+            Path source = path;
+            Path previous = AtomicFiles.previousGeneration(path);
+            boolean crashedBeforeRename = Files.size(path) == 0 && Files.exists(previous);
+            if (crashedBeforeRename || !isValidSnapshot(path)) {
+                if (Files.notExists(previous) || !isValidSnapshot(previous)) {
+                    throw new ManagerSaveException("Файл повреждён, предыдущее поколение недоступно: " + path);
                 }
+                source = previous;
             }
-            taskManager.setNextFreeId(countID);
-            return taskManager;
+            long validationNanos = System.nanoTime() - startNanos;
+            // Индексы записаны вместе с основным снимком и к предыдущему поколению не относятся
+            TaskIndexFile indexes = source == path ? TaskIndexFile.read(TaskIndexFile.indexPath(path)) : null;
+            int count;
+            if (storageFormat == StorageFormat.BINARY) {
+                count = restoreTasks(BinaryTaskSnapshot.read(source), indexes == null);
+            } else {
+                // Файл читается потоково: задачи восстанавливаются по мере разбора строк
+                try (TaskCsvReader reader = new TaskCsvReader(source)) {
+                    count = restoreTasks(reader, indexes == null);
+                }
+            }
+            restoreIndexes(indexes);
+            loadStatistics = new LoadStatistics(count,
+                                                Files.size(source),
+                                                System.nanoTime() - startNanos,
+                                                validationNanos,
+                                                source != path);
         } catch (IOException exception) {
-            throw new RuntimeException(exception);
+            throw new ManagerSaveException("Ошибка чтения файла: " + exception.getMessage());
+        }
+    }
+
+    private boolean isValidSnapshot(Path snapshot) throws IOException {
+        if (storageFormat == StorageFormat.BINARY) {
+            return BinaryTaskSnapshot.validate(snapshot);
         }
+        return SnapshotChecksums.validateCsv(snapshot);
+    }
+
+    // Запись истории просмотров и индекса приоритетов рядом со снимком
+    protected void saveIndexes() throws IOException {
+        TaskIndexFile.write(TaskIndexFile.indexPath(path), getHistory(), getPrioritizedTasks());
     }
 
-    private static Task fromString(String value) {
-        String[] fieldsOfTask = value.split(",");
-        int id = Integer.parseInt(fieldsOfTask[0]);
-        TypeTask typeTask = TypeTask.valueOf(fieldsOfTask[1]);
-        String name = fieldsOfTask[2];
-        StatusTask statusTask = StatusTask.valueOf(fieldsOfTask[3]);
-        String description = fieldsOfTask[4];
-        LocalDateTime startTime;
-        int duration;
-        switch (typeTask) {
-            case REG:
-                startTime = LocalDateTime.parse(fieldsOfTask[5], DateTimeFormat.DATE_TIME_FORMAT);
-                duration = Integer.parseInt(fieldsOfTask[6]);
-                SingleTask singleTask = new SingleTask(name, description, statusTask, startTime, duration);
-                singleTask.setId(id);
-                return singleTask;
-            case SUB:
-                Integer epicId = Integer.parseInt(fieldsOfTask[7]);
-                startTime = LocalDateTime.parse(fieldsOfTask[5], DateTimeFormat.DATE_TIME_FORMAT);
-                duration = Integer.parseInt(fieldsOfTask[6]);
-                SubTask subTask = new SubTask(name, description, startTime, duration, epicId, statusTask);
-                subTask.setId(id);
-                return subTask;
-            default:
-                EpicTask epicTask = new EpicTask(name, description);
-                epicTask.setStatus(statusTask);
-                epicTask.setId(id);
-                return epicTask;
+    // Задачи уже восстановлены без индекса приоритетов, если indexes != null.
+    // false - файла индексов нет или порядок приоритетов в нём устарел и построен заново
+    protected boolean restoreIndexes(TaskIndexFile indexes) {
+        if (indexes == null) return false;
+        boolean current = restorePrioritized(indexes.getPrioritized());
+        if (!current) {
+            rebuildPrioritized();
         }
+        restoreHistory(indexes.getHistory());
+        return current;
+    }
+
+    public LoadStatistics getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    protected void setLoadStatistics(LoadStatistics loadStatistics) {
+        this.loadStatistics = loadStatistics;
+    }
+
+    protected static Task fromString(String value) {
+        return TaskCsvReader.parseTask(value);
+    }
+
+    // Точки сохранения изменений. По умолчанию любое изменение приводит к полной перезаписи файла
+    protected void onTaskSaved(Task task) {
+        save();
+    }
+
+    // Пакетное изменение сохраняется один раз на всю пачку
+    protected void onTasksSaved(List<Task> tasks) {
+        save();
+    }
+
+    protected void onTaskRemoved(int id) {
+        save();
+    }
+
+    // Транзакция сохраняется один раз и только после успешного применения
+    protected void onTransactionCommitted(TaskTransaction transaction) {
+        save();
+    }
+
+    protected void onTasksCleared(TypeTask typeTask) {
+        save();
     }
 
     @Override
     public void removeTask(Integer id) {
         super.removeTask(id);
-        save();
+        onTaskRemoved(id);
     }
 
     @Override
     public void createTask(Task task) {
         super.createTask(task);
-        save();
+        onTaskSaved(task);
     }
 
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        onTaskSaved(task);
+    }
+
+    @Override
+    public BatchResult createTasks(Collection<Task> tasks) {
+        BatchResult result = super.createTasks(tasks);
+        onBatchApplied(result);
+        return result;
+    }
+
+    @Override
+    public BatchResult updateTasks(Collection<Task> tasks) {
+        BatchResult result = super.updateTasks(tasks);
+        onBatchApplied(result);
+        return result;
+    }
+
+    @Override
+    public void commit(TaskTransaction transaction) {
+        super.commit(transaction);
+        if (!transaction.isEmpty()) {
+            onTransactionCommitted(transaction);
+        }
+    }
+
+    private void onBatchApplied(BatchResult result) {
+        List<Integer> ids = result.getAppliedIds();
+        if (ids.isEmpty()) return;
+        List<Task> tasks = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            tasks.add(peekTask(id));
+        }
+        onTasksSaved(tasks);
     }
 
     @Override
     public void clearSingleTasks() {
         super.clearSingleTasks();
-        save();
+        onTasksCleared(TypeTask.REG);
     }
 
     @Override
     public void clearEpicTasks() {
         super.clearEpicTasks();
-        save();
+        onTasksCleared(TypeTask.EPIC);
     }
 
     @Override
     public void clearSubTasks() {
         super.clearSubTasks();
-        save();
+        onTasksCleared(TypeTask.SUB);
     }
 }
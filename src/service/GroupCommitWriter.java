@@ -0,0 +1,298 @@
+package service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ Отложенная запись журнала с групповой фиксацией: записи из разных запросов складываются в очередь,
+ фоновый поток записывает всё накопленное одной операцией записи и одним fsync.
+ Когда очередь заполнена, вызывающий поток ждёт освобождения места.
+ Группа, которую не удалось записать, не теряется: частично записанный хвост отрезается, группа остаётся
+ первой в очереди на повторную запись, а до успешного повтора новые изменения не принимаются - ошибку получают
+ и новые, и ожидающие вызовы. В режиме SYNC ошибку получает сам вызов, журнал после неё больше не принимает записей.
+ Фоновый поток и обработчик завершения работы JVM существуют до close: журнал нужно закрывать.
+ */
+public class GroupCommitWriter implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final FileChannel channel;
+    private final DurabilityPolicy policy;
+    private final BlockingQueue<Entry> queue;
+    private final Thread flusher;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+    private volatile long writingSinceNanos; // Время постановки в очередь самой старой записи, которая пишется сейчас
+    private volatile int writingRecords;
+    private volatile IOException failure;
+    private final List<Entry> failedBatch = new ArrayList<>(); // Группа, ожидающая повторной записи
+    private volatile int failedRecords;
+    private volatile long failedSinceNanos;
+    private boolean damaged; // Хвост журнала после ошибки не восстановлен, повторять запись нельзя
+    private long flushes;
+    private long flushedRecords;
+
+    public GroupCommitWriter(Path path, DurabilityPolicy policy) {
+        this(path, policy, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public GroupCommitWriter(Path path, DurabilityPolicy policy, int queueCapacity) {
+        this(open(path), policy, queueCapacity);
+    }
+
+    GroupCommitWriter(FileChannel channel, DurabilityPolicy policy, int queueCapacity) {
+        this.channel = channel;
+        this.policy = policy;
+        if (policy.getMode() == DurabilityPolicy.Mode.SYNC) {
+            this.queue = null;
+            this.flusher = null;
+            this.shutdownHook = null;
+            return;
+        }
+        // Очередь должна вмещать хотя бы одну полную группу, иначе запись по числу изменений не наступит
+        int capacity = (int) Math.max(queueCapacity, policy.getValue());
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flusher = new Thread(this::runFlusher, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        this.shutdownHook = new Thread(this::close, "journal-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    private static FileChannel open(Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка открытия журнала: " + exception.getMessage());
+        }
+    }
+
+    public DurabilityPolicy getPolicy() {
+        return policy;
+    }
+
+    public void append(String record) {
+        if (closed) throw new ManagerSaveException("Журнал закрыт");
+        checkState();
+        if (queue == null) {
+            synchronized (this) {
+                // Ошибка могла случиться, пока вызов ждал своей очереди на запись
+                checkState();
+                write(List.of(record));
+            }
+            return;
+        }
+        enqueue(List.of(record));
+    }
+
+    /*
+     Несколько записей одного изменения: в режиме SYNC пишутся одной операцией записи и одним fsync,
+     в отложенных режимах ставятся в очередь одним элементом. Записи одного вызова всегда идут в журнале подряд,
+     записи параллельных вызовов между ними не попадают
+     */
+    public void appendAll(List<String> records) {
+        if (closed) throw new ManagerSaveException("Журнал закрыт");
+        checkState();
+        if (records.isEmpty()) return;
+        if (queue == null) {
+            synchronized (this) {
+                checkState();
+                write(records);
+            }
+            return;
+        }
+        enqueue(List.copyOf(records));
+    }
+
+    private void enqueue(List<String> records) {
+        Entry entry = new Entry(records, System.nanoTime());
+        try {
+            // Ожидание места в очереди прерывается ошибкой записи: при ней очередь может не освободиться
+            while (!queue.offer(entry, IDLE_PARK_NANOS, TimeUnit.NANOSECONDS)) {
+                checkState();
+                if (closed) throw new ManagerSaveException("Журнал закрыт");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Запись в журнал прервана");
+        }
+        if (policy.getMode() == DurabilityPolicy.Mode.OPERATIONS && queue.size() >= policy.getValue()) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    // Запись всех накопленных изменений в потоке вызова
+    public synchronized void flush() {
+        if (queue != null && !damaged) {
+            Entry head = failedBatch.isEmpty() ? queue.peek() : failedBatch.get(0);
+            if (head == null) return;
+            writingSinceNanos = head.enqueuedNanos;
+            // Записи учитываются как ожидающие до извлечения из очереди, чтобы не пропасть из счётчика
+            writingRecords = failedBatch.size() + queue.size();
+            List<Entry> batch = new ArrayList<>(failedBatch);
+            failedBatch.clear();
+            failedRecords = 0;
+            failedSinceNanos = 0;
+            queue.drainTo(batch);
+            writingRecords = batch.size();
+            List<String> records = new ArrayList<>(batch.size());
+            for (Entry entry : batch) {
+                records.addAll(entry.records);
+            }
+            try {
+                write(records);
+                failure = null;
+            } catch (ManagerSaveException exception) {
+                failedBatch.addAll(batch);
+                failedRecords = batch.size();
+                failedSinceNanos = head.enqueuedNanos;
+                throw exception;
+            } finally {
+                writingRecords = 0;
+                writingSinceNanos = 0;
+            }
+        }
+        checkState();
+    }
+
+    // Очистка журнала после контрольной точки. Вызывается после flush: записи, поставленные в очередь позже,
+    // в снимок не попали и будут записаны уже в очищенный журнал
+    public synchronized void truncate() {
+        try {
+            channel.truncate(0);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка очистки журнала: " + exception.getMessage());
+        }
+    }
+
+    // Время ожидания самой старой ещё не записанной на диск записи
+    public long getFlushLagMillis() {
+        if (queue == null) return 0;
+        long oldest = writingSinceNanos;
+        if (oldest == 0) oldest = failedSinceNanos;
+        if (oldest == 0) {
+            Entry head = queue.peek();
+            if (head == null) return 0;
+            oldest = head.enqueuedNanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+    }
+
+    // Число изменений (вызовов append и appendAll), ещё не записанных на диск, включая записываемые сейчас
+    public int getPendingRecords() {
+        return queue == null ? 0 : failedRecords + queue.size() + writingRecords;
+    }
+
+    public synchronized long getFlushes() {
+        return flushes;
+    }
+
+    public synchronized long getFlushedRecords() {
+        return flushedRecords;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (flusher != null) {
+            // Обработчик снимается первым: закрытый журнал не должен удерживаться JVM до её завершения
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // Закрытие вызвано самим обработчиком завершения работы
+            }
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            try {
+                flush();
+            } finally {
+                try {
+                    channel.close();
+                } catch (IOException exception) {
+                    throw new ManagerSaveException("Ошибка закрытия журнала: " + exception.getMessage());
+                }
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            if (policy.getMode() == DurabilityPolicy.Mode.INTERVAL) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(policy.getValue()));
+            } else {
+                // Неполная группа ждёт не дольше предельной задержки политики
+                LockSupport.parkNanos(Math.min(IDLE_PARK_NANOS, TimeUnit.MILLISECONDS.toNanos(policy.getMaxDelayMillis())));
+                if (queue.size() < policy.getValue() && getFlushLagMillis() < policy.getMaxDelayMillis()) continue;
+            }
+            try {
+                flush();
+            } catch (ManagerSaveException exception) {
+                // Группа осталась в failedBatch и будет записана повторно на следующем шаге,
+                // до этого append и appendAll получают ошибку
+            }
+        }
+    }
+
+    private void write(List<String> records) {
+        StringBuilder batch = new StringBuilder();
+        for (String record : records) {
+            batch.append(record).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        long committedSize = -1;
+        try {
+            committedSize = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            flushes++;
+            flushedRecords += records.size();
+        } catch (IOException exception) {
+            failure = exception;
+            // Частично записанная группа отрезается: иначе повтор задвоит записи, а оборванная строка
+            // остановит воспроизведение журнала на ней
+            if (committedSize >= 0) {
+                try {
+                    channel.truncate(committedSize);
+                } catch (IOException truncateException) {
+                    damaged = true;
+                }
+            }
+            throw new ManagerSaveException("Ошибка записи в журнал: " + exception.getMessage());
+        }
+    }
+
+    private void checkState() {
+        if (failure != null) {
+            throw new ManagerSaveException("Ошибка записи в журнал: " + failure.getMessage());
+        }
+    }
+
+    private static class Entry {
+        private final List<String> records;
+        private final long enqueuedNanos;
+
+        Entry(List<String> records, long enqueuedNanos) {
+            this.records = records;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package service;
 
+import java.util.Collection;
 import java.util.List;
 
 import model.*;
@@ -9,5 +10,11 @@ public interface HistoryManager {
 
     void remove(int id);
 
+    // Удаление из истории пачки задач (например, при очистке целого типа)
+    void removeAll(Collection<Integer> ids);
+
+    // Добавление задач в историю в заданном порядке (например, при восстановлении из файла)
+    void addAll(List<Task> tasks);
+
     List<Task> getHistory();
 }
\ No newline at end of file
@@ -3,14 +3,15 @@ package service;
 import model.*;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 public class InMemoryHistoryManager implements HistoryManager {
     private final CustomDoublyLinkedList<Task> historyTasks; // История изменений
-    private final Map<Integer, Node<Task>> linkedHashList;
+    private final IntObjectMap<Node<Task>> linkedHashList; // Узел истории по id задачи
 
     public InMemoryHistoryManager() {
         this.historyTasks = new CustomDoublyLinkedList<>();
-        this.linkedHashList = new HashMap<>();
+        this.linkedHashList = new IntObjectMap<>();
     }
 
     @Override
@@ -21,20 +22,53 @@ public class InMemoryHistoryManager implements HistoryManager {
         linkedHashList.remove(id);
     }
 
+    @Override
+    public void removeAll(Collection<Integer> ids) {
+        if (ids.size() >= linkedHashList.size() && coversHistory(ids)) {
+            // Удаляется вся история - узлы не отцепляются по одному
+            historyTasks.clear();
+            linkedHashList.clear();
+            return;
+        }
+        for (Integer id : ids) {
+            remove(id);
+        }
+    }
+
+    // Все ли задачи истории есть среди ids: проверка по множеству, чтобы не искать в списке для каждого узла
+    private boolean coversHistory(Collection<Integer> ids) {
+        Set<Integer> idSet = ids instanceof Set ? (Set<Integer>) ids : new HashSet<>(ids);
+        return historyTasks.allMatch(task -> idSet.contains(task.getId()));
+    }
+
     @Override
     public void add(Task task) {
         if (task == null) {
             return;
         }
 
-        if (linkedHashList.containsKey(task.getId())) {
-            historyTasks.removeNode(linkedHashList.get(task.getId()));
+        Node<Task> oldNode = linkedHashList.get(task.getId());
+        if (oldNode != null) {
+            historyTasks.removeNode(oldNode);
         }
         historyTasks.linkLast(task);
         linkedHashList.put(task.getId(), historyTasks.tail);
 
     }
 
+    @Override
+    public void addAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            if (task == null) continue;
+            if (linkedHashList.containsKey(task.getId())) {
+                add(task);
+                continue;
+            }
+            historyTasks.linkLast(task);
+            linkedHashList.put(task.getId(), historyTasks.tail);
+        }
+    }
+
     @Override
     public List<Task> getHistory() {
         return List.copyOf(historyTasks.getList());
@@ -75,6 +109,11 @@ public class InMemoryHistoryManager implements HistoryManager {
             tail = newNode;
         }
 
+        public void clear() {
+            head = null;
+            tail = null;
+        }
+
         public void removeNode(Node<T> node) {
             if (node == null || head == null) return;
             if (head == node) {
@@ -93,6 +132,13 @@ public class InMemoryHistoryManager implements HistoryManager {
             node.next = null;
         }
 
+        public boolean allMatch(Predicate<T> predicate) {
+            for (Node<T> currentNode = head; currentNode != null; currentNode = currentNode.next) {
+                if (!predicate.test(currentNode.data)) return false;
+            }
+            return true;
+        }
+
         public List<T> getList() {
             List<T> result = new ArrayList<>();
             Node<T> currentNode = head;
@@ -2,45 +2,103 @@ package service;
 
 import model.*;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.time.LocalDateTime;
 import java.util.Comparator;
-import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    private final Map<Integer, Task> taskById;  // Основной хеш список всех тасок
+    private final IntObjectMap<Task> taskById;  // Основной хеш список всех тасок, ключи id без упаковки
+    // Задачи каждого типа в порядке добавления: списки по типу без обхода всех задач
+    private final Map<TypeTask, Map<Integer, Task>> tasksByType = new EnumMap<>(TypeTask.class);
     private Integer taskIdGenerator; // Объект генерации новых ID для тасок
     private final HistoryManager historyManager;
+    private long indexVersion; // Число изменений истории и индекса приоритетов: по нему видно, устарел ли файл индексов
 
-    private final Set<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
-    private static final LocalDateTime NO_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    // Порядок по времени начала, при равном времени - по id, чтобы задачи с одним началом не сливались.
+    // Один экземпляр компаратора нужен для массового построения TreeSet из уже отсортированного набора
+    private static final Comparator<Task> PRIORITY_ORDER = Comparator.comparingLong(Task::getStartMinute)
+                                                                     .thenComparingInt(Task::getId);
+    private final TreeSet<Task> prioritizedTasks = new TreeSet<>(PRIORITY_ORDER);
+    private final TaskTimeIndex timeIndex = new TaskTimeIndex(); // Интервалы задач из prioritizedTasks для проверки пересечений
     private static final String overlapError = "Новая задача пересекается по времени с уже существующими задачами";
 
     public InMemoryTaskManager() {
-        taskById = new HashMap<>();
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        taskById = new IntObjectMap<>();
+        for (TypeTask typeTask : TypeTask.values()) {
+            tasksByType.put(typeTask, new LinkedHashMap<>());
+        }
         taskIdGenerator = 0;
-        this.historyManager = Managers.getDefaultHistory();
+        this.historyManager = historyManager;
     }
 
     @Override
     public Task getTaskById(int id) throws NotFoundException {
-        if (!taskById.containsKey(id)) throw new NotFoundException("Задача не найдена в списке. id: " + id);
-        Task task = taskById.get(id);
+        Task task = findTask(id);
         historyManager.add(task);
+        indexVersion++;
+        return task;
+    }
+
+    @Override
+    public Task findTask(int id) throws NotFoundException {
+        Task task = taskById.get(id);
+        if (task == null) {
+            task = faultIn(id);
+        }
+        if (task == null) throw new NotFoundException("Задача не найдена в списке. id: " + id);
         return task;
     }
 
+    @Override
+    public void markViewed(int id) throws NotFoundException {
+        historyManager.add(findTask(id));
+        indexVersion++;
+    }
+
+    @Override
+    public List<Task> listSingleTasks() {
+        return peekTasks(TypeTask.REG);
+    }
+
+    @Override
+    public List<Task> listSubTasks() {
+        return peekTasks(TypeTask.SUB);
+    }
+
+    @Override
+    public List<Task> listEpicTasks() {
+        return peekTasks(TypeTask.EPIC);
+    }
+
     private List<Task> getTasksByType(TypeTask typeTask) {
-        return taskById.values()
-                       .stream()
-                       .filter(task -> task.getTypeTask().equals(typeTask))
-                       .peek(historyManager::add)
-                       .collect(Collectors.toList());
+        return tasksByType.get(typeTask)
+                          .values()
+                          .stream()
+                          .peek(historyManager::add)
+                          .collect(Collectors.toList());
     }
 
     @Override
@@ -60,65 +118,112 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void removeTask(Integer id) {
-        Task task = getTaskById(id);
+        remove(findTask(id));
+    }
+
+    private void remove(Task task) {
+        historyManager.removeAll(unlink(task));
+    }
+
+    // Удаление задачи из хранилища и индекса приоритетов без истории, возвращает id удалённых задач
+    private List<Integer> unlink(Task task) {
+        indexVersion++;
+        List<Integer> removedIds = new ArrayList<>();
         switch (task.getTypeTask()) {
             case REG:
-                taskById.remove(task.getId());
-                historyManager.remove(task.getId());
+                unstoreTask(task);
                 removePrioritizedTasks(task);
                 break;
             case SUB:
                 SubTask subTask = (SubTask) task;
                 subTask.removeFromEpic((EpicTask) taskById.get(subTask.getEpicId()));
-                taskById.remove(task.getId());
-                historyManager.remove(task.getId());
+                unstoreTask(task);
+                removePrioritizedTasks(task);
                 break;
             case EPIC:
                 EpicTask epicTask = (EpicTask) task;
                 epicTask.getSubTasks().stream().forEach(subTaskTmp -> {
-                    taskById.remove(subTaskTmp.getId());
-                    historyManager.remove(subTaskTmp.getId());
+                    unstoreTask(subTaskTmp);
+                    removedIds.add(subTaskTmp.getId());
+                    removePrioritizedTasks(subTaskTmp);
                 });
-                taskById.remove(task.getId());
-                historyManager.remove(task.getId());
+                unstoreTask(task);
                 removePrioritizedTasks(task);
                 break;
         }
+        removedIds.add(task.getId());
+        return removedIds;
     }
 
+    /*
+     Очистка целого типа за один проход: задачи убираются из хранилища и истории пачкой,
+     индекс приоритетов перестраивается из оставшихся задач без поштучных удалений
+     */
     private void clearByType(TypeTask typeTask) {
-        getTasksByType(typeTask).stream().forEach(task -> removeTask(task.getId()));
+        Map<Integer, Task> tasks = tasksByType.get(typeTask);
+        if (tasks.isEmpty()) return;
+        for (Integer id : tasks.keySet()) {
+            taskById.remove(id);
+        }
+        historyManager.removeAll(tasks.keySet());
+        indexVersion++;
+        tasks.clear();
+        if (typeTask != TypeTask.EPIC) {
+            retainPrioritized(task -> task.getTypeTask() != typeTask);
+        }
     }
 
     @Override
     public void clearSingleTasks() {
-        clearByType(TypeTask.REG);
+        discardTasks(TypeTask.REG);
     }
 
     @Override
     public void clearEpicTasks() {
-        clearByType(TypeTask.EPIC);
-        clearByType(TypeTask.SUB);
+        discardTasks(TypeTask.EPIC);
     }
 
     @Override
     public void clearSubTasks() {
-        List<Task> subTasks = getSubTasks();
+        discardTasks(TypeTask.SUB);
+    }
 
-        for (Task task : subTasks) {
-            SubTask subTask = (SubTask) task;
-            subTask.removeFromEpic((EpicTask) getTaskById(subTask.getEpicId()));
+    // Очистка типа без сохранений: общая часть clear-методов и проигрывания журнала
+    protected void discardTasks(TypeTask typeTask) {
+        switch (typeTask) {
+            case REG:
+                clearByType(TypeTask.REG);
+                break;
+            case EPIC:
+                // Подзадачи без эпиков не существуют и удаляются вместе с ними
+                clearByType(TypeTask.EPIC);
+                clearByType(TypeTask.SUB);
+                break;
+            case SUB:
+                // Статус и время пересчитываются один раз для каждого эпика, у которого были подзадачи
+                for (Task task : tasksByType.get(TypeTask.EPIC).values()) {
+                    EpicTask epicTask = (EpicTask) task;
+                    if (epicTask.getSubTaskCount() > 0) {
+                        epicTask.clearSubTasks();
+                    }
+                }
+                clearByType(TypeTask.SUB);
+                break;
         }
-        clearByType(TypeTask.SUB);
     }
 
     @Override
     public void createTask(Task task) throws TaskTimeOverlapException {
+        create(task);
+    }
+
+    private void create(Task task) throws TaskTimeOverlapException {
         switch (task.getTypeTask()) {
             case SUB:
+                requireEpic((SubTask) task);
                 if (!isNoOverlap(task)) throw new TaskTimeOverlapException(overlapError);
                 task.setId(getNextFreeId());
-                taskById.put(task.getId(), task);
+                storeTask(task);
                 SubTask subTask = (SubTask) task;
                 EpicTask epicTask = (EpicTask) taskById.get(subTask.getEpicId());
                 epicTask.modifySubTask(subTask);
@@ -127,47 +232,511 @@ public class InMemoryTaskManager implements TaskManager {
             case REG:
                 if (!isNoOverlap(task)) throw new TaskTimeOverlapException(overlapError);
                 task.setId(getNextFreeId());
-                taskById.put(task.getId(), task);
+                storeTask(task);
                 addByPriority(task);
                 break;
             default:
                 task.setId(getNextFreeId());
-                taskById.put(task.getId(), task);
+                storeTask(task);
                 break;
         }
     }
 
     @Override
     public void updateTask(Task task) throws TaskTimeOverlapException {
+        update(task);
+    }
 
+    private void update(Task task) throws TaskTimeOverlapException {
+        Task storedTask = taskById.get(task.getId());
+        if (storedTask != null && storedTask.getTypeTask() != task.getTypeTask()) {
+            throw new IllegalArgumentException("Тип задачи нельзя изменить. id: " + task.getId());
+        }
         switch (task.getTypeTask()) {
             case SUB:
-                if (!isNoOverlap(task)) throw new TaskTimeOverlapException(overlapError);
-                taskById.put(task.getId(), task);
-                removePrioritizedTasks(task);
+                requireEpic((SubTask) task);
+                repositionByPriority(task);
+                storeTask(task);
                 SubTask subTask = (SubTask) task;
                 EpicTask epicTask = (EpicTask) taskById.get(subTask.getEpicId());
                 epicTask.modifySubTask(subTask);
+                break;
+            case REG:
+                repositionByPriority(task);
+                storeTask(task);
+                break;
+            default:
+                // Подзадачи остаются за эпиком и при замене его объекта
+                if (storedTask != null && storedTask != task) {
+                    EpicTask epicTaskNew = (EpicTask) task;
+                    ((EpicTask) storedTask).getSubTasks().forEach(epicTaskNew::modifySubTask);
+                }
+                storeTask(task);
+                break;
+        }
+    }
+
+    /*
+     Транзакция применяется к доске по одному изменению, для каждого применённого изменения запоминается обратное
+     действие. Если изменение не прошло, обратные действия выполняются в обратном порядке: хранилище, индекс
+     приоритетов и итоги эпиков возвращаются к состоянию до транзакции. Удаление меняет порядок задач в списках,
+     поэтому перед первым удалением он запоминается и при откате восстанавливается. Из истории удалённые задачи
+     убираются только после успешного применения всей транзакции, поэтому откату историю восстанавливать не нужно
+     */
+    @Override
+    public void commit(TaskTransaction transaction) throws TaskTimeOverlapException, NotFoundException {
+        List<Runnable> undo = new ArrayList<>();
+        List<Task> created = new ArrayList<>();
+        int lastId = taskIdGenerator;
+        List<Integer> removedIds = new ArrayList<>();
+        Map<TypeTask, List<Integer>> typeOrders = null;
+        try {
+            for (TaskTransaction.Operation operation : transaction.getOperations()) {
+                Task task = operation.getTask();
+                switch (operation.getAction()) {
+                    case CREATE:
+                        create(task);
+                        created.add(task);
+                        undo.add(() -> uncreate(task));
+                        break;
+                    case UPDATE:
+                        Task oldTask = taskById.get(task.getId());
+                        update(task);
+                        undo.add(() -> unupdate(task, oldTask));
+                        break;
+                    case REMOVE:
+                        Task removed = findTask(operation.getId());
+                        if (typeOrders == null) {
+                            typeOrders = new EnumMap<>(TypeTask.class);
+                            for (TypeTask typeTask : TypeTask.values()) {
+                                typeOrders.put(typeTask, new ArrayList<>(tasksByType.get(typeTask).keySet()));
+                            }
+                        }
+                        List<SubTask> epicSubTasks = removed.getTypeTask() == TypeTask.SUB
+                                                     ? epicOf((SubTask) removed).getSubTasks()
+                                                     : null;
+                        removedIds.addAll(unlink(removed));
+                        undo.add(() -> unremove(removed, epicSubTasks));
+                        break;
+                }
+            }
+        } catch (RuntimeException exception) {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                undo.get(i).run();
+            }
+            created.forEach(task -> task.setId(0));
+            taskIdGenerator = lastId;
+            if (typeOrders != null) {
+                restoreTypeOrders(typeOrders);
+            }
+            throw exception;
+        }
+        historyManager.removeAll(removedIds);
+    }
+
+    private void uncreate(Task task) {
+        unstoreTask(task);
+        removePrioritizedTasks(task);
+        if (task.getTypeTask() == TypeTask.SUB) {
+            ((SubTask) task).removeFromEpic(epicOf((SubTask) task));
+        }
+    }
+
+    private void unupdate(Task task, Task oldTask) {
+        if (oldTask == null) {
+            // Изменение неизвестной задачи её добавило
+            uncreate(task);
+            return;
+        }
+        if (oldTask == task) return; // Объект изменён на месте, прежнего состояния нет
+        removePrioritizedTasks(task);
+        storeTask(oldTask);
+        switch (oldTask.getTypeTask()) {
+            case SUB:
+                addByPriority(oldTask);
+                epicOf((SubTask) oldTask).modifySubTask((SubTask) oldTask);
+                break;
+            case REG:
+                addByPriority(oldTask);
+                break;
+            default:
+                // Прежний объект эпика хранит подзадачи в том же состоянии: более поздние изменения уже отменены
+                break;
+        }
+    }
+
+    private void unremove(Task task, List<SubTask> epicSubTasks) {
+        storeTask(task);
+        switch (task.getTypeTask()) {
+            case SUB:
                 addByPriority(task);
+                // Подзадачи эпика возвращаются в прежнем порядке
+                EpicTask epicTask = epicOf((SubTask) task);
+                epicTask.clearSubTasks();
+                epicTask.addSubTasks(epicSubTasks);
                 break;
             case REG:
-                if (!isNoOverlap(task)) throw new TaskTimeOverlapException(overlapError);
-                taskById.put(task.getId(), task);
-                removePrioritizedTasks(task);
                 addByPriority(task);
+                break;
             default:
-                taskById.put(task.getId(), task);
+                // Удалённый эпик по-прежнему хранит свои подзадачи
+                for (SubTask subTask : ((EpicTask) task).getSubTasks()) {
+                    storeTask(subTask);
+                    addByPriority(subTask);
+                }
                 break;
         }
     }
 
+    private void restoreTypeOrders(Map<TypeTask, List<Integer>> typeOrders) {
+        typeOrders.forEach((typeTask, ids) -> {
+            Map<Integer, Task> tasks = tasksByType.get(typeTask);
+            tasks.clear();
+            for (Integer id : ids) {
+                Task task = taskById.get(id);
+                if (task != null && task.getTypeTask() == typeTask) {
+                    tasks.put(id, task);
+                }
+            }
+        });
+    }
+
+    private EpicTask epicOf(SubTask subTask) {
+        return (EpicTask) taskById.get(subTask.getEpicId());
+    }
+
+    private void requireEpic(SubTask subTask) throws NotFoundException {
+        if (!hasEpic(subTask)) throw new NotFoundException("Эпик подзадачи не найден. id: " + subTask.getEpicId());
+    }
+
+    /*
+     Пакетное создание: пересечения всей пачки проверяются одним проходом по задачам, упорядоченным по началу,
+     затем задачи добавляются в порядке входа, а подзадачи привязываются к эпикам пачкой на каждый эпик
+     */
+    @Override
+    public BatchResult createTasks(Collection<Task> tasks) {
+        List<Task> batch = new ArrayList<>(tasks);
+        BatchOutcome[] outcomes = new BatchOutcome[batch.size()];
+        String[] messages = new String[batch.size()];
+        List<Integer> timed = new ArrayList<>();
+        for (int index = 0; index < batch.size(); index++) {
+            Task task = batch.get(index);
+            if (task == null) {
+                reject(outcomes, messages, index, BatchOutcome.INVALID, "Пустая задача");
+            } else if (task.getTypeTask() == TypeTask.SUB && !hasEpic((SubTask) task)) {
+                reject(outcomes, messages, index, BatchOutcome.NOT_FOUND,
+                       "Эпик подзадачи не найден. id: " + ((SubTask) task).getEpicId());
+            } else if (task.getTypeTask() != TypeTask.EPIC && task.isScheduled()) {
+                timed.add(index);
+            }
+        }
+        rejectOverlaps(batch, timed, outcomes, messages);
+        Map<Integer, List<SubTask>> subTasksByEpic = new LinkedHashMap<>();
+        for (int index = 0; index < batch.size(); index++) {
+            if (outcomes[index] != null) continue;
+            Task task = batch.get(index);
+            task.setId(getNextFreeId());
+            storeTask(task);
+            if (task.getTypeTask() == TypeTask.SUB) {
+                SubTask subTask = (SubTask) task;
+                subTasksByEpic.computeIfAbsent(subTask.getEpicId(), epicId -> new ArrayList<>()).add(subTask);
+            }
+            if (task.getTypeTask() != TypeTask.EPIC) addByPriority(task);
+            outcomes[index] = BatchOutcome.CREATED;
+        }
+        subTasksByEpic.forEach((epicId, subTasks) -> ((EpicTask) taskById.get(epicId)).addSubTasks(subTasks));
+        return toBatchResult(batch, outcomes, messages);
+    }
+
+    /*
+     Пакетное изменение: прежние интервалы всех изменяемых задач убираются из индекса до проверки, чтобы задачи
+     не пересекались сами с собой. Отклонённая задача остаётся с прежним интервалом, поэтому он возвращается
+     в индекс и проверка оставшихся задач повторяется, пока отклонённых не перестанет прибавляться
+     */
+    @Override
+    public BatchResult updateTasks(Collection<Task> tasks) {
+        List<Task> batch = new ArrayList<>(tasks);
+        BatchOutcome[] outcomes = new BatchOutcome[batch.size()];
+        String[] messages = new String[batch.size()];
+        Task[] oldTasks = new Task[batch.size()];
+        Set<Integer> batchIds = new HashSet<>();
+        List<Integer> timed = new ArrayList<>();
+        for (int index = 0; index < batch.size(); index++) {
+            Task task = batch.get(index);
+            if (task == null) {
+                reject(outcomes, messages, index, BatchOutcome.INVALID, "Пустая задача");
+                continue;
+            }
+            Task oldTask = taskById.get(task.getId());
+            if (oldTask == null) {
+                reject(outcomes, messages, index, BatchOutcome.NOT_FOUND, "Задача не найдена в списке. id: " + task.getId());
+            } else if (oldTask.getTypeTask() != task.getTypeTask()) {
+                reject(outcomes, messages, index, BatchOutcome.INVALID, "Тип задачи нельзя изменить. id: " + task.getId());
+            } else if (!batchIds.add(task.getId())) {
+                reject(outcomes, messages, index, BatchOutcome.INVALID, "Задача уже есть в пачке. id: " + task.getId());
+            } else if (task.getTypeTask() == TypeTask.SUB && !hasEpic((SubTask) task)) {
+                reject(outcomes, messages, index, BatchOutcome.NOT_FOUND,
+                       "Эпик подзадачи не найден. id: " + ((SubTask) task).getEpicId());
+            } else {
+                oldTasks[index] = oldTask;
+                if (task.getTypeTask() != TypeTask.EPIC) {
+                    removePrioritizedTasks(oldTask);
+                    if (task.isScheduled()) timed.add(index);
+                }
+            }
+        }
+        List<Integer> rejected = rejectOverlaps(batch, timed, outcomes, messages);
+        while (!rejected.isEmpty()) {
+            for (int index : rejected) {
+                addByPriority(oldTasks[index]);
+            }
+            timed.removeIf(index -> outcomes[index] != null);
+            rejected = rejectOverlaps(batch, timed, outcomes, messages);
+        }
+        Map<Integer, List<SubTask>> subTasksByEpic = new LinkedHashMap<>();
+        for (int index = 0; index < batch.size(); index++) {
+            if (outcomes[index] != null) continue;
+            Task task = batch.get(index);
+            switch (task.getTypeTask()) {
+                case SUB:
+                    SubTask subTask = (SubTask) task;
+                    subTasksByEpic.computeIfAbsent(subTask.getEpicId(), epicId -> new ArrayList<>()).add(subTask);
+                    addByPriority(task);
+                    break;
+                case REG:
+                    addByPriority(task);
+                    break;
+                default:
+                    // Подзадачи остаются за эпиком и при замене его объекта
+                    if (oldTasks[index] != task) {
+                        ((EpicTask) task).addSubTasks(((EpicTask) oldTasks[index]).getSubTasks());
+                    }
+                    break;
+            }
+            storeTask(task);
+            outcomes[index] = BatchOutcome.UPDATED;
+        }
+        subTasksByEpic.forEach((epicId, subTasks) -> ((EpicTask) taskById.get(epicId)).addSubTasks(subTasks));
+        return toBatchResult(batch, outcomes, messages);
+    }
+
+    /*
+     Проверка пересечений задач пачки с индексом и между собой одним проходом по началу. Принятые задачи пачки
+     попарно не пересекаются, поэтому задачу достаточно сравнить с принятой задачей с самым поздним окончанием.
+     Из двух пересекающихся задач пачки принимается та, что начинается раньше, при равном начале - первая по входу.
+     Возвращает позиции отклонённых задач
+     */
+    private List<Integer> rejectOverlaps(List<Task> batch, List<Integer> timed,
+                                         BatchOutcome[] outcomes, String[] messages) {
+        List<Integer> order = new ArrayList<>(timed);
+        order.sort(Comparator.comparingLong(index -> batch.get(index).getStartMinute()));
+        List<Integer> rejected = new ArrayList<>();
+        boolean hasAccepted = false;
+        long lastStart = 0;
+        long lastEnd = 0;
+        for (int index : order) {
+            Task task = batch.get(index);
+            long start = task.getStartMinute();
+            long end = task.getEndMinute();
+            boolean identical = lastStart == start && lastEnd == end;
+            boolean overlapsBatch = hasAccepted && lastEnd > start && lastStart < end && !identical;
+            if (overlapsBatch || timeIndex.overlaps(start, end)) {
+                reject(outcomes, messages, index, BatchOutcome.OVERLAP, overlapError);
+                rejected.add(index);
+            } else if (!hasAccepted || end > lastEnd) {
+                hasAccepted = true;
+                lastStart = start;
+                lastEnd = end;
+            }
+        }
+        return rejected;
+    }
+
+    private boolean hasEpic(SubTask subTask) {
+        Task epicTask = taskById.get(subTask.getEpicId());
+        return epicTask != null && epicTask.getTypeTask() == TypeTask.EPIC;
+    }
+
+    private static void reject(BatchOutcome[] outcomes, String[] messages, int index,
+                               BatchOutcome outcome, String message) {
+        outcomes[index] = outcome;
+        messages[index] = message;
+    }
+
+    private static BatchResult toBatchResult(List<Task> batch, BatchOutcome[] outcomes, String[] messages) {
+        List<BatchResult.Item> items = new ArrayList<>(batch.size());
+        for (int index = 0; index < batch.size(); index++) {
+            Task task = batch.get(index);
+            int id = task == null ? 0 : task.getId();
+            items.add(new BatchResult.Item(index, id, outcomes[index], messages[index]));
+        }
+        return new BatchResult(items);
+    }
+
+    // Массовое восстановление задач (например, из файла): один проход без проверок пересечений и сохранений
+    protected int restoreTasks(Iterator<Task> tasks) {
+        return restoreTasks(tasks, true);
+    }
+
+    // withPriority = false: индекс приоритетов будет восстановлен отдельно через restorePrioritized
+    protected int restoreTasks(Iterator<Task> tasks, boolean withPriority) {
+        int count = 0;
+        int lastId = taskIdGenerator;
+        Map<Integer, List<SubTask>> subTasksByEpic = new HashMap<>();
+        while (tasks.hasNext()) {
+            Task task = tasks.next();
+            count++;
+            storeTask(task);
+            if (lastId < task.getId()) {
+                lastId = task.getId();
+            }
+            switch (task.getTypeTask()) {
+                case SUB:
+                    SubTask subTask = (SubTask) task;
+                    subTasksByEpic.computeIfAbsent(subTask.getEpicId(), epicId -> new ArrayList<>()).add(subTask);
+                    if (withPriority) addByPriority(task);
+                    break;
+                case REG:
+                    if (withPriority) addByPriority(task);
+                    break;
+                default:
+                    break;
+            }
+        }
+        // Подзадачи привязываются к эпикам после чтения всех задач: порядок строк не важен
+        subTasksByEpic.forEach((epicId, subTasks) -> ((EpicTask) taskById.get(epicId)).addSubTasks(subTasks));
+        taskIdGenerator = lastId;
+        return count;
+    }
+
+    /*
+     Восстановление одной сохранённой версии задачи без проверок (проигрывание журнала поверх снимка).
+     Запись журнала могла уже попасть в более новый снимок, поэтому промежуточные пересечения по времени
+     со старыми версиями других задач допускаются: после проигрывания всего журнала их не остаётся.
+     Подзадача эпика, которого уже нет, пропускается - эпик удалён вместе с ней позже
+     */
+    protected void restoreTask(Task task) {
+        if (task.getTypeTask() == TypeTask.SUB && !hasEpic((SubTask) task)) return;
+        Task oldTask = taskById.get(task.getId());
+        if (oldTask != null && oldTask.getTypeTask() != task.getTypeTask()) {
+            remove(oldTask);
+            oldTask = null;
+        }
+        if (oldTask != null && oldTask != task) {
+            switch (oldTask.getTypeTask()) {
+                case SUB:
+                    removePrioritizedTasks(oldTask);
+                    if (((SubTask) oldTask).getEpicId() != ((SubTask) task).getEpicId()) {
+                        ((SubTask) oldTask).removeFromEpic(epicOf((SubTask) oldTask));
+                    }
+                    break;
+                case REG:
+                    removePrioritizedTasks(oldTask);
+                    break;
+                default:
+                    ((EpicTask) task).addSubTasks(((EpicTask) oldTask).getSubTasks());
+                    break;
+            }
+        }
+        storeTask(task);
+        if (task.getTypeTask() == TypeTask.SUB) {
+            epicOf((SubTask) task).modifySubTask((SubTask) task);
+        }
+        if (task.getTypeTask() != TypeTask.EPIC) {
+            addByPriority(task);
+        }
+    }
+
+    // Удаление задачи без сохранений, отсутствующая задача пропускается: удаление могло уже попасть в снимок
+    protected void discardTask(int id) {
+        Task task = taskById.get(id);
+        if (task != null) {
+            remove(task);
+        }
+    }
+
+    // Пересекается ли по времени какая-нибудь из задач с задачами индекса приоритетов
+    protected boolean overlapsPrioritized(List<Task> tasks) {
+        for (Task task : tasks) {
+            if (task.getTypeTask() != TypeTask.EPIC && !isNoOverlap(task)) return true;
+        }
+        return false;
+    }
+
+    // Восстановление индекса приоритетов из сохранённого отсортированного списка id без поштучных вставок.
+    // Если список не соответствует задачам (устарел или повреждён), индекс не меняется и возвращается false
+    protected boolean restorePrioritized(int[] ids) {
+        List<Task> sorted = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = taskById.get(id);
+            if (task == null || task.getTypeTask() == TypeTask.EPIC || !task.isScheduled()) return false;
+            if (!sorted.isEmpty() && PRIORITY_ORDER.compare(sorted.get(sorted.size() - 1), task) >= 0) return false;
+            sorted.add(task);
+        }
+        long timedTasks = timedCandidates()
+                                  .filter(Task::isScheduled)
+                                  .count();
+        if (timedTasks != sorted.size()) return false;
+        prioritizedTasks.clear();
+        prioritizedTasks.addAll(new PresortedTasks(sorted));
+        timeIndex.addAllSorted(sorted);
+        indexVersion++;
+        return true;
+    }
+
+    // Построение индекса приоритетов заново по всем задачам
+    protected void rebuildPrioritized() {
+        prioritizedTasks.clear();
+        timeIndex.clear();
+        indexVersion++;
+        timedCandidates().forEach(this::addByPriority);
+    }
+
+    // Восстановление истории просмотров по списку id, отсутствующие задачи пропускаются
+    protected void restoreHistory(int[] ids) {
+        List<Task> tasks = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = taskById.get(id);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        historyManager.addAll(tasks);
+        indexVersion++;
+    }
+
+    // Оставить в индексе приоритетов только подходящие задачи: порядок сохраняется, поэтому сборка за O(n)
+    private void retainPrioritized(Predicate<Task> filter) {
+        List<Task> kept = prioritizedTasks.stream().filter(filter).collect(Collectors.toList());
+        prioritizedTasks.clear();
+        prioritizedTasks.addAll(new PresortedTasks(kept));
+        timeIndex.addAllSorted(kept);
+        indexVersion++;
+    }
+
     private void removePrioritizedTasks(Task task) {
-        if (prioritizedTasks.contains(task)) {
-            prioritizedTasks.stream()
-                            .filter(taskTmp -> taskTmp.getId() != task.getId())
-                            .collect(Collectors.toCollection(() -> new TreeSet<>(Comparator.comparing(Task::getStartTime))));
-            ;
+        if (prioritizedTasks.remove(task)) {
+            timeIndex.remove(task);
+            indexVersion++;
+        }
+    }
+
+    /*
+     Перестановка задачи в индексе приоритетов при обновлении: прежняя версия задачи убирается до проверки
+     пересечений, чтобы задача не пересекалась сама с собой. При пересечении индекс возвращается в прежнее состояние
+     */
+    private void repositionByPriority(Task task) throws TaskTimeOverlapException {
+        Task oldTask = taskById.get(task.getId());
+        if (oldTask != null) {
+            removePrioritizedTasks(oldTask);
+        }
+        if (!isNoOverlap(task)) {
+            if (oldTask != null) {
+                addByPriority(oldTask);
+            }
+            throw new TaskTimeOverlapException(overlapError);
         }
+        addByPriority(task);
     }
 
 
@@ -179,34 +748,182 @@ public class InMemoryTaskManager implements TaskManager {
         taskIdGenerator = id;
     }
 
+    protected int getLastId() {
+        return taskIdGenerator;
+    }
+
+    // Меняется при каждом изменении истории или индекса приоритетов
+    protected long getIndexVersion() {
+        return indexVersion;
+    }
+
+    // Подгрузка задачи, которой нет в памяти (например, выгруженной в архив). null - задачи нет совсем
+    protected Task faultIn(int id) {
+        return null;
+    }
+
+    // Выгрузка задач из памяти без сохранений: задачи удаляются из всех индексов и истории
+    protected void evictTasks(List<Task> tasks) {
+        for (Task task : tasks) {
+            unstoreTask(task);
+            historyManager.remove(task.getId());
+            removePrioritizedTasks(task);
+        }
+        indexVersion++;
+    }
+
+    // Задача по id без записи в историю просмотров, null если задачи нет
+    protected Task peekTask(int id) {
+        return taskById.get(id);
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
     }
 
     private boolean isNoOverlap(Task task) { // Проверка на пересечение по времени задачи и уже имеющихся приоритезированных задач
-        LocalDateTime start = task.getStartTime();
-        LocalDateTime end = task.getEndTime();
-        if (start.isEqual(NO_TIME))
+        if (!task.isScheduled())
             return true; // Задачи без времени не попадают в проверку и не будут учтены при приоритезации
-        // Для каждой приоритезированной задачи проверяем попадает ли новая задача во временные рамки
-        return prioritizedTasks.stream()
-                               .allMatch(taskPrior -> (taskPrior.getStartTime().isEqual(start) &&
-                                                       taskPrior.getEndTime().isEqual(end)) ||
-                                                      taskPrior.getStartTime().isAfter(end) ||
-                                                      taskPrior.getStartTime().isEqual(end) ||
-                                                      taskPrior.getEndTime().isBefore(start) ||
-                                                      taskPrior.getEndTime().isEqual(start));
-
+        // Пересечением не считаются касание границами и полностью совпадающий интервал
+        return !timeIndex.overlaps(task.getStartMinute(), task.getEndMinute());
     }
 
     public List<Task> getPrioritizedTasks() {
         return List.copyOf(prioritizedTasks);
     }
 
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return List.copyOf(prioritizedRange(from, to));
+    }
+
+    @Override
+    public Iterator<Task> iteratePrioritized(LocalDateTime from, LocalDateTime to) {
+        return Collections.unmodifiableSet(prioritizedRange(from, to)).iterator();
+    }
+
+    /*
+     Представление индекса приоритетов с задачами, начинающимися в [from, to): поиск границ за O(log n),
+     обход - O(k) без копирования. Задача, начавшаяся до from, в окно не попадает, даже если ещё идёт
+     */
+    private NavigableSet<Task> prioritizedRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец интервала раньше начала: " + from + " - " + to);
+        }
+        NavigableSet<Task> range = prioritizedTasks;
+        if (from != null) range = range.tailSet(timeBound(from), true);
+        if (to != null) range = range.headSet(timeBound(to), false);
+        return range;
+    }
+
+    // Граница для поиска в индексе приоритетов: id меньше любого настоящего, поэтому граница раньше задач с тем же началом.
+    // Задачи начинаются в целую минуту, поэтому граница - первая целая минута не раньше time
+    private static Task timeBound(LocalDateTime time) {
+        Task bound = new SingleTask("", "", DateTimeFormat.fromEpochMinute(DateTimeFormat.ceilEpochMinute(time)), 0);
+        bound.setId(Integer.MIN_VALUE);
+        return bound;
+    }
+
+    // Задачи заданного типа без записи в историю просмотров
+    protected List<Task> peekTasks(TypeTask typeTask) {
+        return new ArrayList<>(tasksByType.get(typeTask).values());
+    }
+
+    private void storeTask(Task task) {
+        Task oldTask = taskById.put(task.getId(), task);
+        if (oldTask != null && oldTask.getTypeTask() != task.getTypeTask()) {
+            tasksByType.get(oldTask.getTypeTask()).remove(oldTask.getId());
+        }
+        tasksByType.get(task.getTypeTask()).put(task.getId(), task);
+    }
+
+    private void unstoreTask(Task task) {
+        Task oldTask = taskById.remove(task.getId());
+        if (oldTask != null) {
+            tasksByType.get(oldTask.getTypeTask()).remove(oldTask.getId());
+        }
+    }
+
+    // Задачи, которые могут попасть в индекс приоритетов: обычные и подзадачи
+    private Stream<Task> timedCandidates() {
+        return Stream.concat(tasksByType.get(TypeTask.REG).values().stream(),
+                             tasksByType.get(TypeTask.SUB).values().stream());
+    }
+
     protected void addByPriority(Task task) {
         // Задачи без времени не попадают в проверку и не будут учтены при приоритезации
-        if (!task.getStartTime().isEqual(NO_TIME)) prioritizedTasks.add(task);
+        if (task.isScheduled() && prioritizedTasks.add(task)) {
+            timeIndex.add(task);
+            indexVersion++;
+        }
     }
 
-}
\ No newline at end of file
+    /*
+     Уже отсортированный список задач в виде неизменяемого SortedSet: TreeSet.addAll строит дерево из него за O(n).
+     Представления subSet, headSet и tailSet - части того же списка, границы ищутся двоичным поиском
+     */
+    private static class PresortedTasks extends AbstractSet<Task> implements SortedSet<Task> {
+        private final List<Task> tasks;
+
+        PresortedTasks(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return Collections.unmodifiableList(tasks).iterator();
+        }
+
+        @Override
+        public int size() {
+            return tasks.size();
+        }
+
+        @Override
+        public boolean contains(Object element) {
+            return element instanceof Task && Collections.binarySearch(tasks, (Task) element, PRIORITY_ORDER) >= 0;
+        }
+
+        @Override
+        public Comparator<? super Task> comparator() {
+            return PRIORITY_ORDER;
+        }
+
+        @Override
+        public Task first() {
+            if (tasks.isEmpty()) throw new NoSuchElementException();
+            return tasks.get(0);
+        }
+
+        @Override
+        public Task last() {
+            if (tasks.isEmpty()) throw new NoSuchElementException();
+            return tasks.get(tasks.size() - 1);
+        }
+
+        @Override
+        public SortedSet<Task> subSet(Task fromElement, Task toElement) {
+            if (PRIORITY_ORDER.compare(fromElement, toElement) > 0) {
+                throw new IllegalArgumentException("Начало диапазона больше конца");
+            }
+            return new PresortedTasks(tasks.subList(lowerBound(fromElement), lowerBound(toElement)));
+        }
+
+        @Override
+        public SortedSet<Task> headSet(Task toElement) {
+            return new PresortedTasks(tasks.subList(0, lowerBound(toElement)));
+        }
+
+        @Override
+        public SortedSet<Task> tailSet(Task fromElement) {
+            return new PresortedTasks(tasks.subList(lowerBound(fromElement), tasks.size()));
+        }
+
+        // Позиция первой задачи не меньше element
+        private int lowerBound(Task element) {
+            int index = Collections.binarySearch(tasks, element, PRIORITY_ORDER);
+            return index >= 0 ? index : -(index + 1);
+        }
+    }
+}
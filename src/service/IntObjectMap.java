@@ -0,0 +1,161 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ Отображение int -> объект с открытой адресацией и линейным пробированием: ключи лежат в int[], значения в Object[],
+ без упаковки ключей в Integer и без объекта-узла на запись. Пустая ячейка - ячейка с null-значением,
+ поэтому годится любой ключ, а null не может быть значением. Удаление сдвигает следующие записи цепочки назад,
+ надгробий нет. Порядок обхода не определён.
+ */
+public class IntObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int shift; // 32 - log2(ёмкость) для фибоначчиева хеширования
+    private int resizeAt;
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int index = slot(key); values[index] != null; index = (index + 1) & mask) {
+            if (keys[index] == key) return (V) values[index];
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    // Возвращает прежнее значение ключа или null
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("Значение не может быть пустым");
+        int mask = keys.length - 1;
+        int index = slot(key);
+        for (; values[index] != null; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                values[index] = value;
+                return old;
+            }
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeAt) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    // Возвращает удалённое значение или null
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        for (int index = slot(key); values[index] != null; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                shiftBack(index);
+                size--;
+                return old;
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) action.accept((V) value);
+        }
+    }
+
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEachValue(result::add);
+        return result;
+    }
+
+    /*
+     Удаление без надгробий: записи после освободившейся ячейки сдвигаются в неё, если их исходная ячейка
+     не лежит между освободившейся и текущей позицией (иначе запись стала бы недостижимой)
+     */
+    private void shiftBack(int free) {
+        int mask = keys.length - 1;
+        int index = free;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == null) break;
+            int home = slot(keys[index]);
+            boolean reachable = free <= index ? free < home && home <= index : free < home || home <= index;
+            if (reachable) continue;
+            keys[free] = keys[index];
+            values[free] = values[index];
+            free = index;
+        }
+        values[free] = null;
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int index = slot(oldKeys[i]);
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,143 @@
+package service;
+
+import model.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/*
+ Менеджер с журналом изменений: каждое изменение дописывается одной строкой в файл журнала,
+ полный снимок (файл менеджера) перезаписывается только при контрольной точке.
+ При загрузке читается снимок, затем поверх него проигрывается журнал (формат журнала - TaskJournal).
+ Момент записи журнала на диск определяется политикой DurabilityPolicy.
+ */
+public class JournaledTaskManager extends FileBackedTaskManager implements AutoCloseable {
+    private static final int DEFAULT_CHECKPOINT_THRESHOLD = 10_000;
+
+    protected final Path journalPath;
+    private final int checkpointThreshold; // Количество записей журнала до контрольной точки
+    private final GroupCommitWriter journalWriter;
+    private int journalRecords;
+
+    public JournaledTaskManager(Path path) {
+        this(path, DEFAULT_CHECKPOINT_THRESHOLD);
+    }
+
+    public JournaledTaskManager(Path path, int checkpointThreshold) {
+        this(path, checkpointThreshold, DurabilityPolicy.syncEachOperation());
+    }
+
+    public JournaledTaskManager(Path path, int checkpointThreshold, DurabilityPolicy durabilityPolicy) {
+        super(path);
+        this.journalPath = TaskJournal.journalPath(path);
+        this.checkpointThreshold = checkpointThreshold;
+        this.journalWriter = new GroupCommitWriter(journalPath, durabilityPolicy);
+    }
+
+    public static JournaledTaskManager loadFromFile(Path path) {
+        return loadFromFile(path, DEFAULT_CHECKPOINT_THRESHOLD);
+    }
+
+    public static JournaledTaskManager loadFromFile(Path path, int checkpointThreshold) {
+        return loadFromFile(path, checkpointThreshold, DurabilityPolicy.syncEachOperation());
+    }
+
+    public static JournaledTaskManager loadFromFile(Path path, DurabilityPolicy durabilityPolicy) {
+        return loadFromFile(path, DEFAULT_CHECKPOINT_THRESHOLD, durabilityPolicy);
+    }
+
+    public static JournaledTaskManager loadFromFile(Path path,
+                                                    int checkpointThreshold,
+                                                    DurabilityPolicy durabilityPolicy) {
+        JournaledTaskManager taskManager = new JournaledTaskManager(path, checkpointThreshold, durabilityPolicy);
+        taskManager.restore();
+        return taskManager;
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public int getJournalRecords() {
+        return journalRecords;
+    }
+
+    public DurabilityPolicy getDurabilityPolicy() {
+        return journalWriter.getPolicy();
+    }
+
+    // Сколько миллисекунд самое старое изменение ждёт записи на диск
+    public long getFlushLagMillis() {
+        return journalWriter.getFlushLagMillis();
+    }
+
+    public int getPendingRecords() {
+        return journalWriter.getPendingRecords();
+    }
+
+    // Принудительная запись всех накопленных изменений журнала
+    public void flush() {
+        journalWriter.flush();
+    }
+
+    // Перенос всех изменений журнала в снимок и очистка журнала
+    public void checkpoint() {
+        journalWriter.flush();
+        save();
+        journalWriter.truncate();
+        journalRecords = 0;
+    }
+
+    // Записывает все накопленные изменения и закрывает журнал
+    @Override
+    public void close() {
+        journalWriter.close();
+    }
+
+    protected void restore() {
+        readSnapshot();
+        journalRecords = TaskJournal.replay(journalPath, this);
+    }
+
+    private void appendRecords(List<String> records) {
+        journalWriter.appendAll(records);
+        journalRecords += records.size();
+        if (journalRecords >= checkpointThreshold) {
+            checkpoint();
+        }
+    }
+
+    protected void appendRecord(String record) {
+        journalWriter.append(record);
+        if (++journalRecords >= checkpointThreshold) {
+            checkpoint();
+        }
+    }
+
+    @Override
+    protected void onTaskSaved(Task task) {
+        appendRecord(TaskJournal.put(task));
+    }
+
+    // Записи пачки дописываются в журнал одной записью на диск
+    @Override
+    protected void onTasksSaved(List<Task> tasks) {
+        appendRecords(TaskJournal.puts(tasks));
+    }
+
+    // Транзакция дописывается в журнал одной группой записей и одной записью на диск
+    @Override
+    protected void onTransactionCommitted(TaskTransaction transaction) {
+        appendRecords(TaskJournal.transaction(transaction));
+    }
+
+    @Override
+    protected void onTaskRemoved(int id) {
+        appendRecord(TaskJournal.delete(id));
+    }
+
+    @Override
+    protected void onTasksCleared(TypeTask typeTask) {
+        appendRecord(TaskJournal.clear(typeTask));
+    }
+}
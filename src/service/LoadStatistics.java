@@ -0,0 +1,62 @@
+package service;
+
+public class LoadStatistics {
+    private final int tasks;
+    private final long bytes;
+    private final long nanos;
+    private final long validationNanos; // Часть времени загрузки, ушедшая на проверку контрольных сумм
+    private final boolean fromPreviousGeneration;
+
+    public LoadStatistics(int tasks, long bytes, long nanos) {
+        this(tasks, bytes, nanos, 0, false);
+    }
+
+    public LoadStatistics(int tasks, long bytes, long nanos, long validationNanos, boolean fromPreviousGeneration) {
+        this.tasks = tasks;
+        this.bytes = bytes;
+        this.nanos = nanos;
+        this.validationNanos = validationNanos;
+        this.fromPreviousGeneration = fromPreviousGeneration;
+    }
+
+    public int getTasks() {
+        return tasks;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getValidationNanos() {
+        return validationNanos;
+    }
+
+    // Доля проверки контрольных сумм во времени загрузки, в процентах
+    public double getValidationPercent() {
+        return nanos == 0 ? 0 : validationNanos * 100.0 / nanos;
+    }
+
+    // Основной снимок повреждён, задачи загружены из предыдущего поколения
+    public boolean isFromPreviousGeneration() {
+        return fromPreviousGeneration;
+    }
+
+    public double getTasksPerSecond() {
+        return nanos == 0 ? 0 : tasks * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Загружено задач: %d (%d байт) за %.1f мс, %.0f задач/с, проверка %.1f%%%s",
+                             tasks,
+                             bytes,
+                             nanos / 1_000_000.0,
+                             getTasksPerSecond(),
+                             getValidationPercent(),
+                             fromPreviousGeneration ? ", из предыдущего поколения" : "");
+    }
+}
@@ -5,6 +5,7 @@ import java.nio.file.Path;
 public abstract class Managers {
 
     private static final String PATH_TO_DATA = "src/data/TasksStorage.csv";
+    private static final String PATH_TO_BINARY_DATA = "src/data/TasksStorage.bin";
 
     private Managers() {
     }
@@ -17,7 +18,37 @@ public abstract class Managers {
         return new FileBackedTaskManager(Path.of(PATH_TO_DATA));
     }
 
+    public static TaskManager loadDefaultFileBackedTaskManager(StorageFormat storageFormat) {
+        if (storageFormat == StorageFormat.BINARY) {
+            return FileBackedTaskManager.loadFromFile(Path.of(PATH_TO_BINARY_DATA), storageFormat);
+        }
+        return FileBackedTaskManager.loadFromFile(Path.of(PATH_TO_DATA), storageFormat);
+    }
+
+    public static TaskManager getDefaultJournaledTaskManager() {
+        return JournaledTaskManager.loadFromFile(Path.of(PATH_TO_DATA));
+    }
+
+    public static TaskManager getDefaultJournaledTaskManager(DurabilityPolicy durabilityPolicy) {
+        return JournaledTaskManager.loadFromFile(Path.of(PATH_TO_DATA), durabilityPolicy);
+    }
+
     public static TaskManager getDefaultTaskManager() {
         return new InMemoryTaskManager();
     }
-}
\ No newline at end of file
+
+    // Менеджер для сервера с пулом потоков
+    public static TaskManager getConcurrentTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Менеджер с чтением без блокировок по неизменяемым версиям доски
+    public static TaskManager getSnapshotTaskManager() {
+        return new SnapshotTaskManager();
+    }
+
+    // Менеджер для досок на миллионы задач: задачи хранятся в примитивных массивах
+    public static TaskManager getCompactTaskManager() {
+        return new CompactTaskManager();
+    }
+}
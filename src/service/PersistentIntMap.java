@@ -0,0 +1,112 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ Неизменяемое отображение неотрицательный int -> значение: 32-ичное префиксное дерево по битам ключа от старших
+ к младшим, 7 уровней по 5 бит. Изменение копирует только путь от корня до листа (7 массивов по 32 ссылки),
+ остальные узлы общие со старой версией. Обход идёт в порядке возрастания ключей.
+ */
+public final class PersistentIntMap<V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final int TOP_SHIFT = 30; // Сдвиг верхнего уровня: 30, 25, ..., 0
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    private final Object[] root;
+    private final int size;
+
+    private PersistentIntMap(Object[] root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key < 0) return null;
+        Object[] node = root;
+        for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+            Object child = node[(key >>> shift) & MASK];
+            if (shift == 0) return (V) child;
+            node = (Object[]) child;
+        }
+        return null;
+    }
+
+    public PersistentIntMap<V> put(int key, V value) {
+        if (key < 0) throw new IllegalArgumentException("Ключ должен быть неотрицательным: " + key);
+        if (value == null) throw new IllegalArgumentException("Значение не может быть пустым");
+        boolean[] added = new boolean[1];
+        Object[] newRoot = put(root, TOP_SHIFT, key, value, added);
+        return new PersistentIntMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    public PersistentIntMap<V> remove(int key) {
+        if (key < 0 || get(key) == null) return this;
+        Object[] newRoot = remove(root, TOP_SHIFT, key);
+        return newRoot == null ? empty() : new PersistentIntMap<>(newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> action) {
+        forEach(root, TOP_SHIFT, (Consumer<Object>) action);
+    }
+
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        forEach(values::add);
+        return values;
+    }
+
+    private static Object[] put(Object[] node, int shift, int key, Object value, boolean[] added) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int index = (key >>> shift) & MASK;
+        if (shift == 0) {
+            added[0] = copy[index] == null;
+            copy[index] = value;
+        } else {
+            copy[index] = put((Object[]) copy[index], shift - BITS, key, value, added);
+        }
+        return copy;
+    }
+
+    // Ключ точно есть в дереве. Опустевшие узлы не сохраняются
+    private static Object[] remove(Object[] node, int shift, int key) {
+        int index = (key >>> shift) & MASK;
+        Object child = shift == 0 ? null : remove((Object[]) node[index], shift - BITS, key);
+        Object[] copy = node.clone();
+        copy[index] = child;
+        for (Object element : copy) {
+            if (element != null) return copy;
+        }
+        return null;
+    }
+
+    private static void forEach(Object[] node, int shift, Consumer<Object> action) {
+        if (node == null) return;
+        for (Object child : node) {
+            if (child == null) continue;
+            if (shift == 0) {
+                action.accept(child);
+            } else {
+                forEach((Object[]) child, shift - BITS, action);
+            }
+        }
+    }
+}
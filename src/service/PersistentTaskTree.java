@@ -0,0 +1,164 @@
+package service;
+
+import model.DateTimeFormat;
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+ Неизменяемый индекс приоритетов: декартово дерево по ключу (начало, id) с копированием пути.
+ Вставка и удаление создают O(log n) новых узлов, остальное дерево общее со старой версией.
+ Приоритет узла вычисляется из id, поэтому дерево не зависит от порядка изменений и генератора случайных чисел.
+ */
+public final class PersistentTaskTree {
+    private static final PersistentTaskTree EMPTY = new PersistentTaskTree(null);
+
+    private final Node root;
+
+    private PersistentTaskTree(Node root) {
+        this.root = root;
+    }
+
+    public static PersistentTaskTree empty() {
+        return EMPTY;
+    }
+
+    // Построение дерева по набору задач вставками за O(n log n)
+    public static PersistentTaskTree of(Iterable<Task> tasks) {
+        PersistentTaskTree tree = EMPTY;
+        for (Task task : tasks) {
+            tree = tree.add(task);
+        }
+        return tree;
+    }
+
+    public PersistentTaskTree add(Task task) {
+        return new PersistentTaskTree(insert(root, new Node(task, null, null)));
+    }
+
+    public PersistentTaskTree remove(Task task) {
+        return new PersistentTaskTree(delete(root, task.getStartMinute(), task.getId()));
+    }
+
+    public List<Task> toList() {
+        return range(null, null);
+    }
+
+    // Задачи с началом в [from, to), null - граница не задана
+    public List<Task> range(LocalDateTime from, LocalDateTime to) {
+        List<Task> tasks = new ArrayList<>();
+        iterator(from, to).forEachRemaining(tasks::add);
+        return tasks;
+    }
+
+    // Ленивый обход: версия дерева неизменна, поэтому обход безопасен при любых параллельных изменениях
+    public Iterator<Task> iterator(LocalDateTime from, LocalDateTime to) {
+        return new RangeIterator(root,
+                                 from == null ? Long.MIN_VALUE : DateTimeFormat.ceilEpochMinute(from),
+                                 to == null ? Long.MAX_VALUE : DateTimeFormat.ceilEpochMinute(to));
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(added.task.getStartMinute(), added.task.getId(), node) < 0) {
+            Node left = insert(node.left, added);
+            return left.priority > node.priority
+                   ? new Node(left.task, left.left, new Node(node.task, left.right, node.right))
+                   : new Node(node.task, left, node.right);
+        }
+        Node right = insert(node.right, added);
+        return right.priority > node.priority
+               ? new Node(right.task, new Node(node.task, node.left, right.left), right.right)
+               : new Node(node.task, node.left, right);
+    }
+
+    private static Node delete(Node node, long start, int id) {
+        if (node == null) return null;
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            Node left = delete(node.left, start, id);
+            return left == node.left ? node : new Node(node.task, left, node.right);
+        }
+        if (comparison > 0) {
+            Node right = delete(node.right, start, id);
+            return right == node.right ? node : new Node(node.task, node.left, right);
+        }
+        return merge(node.left, node.right);
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            return new Node(left.task, left.left, merge(left.right, right));
+        }
+        return new Node(right.task, merge(left, right.left), right.right);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int comparison = Long.compare(start, node.task.getStartMinute());
+        return comparison != 0 ? comparison : Integer.compare(id, node.task.getId());
+    }
+
+    // Перемешивание битов id (как в SplitMix): соседние id получают независимые приоритеты
+    private static int priority(int id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (mixed ^ (mixed >>> 31));
+    }
+
+    private static class Node {
+        private final Task task;
+        private final int priority;
+        private final Node left;
+        private final Node right;
+
+        Node(Task task, Node left, Node right) {
+            this.task = task;
+            this.priority = priority(task.getId());
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    // Обход по возрастанию ключа со стеком левых потомков, поддеревья вне [from, to) пропускаются
+    private static class RangeIterator implements Iterator<Task> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final long to;
+
+        RangeIterator(Node root, long from, long to) {
+            this.to = to;
+            Node node = root;
+            while (node != null) {
+                if (node.task.getStartMinute() < from) {
+                    node = node.right;
+                } else {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && stack.peek().task.getStartMinute() < to;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Node node = stack.pop();
+            for (Node child = node.right; child != null; child = child.left) {
+                stack.push(child);
+            }
+            return node.task;
+        }
+    }
+}
@@ -0,0 +1,551 @@
+package service;
+
+import model.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/*
+ Менеджер с хранением задач по сегментам: каждый сегмент - отдельный CSV файл с задачами одного типа из диапазона id.
+ Изменение обычной задачи не затрагивает файлы эпиков и подзадач, изменение подзадачи - только её сегмент и сегмент эпика.
+ Менеджер запоминает id изменённых задач и на контрольной точке перезаписывает только затронутые сегменты,
+ поэтому время контрольной точки зависит от числа изменений, а не от размера доски.
+ До контрольной точки каждое изменение дописывается в журнал (формат TaskJournal) с fsync в потоке вызова:
+ сбой не теряет ни одного завершённого изменения, при загрузке журнал проигрывается поверх сегментов.
+ Контрольная точка выполняется после накопления заданного числа изменений, по истечении интервала
+ (проверяется при очередном изменении) и при закрытии менеджера; она только ограничивает размер журнала
+ и время загрузки, но не окно потери данных. Контрольная точка очищает журнал.
+ Файл индексов (история и порядок приоритетов) пишется целиком и только когда они изменились после прошлой записи.
+ Сегменты и список сегментов записываются атомарно и содержат контрольные суммы, которые проверяются при загрузке.
+ Сегменты, ставшие разреженными после удалений, объединяются фоновой компактизацией.
+ Файл менеджера (path) содержит список сегментов, сами сегменты лежат в каталоге рядом с ним.
+ Каждый сегмент начинается со строки "#segment,<версия>,<тип>,<from>,<to>", за ней следует обычный CSV.
+ При загрузке сегменты читаются параллельно, подзадачи привязываются к эпикам после чтения всех сегментов.
+ */
+public class SegmentedTaskManager extends FileBackedTaskManager implements AutoCloseable {
+    public static final int SEGMENT_SIZE = 1024; // Диапазон id одного сегмента до компактизации
+    public static final int SEGMENT_VERSION = 1;
+    private static final String SEGMENT_HEADER = "#segment";
+    private static final String MANIFEST_TITLE = "file,type,from,to,tasks";
+    private static final String SEGMENTS_SUFFIX = ".segments";
+    private static final int DEFAULT_DIRTY_LIMIT = 1_000;
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 5_000;
+    private static final int SPARSE_SEGMENT_TASKS = SEGMENT_SIZE / 4;
+    private static final int COMPACTION_SPARSE_SEGMENTS = 8;
+
+    protected final Path segmentsDirectory;
+    protected final Path journalPath;
+    private final GroupCommitWriter journalWriter;
+    private final int dirtyLimit;
+    private final long checkpointIntervalMillis;
+    // Сегменты каждого типа по началу диапазона id
+    private final Map<TypeTask, NavigableMap<Integer, Segment>> segments = new EnumMap<>(TypeTask.class);
+    // Задачи каждого типа, изменённые после последней контрольной точки
+    private final Map<TypeTask, Set<Integer>> dirtyIds = new EnumMap<>(TypeTask.class);
+    private final Set<TypeTask> dirtyTypes = EnumSet.noneOf(TypeTask.class); // Типы, сегменты которых перезаписываются целиком
+    private long lastCheckpointMillis;
+    private final ReentrantLock storageLock = new ReentrantLock();
+    private final ExecutorService compactor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private long rewrittenSegments;
+    private long savedIndexVersion = -1; // Версия истории и приоритетов в файле индексов
+    private boolean closed;
+
+    public SegmentedTaskManager(Path path) {
+        this(path, DEFAULT_DIRTY_LIMIT, DEFAULT_CHECKPOINT_INTERVAL_MILLIS);
+    }
+
+    public SegmentedTaskManager(Path path, int dirtyLimit, long checkpointIntervalMillis) {
+        super(path);
+        for (TypeTask typeTask : TypeTask.values()) {
+            segments.put(typeTask, new TreeMap<>());
+            dirtyIds.put(typeTask, new HashSet<>());
+        }
+        this.segmentsDirectory = path.resolveSibling(path.getFileName() + SEGMENTS_SUFFIX);
+        this.journalPath = TaskJournal.journalPath(path);
+        this.journalWriter = new GroupCommitWriter(journalPath, DurabilityPolicy.syncEachOperation());
+        this.dirtyLimit = dirtyLimit;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.lastCheckpointMillis = System.currentTimeMillis();
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "segment-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(segmentsDirectory);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка создания каталога сегментов: " + exception.getMessage());
+        }
+    }
+
+    public static SegmentedTaskManager loadFromFile(Path path) {
+        SegmentedTaskManager taskManager = new SegmentedTaskManager(path);
+        taskManager.readSnapshot();
+        return taskManager;
+    }
+
+    public static SegmentedTaskManager loadFromFile(Path path, int dirtyLimit, long checkpointIntervalMillis) {
+        SegmentedTaskManager taskManager = new SegmentedTaskManager(path, dirtyLimit, checkpointIntervalMillis);
+        taskManager.readSnapshot();
+        return taskManager;
+    }
+
+    public Path getSegmentsDirectory() {
+        return segmentsDirectory;
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public int getDirtyTasks() {
+        int count = 0;
+        for (Set<Integer> ids : dirtyIds.values()) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    public int getSegmentCount() {
+        int count = 0;
+        for (TypeTask typeTask : TypeTask.values()) {
+            count += getSegmentCount(typeTask);
+        }
+        return count;
+    }
+
+    public int getSegmentCount(TypeTask typeTask) {
+        storageLock.lock();
+        try {
+            return segments.get(typeTask).size();
+        } finally {
+            storageLock.unlock();
+        }
+    }
+
+    // Общее число перезаписанных сегментов за время работы менеджера
+    public long getRewrittenSegments() {
+        return rewrittenSegments;
+    }
+
+    // Полное сохранение: перезаписываются все сегменты
+    @Override
+    public void save() {
+        dirtyTypes.addAll(EnumSet.allOf(TypeTask.class));
+        checkpoint();
+    }
+
+    // Запись на диск сегментов, в которых есть изменённые задачи
+    public void checkpoint() {
+        storageLock.lock();
+        try {
+            Set<Segment> affected = new HashSet<>();
+            for (TypeTask typeTask : TypeTask.values()) {
+                if (dirtyTypes.contains(typeTask)) {
+                    affected.addAll(segments.get(typeTask).values());
+                    for (int from = 0; from <= getLastId(); from += SEGMENT_SIZE) {
+                        affected.add(segmentFor(typeTask, from));
+                    }
+                } else {
+                    for (int id : dirtyIds.get(typeTask)) {
+                        affected.add(segmentFor(typeTask, id));
+                    }
+                }
+            }
+            List<Path> obsoleteFiles = new ArrayList<>();
+            for (Segment segment : affected) {
+                writeSegment(segment, obsoleteFiles);
+            }
+            writeManifest();
+            deleteFiles(obsoleteFiles);
+            // Индексы пишутся целиком, поэтому только если история или приоритеты изменились с прошлой записи
+            if (getIndexVersion() != savedIndexVersion) {
+                saveIndexes();
+                savedIndexVersion = getIndexVersion();
+            }
+            // Все изменения журнала уже в сегментах. Сбой до очистки оставит их в журнале - повтор безопасен
+            journalWriter.truncate();
+            rewrittenSegments += affected.size();
+            dirtyIds.values().forEach(Set::clear);
+            dirtyTypes.clear();
+            lastCheckpointMillis = System.currentTimeMillis();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка записи индексов: " + exception.getMessage());
+        } finally {
+            storageLock.unlock();
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    // Объединение подряд идущих разреженных сегментов в один файл
+    public void compact() {
+        storageLock.lock();
+        try {
+            List<Path> obsoleteFiles = new ArrayList<>();
+            for (NavigableMap<Integer, Segment> typeSegments : segments.values()) {
+                List<Segment> run = new ArrayList<>();
+                int runTasks = 0;
+                for (Segment segment : new ArrayList<>(typeSegments.values())) {
+                    boolean sparse = segment.tasks < SPARSE_SEGMENT_TASKS;
+                    if (sparse && runTasks + segment.tasks <= SEGMENT_SIZE) {
+                        run.add(segment);
+                        runTasks += segment.tasks;
+                        continue;
+                    }
+                    mergeSegments(run, obsoleteFiles);
+                    run.clear();
+                    runTasks = 0;
+                    if (sparse) {
+                        run.add(segment);
+                        runTasks = segment.tasks;
+                    }
+                }
+                mergeSegments(run, obsoleteFiles);
+            }
+            if (!obsoleteFiles.isEmpty()) {
+                writeManifest();
+                deleteFiles(obsoleteFiles);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка компактизации сегментов: " + exception.getMessage());
+        } finally {
+            storageLock.unlock();
+        }
+    }
+
+    // Записывает все изменения, закрывает журнал и останавливает фоновую компактизацию
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        checkpoint();
+        journalWriter.close();
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void readSnapshot() {
+        long startNanos = System.nanoTime();
+        try {
+            List<Segment> allSegments = new ArrayList<>();
+            long bytes = readManifest(allSegments);
+            // Сегменты независимы друг от друга и читаются параллельно, связи восстанавливает restoreTasks
+            List<Task> tasks = allSegments.parallelStream()
+                                          .map(this::readSegment)
+                                          .flatMap(List::stream)
+                                          .collect(Collectors.toList());
+            TaskIndexFile indexes = TaskIndexFile.read(TaskIndexFile.indexPath(path));
+            int count = restoreTasks(tasks.iterator(), indexes == null);
+            // Без файла индексов или с устаревшим файлом первая контрольная точка его перезаписывает
+            savedIndexVersion = restoreIndexes(indexes) ? getIndexVersion() : -1;
+            // Изменения из журнала ещё не в сегментах: следующая контрольная точка перезаписывает все сегменты
+            if (TaskJournal.replay(journalPath, this) > 0) {
+                dirtyTypes.addAll(EnumSet.allOf(TypeTask.class));
+            }
+            setLoadStatistics(new LoadStatistics(count, bytes, System.nanoTime() - startNanos));
+        } catch (IOException | UncheckedIOException exception) {
+            throw new ManagerSaveException("Ошибка чтения сегментов: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public void removeTask(Integer id) {
+        markRemoved(id);
+        super.removeTask(id);
+    }
+
+    // Удаляемые задачи отмечаются до применения транзакции, пока их тип ещё известен
+    @Override
+    public void commit(TaskTransaction transaction) {
+        for (TaskTransaction.Operation operation : transaction.getOperations()) {
+            if (operation.getAction() == TaskTransaction.Action.REMOVE) {
+                markRemoved(operation.getId());
+            }
+        }
+        super.commit(transaction);
+    }
+
+    @Override
+    protected void onTaskSaved(Task task) {
+        markSaved(task);
+        journalWriter.append(TaskJournal.put(task));
+        checkpointIfNeeded();
+    }
+
+    @Override
+    protected void onTasksSaved(List<Task> tasks) {
+        tasks.forEach(this::markSaved);
+        journalWriter.appendAll(TaskJournal.puts(tasks));
+        checkpointIfNeeded();
+    }
+
+    @Override
+    protected void onTransactionCommitted(TaskTransaction transaction) {
+        for (TaskTransaction.Operation operation : transaction.getOperations()) {
+            if (operation.getAction() != TaskTransaction.Action.REMOVE) {
+                markSaved(operation.getTask());
+            }
+        }
+        journalWriter.appendAll(TaskJournal.transaction(transaction));
+        checkpointIfNeeded();
+    }
+
+    @Override
+    protected void onTaskRemoved(int id) {
+        // Тип удалённой задачи уже отмечен в removeTask
+        journalWriter.append(TaskJournal.delete(id));
+        checkpointIfNeeded();
+    }
+
+    @Override
+    protected void onTasksCleared(TypeTask typeTask) {
+        // Очистка подзадач меняет статус эпиков, очистка эпиков удаляет подзадачи
+        dirtyTypes.add(typeTask);
+        if (typeTask != TypeTask.REG) {
+            dirtyTypes.add(TypeTask.EPIC);
+            dirtyTypes.add(TypeTask.SUB);
+        }
+        journalWriter.append(TaskJournal.clear(typeTask));
+        checkpointIfNeeded();
+    }
+
+    // Вместе с эпиком удаляются его подзадачи, а удаление подзадачи меняет эпик
+    private void markRemoved(int id) {
+        Task task = peekTask(id);
+        if (task == null) return;
+        dirtyIds.get(task.getTypeTask()).add(id);
+        if (task.getTypeTask() == TypeTask.EPIC) {
+            ((EpicTask) task).getSubTasks().forEach(subTask -> dirtyIds.get(TypeTask.SUB).add(subTask.getId()));
+        } else if (task.getTypeTask() == TypeTask.SUB) {
+            dirtyIds.get(TypeTask.EPIC).add(((SubTask) task).getEpicId());
+        }
+    }
+
+    private void markSaved(Task task) {
+        dirtyIds.get(task.getTypeTask()).add(task.getId());
+        if (task.getTypeTask() == TypeTask.SUB) {
+            dirtyIds.get(TypeTask.EPIC).add(((SubTask) task).getEpicId());
+        }
+    }
+
+    private void checkpointIfNeeded() {
+        if (!dirtyTypes.isEmpty()
+            || getDirtyTasks() >= dirtyLimit
+            || System.currentTimeMillis() - lastCheckpointMillis >= checkpointIntervalMillis) {
+            checkpoint();
+        }
+    }
+
+    private Segment segmentFor(TypeTask typeTask, int id) {
+        NavigableMap<Integer, Segment> typeSegments = segments.get(typeTask);
+        Map.Entry<Integer, Segment> floor = typeSegments.floorEntry(id);
+        if (floor != null && id < floor.getValue().to) return floor.getValue();
+        int from = id - Math.floorMod(id, SEGMENT_SIZE);
+        Segment segment = new Segment(typeTask, from, from + SEGMENT_SIZE, 0);
+        typeSegments.put(from, segment);
+        return segment;
+    }
+
+    private void writeSegment(Segment segment, List<Path> obsoleteFiles) {
+        List<Task> tasks = new ArrayList<>();
+        for (int id = segment.from; id < segment.to; id++) {
+            Task task = peekTask(id);
+            if (task != null && task.getTypeTask() == segment.typeTask) {
+                tasks.add(task);
+            }
+        }
+        Path segmentPath = segmentsDirectory.resolve(segment.getFileName());
+        if (tasks.isEmpty()) {
+            segments.get(segment.typeTask).remove(segment.from);
+            obsoleteFiles.add(segmentPath);
+            return;
+        }
+        try {
+            writeSegmentFile(segment, tasks);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка записи сегмента: " + exception.getMessage());
+        }
+        segment.tasks = tasks.size();
+    }
+
+    private void mergeSegments(List<Segment> run, List<Path> obsoleteFiles) throws IOException {
+        if (run.size() < 2) return;
+        List<Task> tasks = new ArrayList<>();
+        TypeTask typeTask = run.get(0).typeTask;
+        for (Segment segment : run) {
+            tasks.addAll(readSegment(segment));
+            segments.get(typeTask).remove(segment.from);
+            obsoleteFiles.add(segmentsDirectory.resolve(segment.getFileName()));
+        }
+        Segment merged = new Segment(typeTask, run.get(0).from, run.get(run.size() - 1).to, tasks.size());
+        writeSegmentFile(merged, tasks);
+        segments.get(typeTask).put(merged.from, merged);
+    }
+
+    private List<Task> readSegment(Segment segment) {
+        List<Task> tasks = new ArrayList<>(segment.tasks);
+        Path segmentPath = segmentsDirectory.resolve(segment.getFileName());
+        try {
+            if (!SnapshotChecksums.validateCsv(segmentPath)) {
+                throw new ManagerSaveException("Сегмент повреждён: " + segment.getFileName());
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(segmentPath, StandardCharsets.UTF_8)) {
+            checkSegmentHeader(segment, reader.readLine());
+            try (TaskCsvReader csvReader = new TaskCsvReader(reader)) {
+                csvReader.forEachRemaining(tasks::add);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return tasks;
+    }
+
+    private void checkSegmentHeader(Segment segment, String header) {
+        String[] fields = header == null ? new String[0] : header.split(",");
+        if (fields.length != 5 || !SEGMENT_HEADER.equals(fields[0])) {
+            throw new ManagerSaveException("Файл " + segment.getFileName() + " не является сегментом");
+        }
+        int version = Integer.parseInt(fields[1]);
+        if (version != SEGMENT_VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия сегмента " + segment.getFileName() + ": " + version);
+        }
+        if (segment.typeTask != TypeTask.valueOf(fields[2])) {
+            throw new ManagerSaveException("Тип задач сегмента " + segment.getFileName() + " не совпадает со списком сегментов");
+        }
+    }
+
+    private void writeSegmentFile(Segment segment, List<Task> tasks) throws IOException {
+        AtomicFiles.write(segmentsDirectory.resolve(segment.getFileName()), output -> {
+            SnapshotChecksums.CsvOutput csvOutput = new SnapshotChecksums.CsvOutput(output);
+            csvOutput.writeLine(SEGMENT_HEADER + "," + SEGMENT_VERSION + "," + segment.typeTask
+                                + "," + segment.from + "," + segment.to);
+            TaskCsvWriter.write(csvOutput, tasks);
+            csvOutput.finish();
+        });
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        if (compactor.isShutdown()) return;
+        long sparseSegments;
+        storageLock.lock();
+        try {
+            sparseSegments = segments.values()
+                                     .stream()
+                                     .flatMap(typeSegments -> typeSegments.values().stream())
+                                     .filter(segment -> segment.tasks < SPARSE_SEGMENT_TASKS)
+                                     .count();
+        } finally {
+            storageLock.unlock();
+        }
+        if (sparseSegments >= COMPACTION_SPARSE_SEGMENTS && compactionScheduled.compareAndSet(false, true)) {
+            compactor.submit(() -> {
+                compactionScheduled.set(false);
+                compact();
+            });
+        }
+    }
+
+    // Заполняет список сегментов, возвращает суммарный размер файлов
+    private long readManifest(List<Segment> allSegments) throws IOException {
+        segments.values().forEach(Map::clear);
+        long bytes = Files.size(path);
+        if (!SnapshotChecksums.validateCsv(path)) {
+            throw new ManagerSaveException("Список сегментов повреждён: " + path);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String title = reader.readLine();
+            if (title == null) return bytes;
+            if (!MANIFEST_TITLE.equals(title)) {
+                throw new ManagerSaveException("Неподдерживаемый формат списка сегментов: " + title);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') continue;
+                String[] fields = line.split(",");
+                Segment segment = new Segment(TypeTask.valueOf(fields[1]),
+                                              Integer.parseInt(fields[2]),
+                                              Integer.parseInt(fields[3]),
+                                              Integer.parseInt(fields[4]));
+                segments.get(segment.typeTask).put(segment.from, segment);
+                allSegments.add(segment);
+                bytes += Files.size(segmentsDirectory.resolve(segment.getFileName()));
+            }
+        }
+        return bytes;
+    }
+
+    private void writeManifest() {
+        try {
+            AtomicFiles.write(path, output -> {
+                SnapshotChecksums.CsvOutput csvOutput = new SnapshotChecksums.CsvOutput(output);
+                csvOutput.writeLine(MANIFEST_TITLE);
+                for (NavigableMap<Integer, Segment> typeSegments : segments.values()) {
+                    for (Segment segment : typeSegments.values()) {
+                        csvOutput.writeLine(segment.getFileName() + "," + segment.typeTask + "," + segment.from
+                                            + "," + segment.to + "," + segment.tasks);
+                    }
+                }
+                csvOutput.finish();
+            });
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка записи списка сегментов: " + exception.getMessage());
+        }
+    }
+
+    // Файлы удаляются только после записи нового списка сегментов, который на них больше не ссылается
+    private void deleteFiles(List<Path> files) {
+        try {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка удаления сегмента: " + exception.getMessage());
+        }
+    }
+
+    private static class Segment {
+        private final TypeTask typeTask;
+        private final int from;
+        private final int to;
+        private int tasks;
+
+        Segment(TypeTask typeTask, int from, int to, int tasks) {
+            this.typeTask = typeTask;
+            this.from = from;
+            this.to = to;
+            this.tasks = tasks;
+        }
+
+        String getFileName() {
+            return typeTask.name().toLowerCase() + "-" + from + "-" + to + ".csv";
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/*
+ Контрольные суммы CRC32C для снимков.
+ CSV: после каждого блока строк идёт строка "#crc32c,<сумма>" с суммой байтов блока. Первая сумма пишется сразу
+ после заголовка, поэтому файл без строк суммы считается файлом старого формата и не проверяется.
+ Последняя строка файла с суммами - "#crc32c-end,<число блоков>,<сумма>" с количеством строк суммы и суммой всех
+ байтов перед ней: без неё файл, обрезанный ровно после строки суммы блока, прошёл бы проверку без части задач.
+ Бинарный формат: данные делятся на блоки фиксированного размера, в конце файла записаны суммы блоков
+ и их количество.
+ */
+public class SnapshotChecksums {
+    public static final String CSV_CHECKSUM_PREFIX = "#crc32c,";
+    public static final String CSV_TRAILER_PREFIX = "#crc32c-end,";
+    public static final int CSV_BLOCK_LINES = 1024;
+    public static final int BINARY_BLOCK_BYTES = 1 << 20;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private SnapshotChecksums() {
+    }
+
+    // Проверка CSV файла за один последовательный проход по байтам
+    public static boolean validateCsv(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        CRC32C fileCrc = new CRC32C();
+        long blocks = 0;
+        boolean trailed = false;
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        StringBuilder commentLine = new StringBuilder();
+        boolean inCommentLine = false;
+        boolean lineStart = true;
+        boolean checksummed = false;
+        boolean uncheckedData = false;
+        try (InputStream input = Files.newInputStream(path)) {
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                int runStart = 0;
+                for (int i = 0; i < read; i++) {
+                    byte value = buffer[i];
+                    // После итоговой строки данных быть не может
+                    if (trailed) return false;
+                    if (inCommentLine) {
+                        if (value != '\n') {
+                            commentLine.append((char) (value & 0xFF));
+                            continue;
+                        }
+                        inCommentLine = false;
+                        lineStart = true;
+                        runStart = i + 1;
+                        String line = commentLine.toString();
+                        if (line.startsWith(CSV_TRAILER_PREFIX)) {
+                            if (uncheckedData || !line.equals(trailer(blocks, fileCrc.getValue()))) return false;
+                            checksummed = true;
+                            trailed = true;
+                            continue;
+                        }
+                        byte[] lineBytes = line.getBytes(StandardCharsets.ISO_8859_1);
+                        fileCrc.update(lineBytes);
+                        fileCrc.update('\n');
+                        if (line.startsWith(CSV_CHECKSUM_PREFIX)) {
+                            if (crc.getValue() != parseChecksum(line)) return false;
+                            crc.reset();
+                            blocks++;
+                            checksummed = true;
+                            uncheckedData = false;
+                        } else {
+                            // Строки с '#', не являющиеся суммой (например, заголовок сегмента), входят в блок
+                            crc.update(lineBytes);
+                            crc.update('\n');
+                            uncheckedData = true;
+                        }
+                    } else if (lineStart && value == '#') {
+                        crc.update(buffer, runStart, i - runStart);
+                        fileCrc.update(buffer, runStart, i - runStart);
+                        inCommentLine = true;
+                        commentLine.setLength(0);
+                        commentLine.append('#');
+                    } else {
+                        lineStart = value == '\n';
+                        uncheckedData = true;
+                    }
+                }
+                if (!inCommentLine && !trailed) {
+                    crc.update(buffer, runStart, read - runStart);
+                    fileCrc.update(buffer, runStart, read - runStart);
+                }
+            }
+        }
+        if (!checksummed) return true;
+        return trailed && !inCommentLine;
+    }
+
+    // Проверка бинарного тела по суммам блоков из хвоста файла
+    public static boolean validateBlocks(ByteBuffer file) {
+        int size = file.limit();
+        if (size < Integer.BYTES) return false;
+        int blocks = file.getInt(size - Integer.BYTES);
+        long bodySize = size - Integer.BYTES - (long) blocks * Integer.BYTES;
+        if (blocks < 0 || bodySize < 0 || (bodySize + BINARY_BLOCK_BYTES - 1) / BINARY_BLOCK_BYTES != blocks) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        for (int block = 0; block < blocks; block++) {
+            int from = block * BINARY_BLOCK_BYTES;
+            ByteBuffer slice = file.duplicate();
+            slice.position(from);
+            slice.limit((int) Math.min(bodySize, (long) from + BINARY_BLOCK_BYTES));
+            crc.reset();
+            crc.update(slice);
+            if ((int) crc.getValue() != file.getInt((int) bodySize + block * Integer.BYTES)) return false;
+        }
+        return true;
+    }
+
+    private static String trailer(long blocks, long fileChecksum) {
+        return CSV_TRAILER_PREFIX + blocks + "," + Long.toHexString(fileChecksum);
+    }
+
+    private static long parseChecksum(String line) {
+        try {
+            return Long.parseLong(line.substring(CSV_CHECKSUM_PREFIX.length()), 16);
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    // Построчная запись CSV с вставкой строки суммы после каждого блока
+    public static class CsvOutput {
+        private final OutputStream output;
+        private final CRC32C crc = new CRC32C();
+        private final CRC32C fileCrc = new CRC32C();
+        private int blockLines;
+        private long blocks;
+
+        public CsvOutput(OutputStream output) {
+            this.output = output;
+        }
+
+        public void writeLine(String line) throws IOException {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            output.write(bytes);
+            output.write('\n');
+            crc.update(bytes);
+            crc.update('\n');
+            fileCrc.update(bytes);
+            fileCrc.update('\n');
+            if (++blockLines >= CSV_BLOCK_LINES) {
+                writeChecksum();
+            }
+        }
+
+        // Завершение текущего блока строкой суммы
+        public void writeChecksum() throws IOException {
+            byte[] line = (CSV_CHECKSUM_PREFIX + Long.toHexString(crc.getValue()) + "\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            output.write(line);
+            fileCrc.update(line);
+            crc.reset();
+            blockLines = 0;
+            blocks++;
+        }
+
+        // Последний блок закрывается суммой, за ним идёт итоговая строка
+        public void finish() throws IOException {
+            if (blockLines > 0) {
+                writeChecksum();
+            }
+            output.write((trailer(blocks, fileCrc.getValue()) + "\n").getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+        }
+    }
+
+    // Поток, считающий суммы блоков фиксированного размера и дописывающий их в конец при завершении
+    public static class BlockOutputStream extends FilterOutputStream {
+        private final CRC32C crc = new CRC32C();
+        private final List<Integer> checksums = new ArrayList<>();
+        private int blockBytes;
+
+        public BlockOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            out.write(value);
+            crc.update(value);
+            if (++blockBytes == BINARY_BLOCK_BYTES) {
+                closeBlock();
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                int chunk = Math.min(length, BINARY_BLOCK_BYTES - blockBytes);
+                out.write(bytes, offset, chunk);
+                crc.update(bytes, offset, chunk);
+                blockBytes += chunk;
+                offset += chunk;
+                length -= chunk;
+                if (blockBytes == BINARY_BLOCK_BYTES) {
+                    closeBlock();
+                }
+            }
+        }
+
+        public void finish() throws IOException {
+            if (blockBytes > 0) {
+                closeBlock();
+            }
+            ByteBuffer trailer = ByteBuffer.allocate((checksums.size() + 1) * Integer.BYTES);
+            for (int checksum : checksums) {
+                trailer.putInt(checksum);
+            }
+            trailer.putInt(checksums.size());
+            out.write(trailer.array());
+            out.flush();
+        }
+
+        private void closeBlock() {
+            checksums.add((int) crc.getValue());
+            crc.reset();
+            blockBytes = 0;
+        }
+    }
+}
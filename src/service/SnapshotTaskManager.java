@@ -0,0 +1,352 @@
+package service;
+
+import model.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+/*
+ Менеджер задач с чтением без блокировок. Изменения выполняются по одному на рабочей доске (InMemoryTaskManager)
+ со всеми проверками, после чего публикуется новая неизменяемая версия (BoardSnapshot): в неё заново копируются
+ только затронутые задачи, остальное общее с предыдущей версией. Опубликованный эпик не копирует подзадачи,
+ а ссылается на уже опубликованные объекты подзадач той же версии. Читатели берут текущую версию из AtomicReference
+ и никогда не ждут писателей; все данные одного чтения относятся к одной версии.
+ История просмотров защищена своей короткой блокировкой и хранит копии задач; она выдаётся по текущей версии,
+ поэтому удалённые задачи в ней не появляются.
+ Задачи вызывающего на доску не попадают: создания и изменения применяются к их копиям, созданным задачам
+ вызывающего выставляется выданный id.
+ */
+public class SnapshotTaskManager implements VersionedTaskManager {
+    private final HistoryManager historyManager = new SynchronizedHistoryManager(Managers.getDefaultHistory());
+    private final InMemoryTaskManager board = new InMemoryTaskManager(historyManager); // Только под writeLock
+    private final Object writeLock = new Object();
+    private final AtomicReference<BoardSnapshot> current = new AtomicReference<>(BoardSnapshot.EMPTY);
+    private final ThreadLocal<long[]> servedVersion = ThreadLocal.withInitial(() -> new long[1]);
+
+    // Текущая версия доски целиком: несколько чтений из неё согласованы между собой
+    public BoardSnapshot getSnapshot() {
+        BoardSnapshot snapshot = current.get();
+        servedVersion.get()[0] = snapshot.getVersion();
+        return snapshot;
+    }
+
+    @Override
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    @Override
+    public long getServedVersion() {
+        return servedVersion.get()[0];
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = findTask(id);
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Task findTask(int id) {
+        Task task = getSnapshot().findTask(id);
+        if (task == null) throw new NotFoundException("Задача не найдена в списке. id: " + id);
+        return task;
+    }
+
+    @Override
+    public void markViewed(int id) {
+        getTaskById(id);
+    }
+
+    @Override
+    public List<Task> getSingleTasks() {
+        return view(listSingleTasks());
+    }
+
+    @Override
+    public List<Task> getSubTasks() {
+        return view(listSubTasks());
+    }
+
+    @Override
+    public List<Task> getEpicTasks() {
+        return view(listEpicTasks());
+    }
+
+    @Override
+    public List<Task> listSingleTasks() {
+        return getSnapshot().listTasks(TypeTask.REG);
+    }
+
+    @Override
+    public List<Task> listSubTasks() {
+        return getSnapshot().listTasks(TypeTask.SUB);
+    }
+
+    @Override
+    public List<Task> listEpicTasks() {
+        return getSnapshot().listTasks(TypeTask.EPIC);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        BoardSnapshot snapshot = getSnapshot();
+        List<Task> history = new ArrayList<>();
+        for (Task task : historyManager.getHistory()) {
+            Task actual = snapshot.findTask(task.getId());
+            if (actual != null) {
+                history.add(actual);
+            }
+        }
+        return history;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return getSnapshot().getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return getSnapshot().getPrioritizedTasks(from, to);
+    }
+
+    @Override
+    public Iterator<Task> iteratePrioritized(LocalDateTime from, LocalDateTime to) {
+        return getSnapshot().iteratePrioritized(from, to);
+    }
+
+    @Override
+    public void createTask(Task task) {
+        synchronized (writeLock) {
+            Task copy = entry(task);
+            board.createTask(copy);
+            task.setId(copy.getId());
+            publish(affectedBy(copy));
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        synchronized (writeLock) {
+            Task copy = updateEntry(task);
+            board.updateTask(copy);
+            publish(affectedBy(copy));
+        }
+    }
+
+    // Пачка публикуется одной новой версией
+    @Override
+    public BatchResult createTasks(Collection<Task> tasks) {
+        synchronized (writeLock) {
+            List<Task> batch = new ArrayList<>(tasks);
+            BatchResult result = board.createTasks(entries(batch));
+            for (BatchResult.Item item : result.getItems()) {
+                if (item.isApplied()) batch.get(item.getIndex()).setId(item.getId());
+            }
+            publish(affectedBy(result));
+            return result;
+        }
+    }
+
+    @Override
+    public BatchResult updateTasks(Collection<Task> tasks) {
+        synchronized (writeLock) {
+            BatchResult result = board.updateTasks(entries(new ArrayList<>(tasks)));
+            publish(affectedBy(result));
+            return result;
+        }
+    }
+
+    // Транзакция публикуется одной новой версией, при ошибке версия не меняется
+    @Override
+    public void commit(TaskTransaction transaction) {
+        synchronized (writeLock) {
+            Set<Integer> affected = new HashSet<>();
+            for (TaskTransaction.Operation operation : transaction.getOperations()) {
+                if (operation.getAction() == TaskTransaction.Action.REMOVE) {
+                    affected.addAll(affectedByRemoval(operation.getId()));
+                }
+            }
+            TaskTransaction copy = new TaskTransaction(board);
+            for (TaskTransaction.Operation operation : transaction.getOperations()) {
+                switch (operation.getAction()) {
+                    case CREATE:
+                        copy.createTask(entry(operation.getTask()));
+                        break;
+                    case UPDATE:
+                        copy.updateTask(updateEntry(operation.getTask()));
+                        break;
+                    case REMOVE:
+                        copy.removeTask(operation.getId());
+                        break;
+                }
+            }
+            copy.commit();
+            List<TaskTransaction.Operation> applied = copy.getOperations();
+            for (int i = 0; i < applied.size(); i++) {
+                TaskTransaction.Operation operation = applied.get(i);
+                if (operation.getAction() == TaskTransaction.Action.REMOVE) continue;
+                transaction.getOperations().get(i).getTask().setId(operation.getId());
+                affected.addAll(affectedBy(operation.getTask()));
+            }
+            publish(affected);
+        }
+    }
+
+    @Override
+    public void removeTask(Integer id) {
+        synchronized (writeLock) {
+            Set<Integer> affected = affectedByRemoval(id);
+            board.removeTask(id);
+            publish(affected);
+        }
+    }
+
+    @Override
+    public void clearSingleTasks() {
+        synchronized (writeLock) {
+            board.clearSingleTasks();
+            publishAll();
+        }
+    }
+
+    @Override
+    public void clearEpicTasks() {
+        synchronized (writeLock) {
+            board.clearEpicTasks();
+            publishAll();
+        }
+    }
+
+    @Override
+    public void clearSubTasks() {
+        synchronized (writeLock) {
+            board.clearSubTasks();
+            publishAll();
+        }
+    }
+
+    /*
+     Копия задачи для рабочей доски: объект вызывающего (в том числе взятый из опубликованной версии)
+     не должен стать объектом доски, иначе дальнейшие изменения доски поменяют неизменяемую версию.
+     Эпик копируется без подзадач: доска сохраняет за ним свои подзадачи
+     */
+    private static Task entry(Task task) {
+        if (task == null || task.getTypeTask() != TypeTask.EPIC) {
+            return task == null ? null : task.copy();
+        }
+        EpicTask epicTask = new EpicTask(task.getName(), task.getDescription());
+        epicTask.setId(task.getId());
+        return epicTask;
+    }
+
+    // Изменение неизвестного id добавляет задачу, а в опубликованной версии ключ не может быть отрицательным:
+    // такой id отклоняется до изменения доски, чтобы доска и версия не разошлись
+    private static Task updateEntry(Task task) {
+        if (task.getId() < 0) throw new IllegalArgumentException("Неверный id задачи: " + task.getId());
+        return entry(task);
+    }
+
+    private static List<Task> entries(List<Task> tasks) {
+        List<Task> copies = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            copies.add(entry(task));
+        }
+        return copies;
+    }
+
+    // Просмотр списка записывает задачи в историю одной операцией
+    private List<Task> view(List<Task> tasks) {
+        historyManager.addAll(tasks);
+        return tasks;
+    }
+
+    // Изменение задачи меняет и её эпик: статус и время эпика считаются по подзадачам
+    private static Set<Integer> affectedBy(Task task) {
+        Set<Integer> affected = new HashSet<>();
+        affected.add(task.getId());
+        if (task.getTypeTask() == TypeTask.SUB) {
+            affected.add(((SubTask) task).getEpicId());
+        }
+        return affected;
+    }
+
+    // Удаление эпика удаляет и его подзадачи
+    private Set<Integer> affectedByRemoval(int id) {
+        Task task = board.peekTask(id);
+        Set<Integer> affected = new HashSet<>();
+        if (task != null) {
+            affected.addAll(affectedBy(task));
+            if (task.getTypeTask() == TypeTask.EPIC) {
+                ((EpicTask) task).getSubTasks().forEach(subTask -> affected.add(subTask.getId()));
+            }
+        }
+        return affected;
+    }
+
+    private Set<Integer> affectedBy(BatchResult result) {
+        Set<Integer> affected = new HashSet<>();
+        for (int id : result.getAppliedIds()) {
+            affected.addAll(affectedBy(board.peekTask(id)));
+        }
+        return affected;
+    }
+
+    // Новая версия с копиями затронутых задач из рабочей доски. Эпики публикуются после подзадач,
+    // чтобы ссылаться на их новые опубликованные объекты
+    private void publish(Set<Integer> ids) {
+        BoardSnapshot snapshot = current.get();
+        long nextVersion = snapshot.getVersion() + 1;
+        List<EpicTask> epics = new ArrayList<>();
+        for (int id : ids) {
+            Task task = board.peekTask(id);
+            if (task != null && task.getTypeTask() == TypeTask.EPIC) {
+                epics.add((EpicTask) task);
+                continue;
+            }
+            snapshot = snapshot.replace(snapshot.findTask(id), task == null ? null : task.copy(), nextVersion);
+        }
+        for (EpicTask epicTask : epics) {
+            Task published = publishedEpic(epicTask, snapshot::findTask);
+            snapshot = snapshot.replace(snapshot.findTask(epicTask.getId()), published, nextVersion);
+        }
+        current.set(snapshot);
+        servedVersion.get()[0] = nextVersion;
+    }
+
+    private void publishAll() {
+        long nextVersion = current.get().getVersion() + 1;
+        List<Task> tasks = new ArrayList<>();
+        Map<Integer, Task> subTasks = new HashMap<>();
+        for (Task task : board.peekTasks(TypeTask.SUB)) {
+            Task copy = task.copy();
+            subTasks.put(copy.getId(), copy);
+            tasks.add(copy);
+        }
+        board.peekTasks(TypeTask.REG).forEach(task -> tasks.add(task.copy()));
+        board.peekTasks(TypeTask.EPIC).forEach(task -> tasks.add(publishedEpic((EpicTask) task, subTasks::get)));
+        current.set(BoardSnapshot.of(tasks, nextVersion));
+        servedVersion.get()[0] = nextVersion;
+    }
+
+    // Копия эпика с уже опубликованными подзадачами вместо их новых копий
+    private static EpicTask publishedEpic(EpicTask epicTask, IntFunction<Task> publishedSubTask) {
+        List<SubTask> subTasks = new ArrayList<>(epicTask.getSubTaskCount());
+        for (SubTask subTask : epicTask.getSubTasks()) {
+            Task published = publishedSubTask.apply(subTask.getId());
+            subTasks.add(published == null ? subTask.copy() : (SubTask) published);
+        }
+        return epicTask.copyWith(subTasks);
+    }
+}
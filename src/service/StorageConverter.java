@@ -0,0 +1,56 @@
+package service;
+
+import model.Task;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Перевод файлов хранения задач между форматами CSV и BINARY
+public class StorageConverter {
+
+    private StorageConverter() {
+    }
+
+    public static void convert(Path source, StorageFormat sourceFormat, Path target, StorageFormat targetFormat) {
+        try {
+            List<Task> tasks = new ArrayList<>();
+            if (sourceFormat == StorageFormat.BINARY) {
+                BinaryTaskSnapshot.read(source).forEachRemaining(tasks::add);
+            } else {
+                try (TaskCsvReader reader = new TaskCsvReader(source)) {
+                    reader.forEachRemaining(tasks::add);
+                }
+            }
+            if (targetFormat == StorageFormat.BINARY) {
+                BinaryTaskSnapshot.write(target, tasks);
+            } else {
+                TaskCsvWriter.write(target, tasks);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка конвертации файла " + source + ": " + exception.getMessage());
+        }
+    }
+
+    public static void csvToBinary(Path csvPath, Path binaryPath) {
+        convert(csvPath, StorageFormat.CSV, binaryPath, StorageFormat.BINARY);
+    }
+
+    // Использование: StorageConverter <исходный файл> <файл результата>
+    // Формат исходного файла определяется по его содержимому, результат записывается в другом формате
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Использование: StorageConverter <исходный файл> <файл результата>");
+            return;
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        if (BinaryTaskSnapshot.isBinarySnapshot(source)) {
+            convert(source, StorageFormat.BINARY, target, StorageFormat.CSV);
+        } else {
+            convert(source, StorageFormat.CSV, target, StorageFormat.BINARY);
+        }
+    }
+}
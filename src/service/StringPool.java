@@ -0,0 +1,116 @@
+package service;
+
+import java.util.Arrays;
+
+/*
+ Общий пул строк со счётчиками ссылок: одинаковые названия и описания хранятся один раз, задача держит только
+ номер строки. Поиск строки - открытая адресация по хешу строки в int[] с номерами строк (0 - пустая ячейка,
+ иначе номер + 1), без объектов-узлов. Строка без ссылок удаляется из пула, а её номер занимает следующая новая строка
+ */
+final class StringPool {
+    static final int NULL_REF = -1; // Номер для null: такие строки в пуле не хранятся
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private String[] strings = new String[MIN_CAPACITY];
+    private int[] refCounts = new int[MIN_CAPACITY];
+    private int[] freeRefs = new int[MIN_CAPACITY]; // Стек освободившихся номеров
+    private int freeCount;
+    private int nextRef; // Номера от nextRef и дальше ещё не выдавались
+    private int size;
+
+    private int[] table = new int[MIN_CAPACITY];
+    private int shift = 32 - Integer.numberOfTrailingZeros(MIN_CAPACITY);
+
+    // Номер строки с учётом новой ссылки на неё
+    int acquire(String string) {
+        if (string == null) return NULL_REF;
+        int mask = table.length - 1;
+        int index = slot(string);
+        for (; table[index] != 0; index = (index + 1) & mask) {
+            int ref = table[index] - 1;
+            if (strings[ref].equals(string)) {
+                refCounts[ref]++;
+                return ref;
+            }
+        }
+        int ref = freeCount > 0 ? freeRefs[--freeCount] : newRef();
+        strings[ref] = string;
+        refCounts[ref] = 1;
+        table[index] = ref + 1;
+        if (++size > table.length * LOAD_FACTOR) {
+            resize(table.length * 2);
+        }
+        return ref;
+    }
+
+    String get(int ref) {
+        return ref == NULL_REF ? null : strings[ref];
+    }
+
+    // Снятие ссылки: строка без ссылок удаляется из пула
+    void release(int ref) {
+        if (ref == NULL_REF || --refCounts[ref] > 0) return;
+        int mask = table.length - 1;
+        int index = slot(strings[ref]);
+        while (table[index] != ref + 1) {
+            index = (index + 1) & mask;
+        }
+        shiftBack(index);
+        strings[ref] = null;
+        if (freeCount == freeRefs.length) {
+            freeRefs = Arrays.copyOf(freeRefs, freeRefs.length * 2);
+        }
+        freeRefs[freeCount++] = ref;
+        size--;
+    }
+
+    // Число разных строк в пуле
+    int size() {
+        return size;
+    }
+
+    private int newRef() {
+        if (nextRef == strings.length) {
+            strings = Arrays.copyOf(strings, strings.length * 2);
+            refCounts = Arrays.copyOf(refCounts, refCounts.length * 2);
+        }
+        return nextRef++;
+    }
+
+    // Удаление без надгробий, как в IntObjectMap
+    private void shiftBack(int free) {
+        int mask = table.length - 1;
+        int index = free;
+        while (true) {
+            index = (index + 1) & mask;
+            if (table[index] == 0) break;
+            int home = slot(strings[table[index] - 1]);
+            boolean reachable = free <= index ? free < home && home <= index : free < home || home <= index;
+            if (reachable) continue;
+            table[free] = table[index];
+            free = index;
+        }
+        table[free] = 0;
+    }
+
+    private int slot(String string) {
+        return (string.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    private void resize(int capacity) {
+        int[] oldTable = table;
+        table = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        for (int entry : oldTable) {
+            if (entry == 0) continue;
+            int index = slot(strings[entry - 1]);
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[index] = entry;
+        }
+    }
+}
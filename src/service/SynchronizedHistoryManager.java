@@ -0,0 +1,40 @@
+package service;
+
+import model.Task;
+
+import java.util.Collection;
+import java.util.List;
+
+// История просмотров с собственной блокировкой: просмотры из разных потоков не требуют блокировки всей доски
+public class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager historyManager;
+
+    public SynchronizedHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        historyManager.add(task);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        historyManager.remove(id);
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Integer> ids) {
+        historyManager.removeAll(ids);
+    }
+
+    @Override
+    public synchronized void addAll(List<Task> tasks) {
+        historyManager.addAll(tasks);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+}
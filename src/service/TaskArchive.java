@@ -0,0 +1,251 @@
+package service;
+
+import model.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+ Архив выполненных задач: файл только с дозаписью, каждый вызов append добавляет один сжатый блок
+ (длина исходных данных(int), длина сжатых данных(int), строки задач в формате CSV, сжатые Deflater).
+ Рядом лежит индекс <архив>.index из записей id(int) и смещение блока(long), смещение -1 означает,
+ что задача возвращена из архива. Индекс целиком загружается в память: в нём только id и смещения.
+ Эпик всегда архивируется в одном блоке со своими подзадачами.
+ */
+public class TaskArchive implements Closeable {
+    private static final String INDEX_SUFFIX = ".index";
+    private static final int BLOCK_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int INDEX_RECORD_SIZE = Integer.BYTES + Long.BYTES;
+    private static final long RESTORED = -1;
+
+    private final Path path;
+    private final FileChannel archive;
+    private final FileChannel index;
+    private final Map<Integer, Long> blockById = new HashMap<>(); // Смещение блока по id заархивированной задачи
+    private int maxId;
+
+    public TaskArchive(Path path) {
+        this.path = path;
+        try {
+            this.archive = FileChannel.open(path,
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE);
+            this.index = FileChannel.open(path.resolveSibling(path.getFileName() + INDEX_SUFFIX),
+                                          StandardOpenOption.CREATE,
+                                          StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE);
+            readIndex();
+            // Обрезанная при сбое последняя запись индекса отбрасывается, чтобы следующие записи не сместились
+            index.truncate(index.size() - index.size() % INDEX_RECORD_SIZE);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка открытия архива: " + exception.getMessage());
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return blockById.size();
+    }
+
+    public boolean contains(int id) {
+        return blockById.containsKey(id);
+    }
+
+    // Наибольший id, когда-либо попадавший в архив: id архивных задач не выдаются повторно
+    public int getMaxId() {
+        return maxId;
+    }
+
+    // Запись задач одним сжатым блоком. Блок сбрасывается на диск раньше индекса, который на него ссылается
+    public void append(List<Task> tasks) {
+        if (tasks.isEmpty()) return;
+        StringBuilder content = new StringBuilder();
+        for (Task task : tasks) {
+            content.append(task).append('\n');
+        }
+        byte[] raw = content.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = compress(raw);
+        long offset;
+        try {
+            offset = archive.size();
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + compressed.length);
+            block.putInt(raw.length).putInt(compressed.length).put(compressed).flip();
+            writeFully(archive, block, offset);
+            archive.force(false);
+
+            ByteBuffer records = ByteBuffer.allocate(tasks.size() * INDEX_RECORD_SIZE);
+            for (Task task : tasks) {
+                records.putInt(task.getId()).putLong(offset);
+            }
+            records.flip();
+            writeFully(index, records, index.size());
+            index.force(false);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка записи архива: " + exception.getMessage());
+        }
+        for (Task task : tasks) {
+            blockById.put(task.getId(), offset);
+            maxId = Math.max(maxId, task.getId());
+        }
+    }
+
+    /*
+     Задачи, которые нужно вернуть из архива вместе с задачей id: эпик возвращается со всеми подзадачами,
+     подзадача - вместе со своим эпиком. Пустой список, если задачи в архиве нет.
+     */
+    public List<Task> fetch(int id) {
+        Long offset = blockById.get(id);
+        if (offset == null) return List.of();
+        List<Task> block = readBlock(offset);
+        int epicId = id;
+        for (Task task : block) {
+            if (task.getId() == id && task.getTypeTask() == TypeTask.SUB) {
+                epicId = ((SubTask) task).getEpicId();
+            }
+        }
+        List<Task> group = new ArrayList<>();
+        for (Task task : block) {
+            // Задача могла быть возвращена и заархивирована заново в другом блоке
+            if (!offset.equals(blockById.get(task.getId()))) continue;
+            boolean member = task.getId() == id
+                             || task.getId() == epicId
+                             || task.getTypeTask() == TypeTask.SUB && ((SubTask) task).getEpicId() == epicId;
+            if (member) {
+                group.add(task);
+            }
+        }
+        return group;
+    }
+
+    // Отметка о возвращении задач из архива в рабочий набор
+    public void markRestored(List<Task> tasks) {
+        ByteBuffer records = ByteBuffer.allocate(tasks.size() * INDEX_RECORD_SIZE);
+        for (Task task : tasks) {
+            records.putInt(task.getId()).putLong(RESTORED);
+        }
+        records.flip();
+        try {
+            writeFully(index, records, index.size());
+            index.force(false);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка записи индекса архива: " + exception.getMessage());
+        }
+        for (Task task : tasks) {
+            blockById.remove(task.getId());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        archive.close();
+        index.close();
+    }
+
+    private void readIndex() throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(
+                path.resolveSibling(path.getFileName() + INDEX_SUFFIX))))) {
+            while (true) {
+                int id;
+                long offset;
+                try {
+                    id = input.readInt();
+                    offset = input.readLong();
+                } catch (EOFException exception) {
+                    break;
+                }
+                maxId = Math.max(maxId, id);
+                if (offset == RESTORED) {
+                    blockById.remove(id);
+                } else {
+                    blockById.put(id, offset);
+                }
+            }
+        }
+    }
+
+    private List<Task> readBlock(long offset) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            readFully(header, offset);
+            int rawLength = header.getInt(0);
+            ByteBuffer compressed = ByteBuffer.allocate(header.getInt(Integer.BYTES));
+            readFully(compressed, offset + BLOCK_HEADER_SIZE);
+            byte[] raw = decompress(compressed.array(), rawLength);
+            List<Task> tasks = new ArrayList<>();
+            for (String line : new String(raw, StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isEmpty()) {
+                    tasks.add(TaskCsvReader.parseTask(line));
+                }
+            }
+            return tasks;
+        } catch (IOException | DataFormatException exception) {
+            throw new ManagerSaveException("Ошибка чтения архива: " + exception.getMessage());
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (archive.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Блок архива обрезан");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] compressed, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                length += inflater.inflate(raw, length, rawLength - length);
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+}
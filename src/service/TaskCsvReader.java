@@ -0,0 +1,124 @@
+package service;
+
+import model.*;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ Потоковое чтение задач из CSV файла менеджера: в памяти одновременно находится только текущая строка.
+ Поля разбираются по позициям разделителей без String.split, числа и даты - без промежуточных строк.
+ */
+public class TaskCsvReader implements Iterator<Task>, Closeable {
+    private static final int MAX_FIELDS = 8;
+
+    private final BufferedReader reader;
+    private final int[] separators = new int[MAX_FIELDS];
+    private Task nextTask;
+
+    public TaskCsvReader(Path path) throws IOException {
+        this(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    // Чтение задач с текущей позиции потока: следующая строка должна быть заголовком CSV
+    public TaskCsvReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        this.reader.readLine(); // Заголовок
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextTask != null) return true;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Строки, начинающиеся с '#', служебные (контрольные суммы, заголовки сегментов)
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    nextTask = parseTask(line, separators);
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public Task next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Task task = nextTask;
+        nextTask = null;
+        return task;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    public static Task parseTask(String line) {
+        return parseTask(line, new int[MAX_FIELDS]);
+    }
+
+    // separators[i] - позиция запятой, завершающей поле i (или конец строки)
+    private static Task parseTask(String line, int[] separators) {
+        int fields = 0;
+        int position = -1;
+        while (fields < MAX_FIELDS) {
+            position = line.indexOf(',', position + 1);
+            if (position < 0) {
+                separators[fields++] = line.length();
+                break;
+            }
+            separators[fields++] = position;
+        }
+        if (fields < 5) throw new IllegalArgumentException("Недостаточно полей в строке: " + line);
+
+        int id = Integer.parseInt(line, 0, separators[0], 10);
+        TypeTask typeTask = parseEnum(TypeTask.values(), line, separators[0] + 1, separators[1]);
+        String name = line.substring(separators[1] + 1, separators[2]);
+        StatusTask statusTask = parseEnum(StatusTask.values(), line, separators[2] + 1, separators[3]);
+        String description = line.substring(separators[3] + 1, separators[4]);
+        LocalDateTime startTime;
+        int duration;
+        switch (typeTask) {
+            case REG:
+                startTime = DateTimeFormat.parse(line, separators[4] + 1);
+                duration = Integer.parseInt(line, separators[5] + 1, separators[6], 10);
+                SingleTask singleTask = new SingleTask(name, description, statusTask, startTime, duration);
+                singleTask.setId(id);
+                return singleTask;
+            case SUB:
+                startTime = DateTimeFormat.parse(line, separators[4] + 1);
+                duration = Integer.parseInt(line, separators[5] + 1, separators[6], 10);
+                int epicId = Integer.parseInt(line, separators[6] + 1, separators[7], 10);
+                SubTask subTask = new SubTask(name, description, startTime, duration, epicId, statusTask);
+                subTask.setId(id);
+                return subTask;
+            default:
+                EpicTask epicTask = new EpicTask(name, description);
+                epicTask.setStatus(statusTask);
+                epicTask.setId(id);
+                return epicTask;
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(E[] values, String line, int from, int to) {
+        for (E value : values) {
+            String valueName = value.name();
+            if (valueName.length() == to - from && line.regionMatches(from, valueName, 0, valueName.length())) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + line.substring(from, to));
+    }
+}
@@ -0,0 +1,31 @@
+package service;
+
+import model.Task;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class TaskCsvWriter {
+    public static final String TITLE = "id,type,name,status,description,startTime,duration,epic";
+
+    private TaskCsvWriter() {
+    }
+
+    // Атомарная запись снимка с контрольными суммами, прежний файл остаётся предыдущим поколением
+    public static void write(Path path, Iterable<Task> tasks) throws IOException {
+        AtomicFiles.writeKeepingPrevious(path, output -> {
+            SnapshotChecksums.CsvOutput csvOutput = new SnapshotChecksums.CsvOutput(output);
+            write(csvOutput, tasks);
+            csvOutput.finish();
+        });
+    }
+
+    // Запись заголовка и задач в уже открытый поток, блок с заголовком сразу закрывается суммой
+    public static void write(SnapshotChecksums.CsvOutput output, Iterable<Task> tasks) throws IOException {
+        output.writeLine(TITLE);
+        output.writeChecksum();
+        for (Task task : tasks) {
+            output.writeLine(task.toString());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package service;
+
+import model.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/*
+ Файл индексов рядом со снимком задач: порядок истории просмотров и отсортированный индекс приоритетов
+ в виде списков id. Позволяет при загрузке не строить индекс приоритетов поштучными вставками и сохранить историю.
+ Формат: MAGIC(int), VERSION(short), зарезервировано(short), размер истории(int), размер индекса приоритетов(int),
+ id истории от старых к новым, id по приоритету, суммы CRC32C блоков (см. SnapshotChecksums).
+ */
+public class TaskIndexFile {
+    public static final int MAGIC = 0x544D4958; // "TMIX"
+    public static final short VERSION = 1;
+    private static final String INDEX_SUFFIX = ".index";
+    private static final int HEADER_SIZE = 16;
+
+    private final int[] history;
+    private final int[] prioritized;
+
+    private TaskIndexFile(int[] history, int[] prioritized) {
+        this.history = history;
+        this.prioritized = prioritized;
+    }
+
+    public static Path indexPath(Path snapshotPath) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + INDEX_SUFFIX);
+    }
+
+    public int[] getHistory() {
+        return history;
+    }
+
+    public int[] getPrioritized() {
+        return prioritized;
+    }
+
+    public static void write(Path path, List<Task> history, List<Task> prioritized) throws IOException {
+        AtomicFiles.write(path, file -> {
+            SnapshotChecksums.BlockOutputStream blocks = new SnapshotChecksums.BlockOutputStream(file);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(blocks));
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeShort(0);
+            output.writeInt(history.size());
+            output.writeInt(prioritized.size());
+            for (Task task : history) {
+                output.writeInt(task.getId());
+            }
+            for (Task task : prioritized) {
+                output.writeInt(task.getId());
+            }
+            output.flush();
+            blocks.finish();
+        });
+    }
+
+    // Чтение индексов, null если файла нет или он повреждён - тогда индексы строятся заново
+    public static TaskIndexFile read(Path path) throws IOException {
+        if (Files.notExists(path)) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) return null;
+        if (!SnapshotChecksums.validateBlocks(buffer)) return null;
+        buffer.position(8);
+        int[] history = new int[buffer.getInt()];
+        int[] prioritized = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(history);
+        buffer.position(HEADER_SIZE + history.length * Integer.BYTES);
+        buffer.asIntBuffer().get(prioritized);
+        return new TaskIndexFile(history, prioritized);
+    }
+}
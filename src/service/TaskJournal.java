@@ -0,0 +1,173 @@
+package service;
+
+import model.Task;
+import model.TypeTask;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/*
+ Формат журнала изменений и его проигрывание, общие для менеджеров, которые дописывают изменения в журнал
+ между полными записями снимка. Одна строка - одна запись вида <CRC32C записи в hex>,<запись>:
+ PUT,<задача в CSV> - задача создана или изменена, DEL,<id> - удалена, CLR,<тип> - очищен тип,
+ TX,<n> - следующие n записей относятся к одной транзакции.
+ Записи проигрываются в обход проверок: журнал может содержать записи, уже попавшие в более новый снимок
+ (сбой между записью снимка и очисткой журнала), и их повтор не должен останавливать загрузку.
+ Сбой посреди записи (ожидаемый случай для отложенной записи) оставляет в конце обрезанную строку: проигрывание
+ останавливается на первой строке без перевода строки или с неверной суммой, а журнал обрезается до последней
+ целой записи, чтобы новые записи не оказались за испорченным хвостом
+ */
+final class TaskJournal {
+    static final String SUFFIX = ".journal";
+    private static final String RECORD_PUT = "PUT";
+    private static final String RECORD_DELETE = "DEL";
+    private static final String RECORD_CLEAR = "CLR";
+    private static final String RECORD_TRANSACTION = "TX";
+
+    private TaskJournal() {
+    }
+
+    static Path journalPath(Path path) {
+        return path.resolveSibling(path.getFileName() + SUFFIX);
+    }
+
+    static String put(Task task) {
+        return checked(RECORD_PUT + "," + task);
+    }
+
+    static String delete(int id) {
+        return checked(RECORD_DELETE + "," + id);
+    }
+
+    static String clear(TypeTask typeTask) {
+        return checked(RECORD_CLEAR + "," + typeTask);
+    }
+
+    static List<String> puts(List<Task> tasks) {
+        List<String> records = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            records.add(put(task));
+        }
+        return records;
+    }
+
+    // Транзакция - заголовок с числом записей и записи всех её изменений.
+    // При загрузке транзакция без всех своих записей отбрасывается целиком
+    static List<String> transaction(TaskTransaction transaction) {
+        List<TaskTransaction.Operation> operations = transaction.getOperations();
+        List<String> records = new ArrayList<>(operations.size() + 1);
+        records.add(checked(RECORD_TRANSACTION + "," + operations.size()));
+        for (TaskTransaction.Operation operation : operations) {
+            if (operation.getAction() == TaskTransaction.Action.REMOVE) {
+                records.add(delete(operation.getId()));
+            } else {
+                records.add(put(operation.getTask()));
+            }
+        }
+        return records;
+    }
+
+    // Проигрывание журнала поверх загруженного снимка, возвращает число прочитанных записей
+    static int replay(Path journalPath, InMemoryTaskManager taskManager) {
+        if (Files.notExists(journalPath)) return 0;
+        int records = 0;
+        int countID = taskManager.getLastId();
+        try {
+            byte[] journal = Files.readAllBytes(journalPath);
+            int position = 0; // Конец последней целой записи или транзакции
+            int lineStart = 0;
+            while (true) {
+                String record = nextRecord(journal, lineStart);
+                if (record == null) break;
+                lineStart = nextLine(journal, lineStart);
+                if (record.startsWith(RECORD_TRANSACTION + ",")) {
+                    int count = Integer.parseInt(record.substring(RECORD_TRANSACTION.length() + 1));
+                    List<String> group = new ArrayList<>(count);
+                    String member;
+                    while (group.size() < count && (member = nextRecord(journal, lineStart)) != null) {
+                        group.add(member);
+                        lineStart = nextLine(journal, lineStart);
+                    }
+                    // Транзакция, записанная не до конца (сбой во время записи), не применяется
+                    if (group.size() < count) break;
+                    for (String groupRecord : group) {
+                        countID = Math.max(countID, replayRecord(groupRecord, taskManager));
+                    }
+                    records += count + 1;
+                } else {
+                    countID = Math.max(countID, replayRecord(record, taskManager));
+                    records++;
+                }
+                position = lineStart;
+            }
+            if (position < journal.length) {
+                try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(position);
+                    channel.force(false);
+                }
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка чтения журнала: " + exception.getMessage());
+        }
+        taskManager.setNextFreeId(countID);
+        return records;
+    }
+
+    private static String checked(String record) {
+        return checksum(record) + "," + record;
+    }
+
+    private static String checksum(String record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    // Запись строки, начинающейся с from, или null, если строка обрезана или сумма не сходится
+    private static String nextRecord(byte[] journal, int from) {
+        int end = nextLine(journal, from) - 1;
+        if (end < from || journal[end] != '\n') return null;
+        String line = new String(journal, from, end - from, StandardCharsets.UTF_8);
+        int separator = line.indexOf(',');
+        if (separator < 0) return null;
+        String record = line.substring(separator + 1);
+        return line.substring(0, separator).equals(checksum(record)) ? record : null;
+    }
+
+    // Начало следующей строки: позиция после перевода строки или конец журнала
+    private static int nextLine(byte[] journal, int from) {
+        int position = from;
+        while (position < journal.length && journal[position] != '\n') {
+            position++;
+        }
+        return position < journal.length ? position + 1 : position;
+    }
+
+    // Применение одной записи журнала, возвращает id записанной задачи или 0
+    private static int replayRecord(String line, InMemoryTaskManager taskManager) {
+        int separator = line.indexOf(',');
+        String record = line.substring(0, separator);
+        String value = line.substring(separator + 1);
+        switch (record) {
+            case RECORD_PUT:
+                Task task = TaskCsvReader.parseTask(value);
+                taskManager.restoreTask(task);
+                return task.getId();
+            case RECORD_DELETE:
+                taskManager.discardTask(Integer.parseInt(value));
+                return 0;
+            case RECORD_CLEAR:
+                taskManager.discardTasks(TypeTask.valueOf(value));
+                return 0;
+            default:
+                return 0;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package service;
 
 import model.*;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 public interface TaskManager {
@@ -20,14 +23,47 @@ public interface TaskManager {
 
     List<Task> getEpicTasks();
 
+    // Чтение без записи в историю просмотров: списки для выгрузок, сохранений и массовых операций
+    Task findTask(int id);
+
+    List<Task> listSingleTasks();
+
+    List<Task> listSubTasks();
+
+    List<Task> listEpicTasks();
+
+    // Явная отметка о просмотре задачи, getTaskById = findTask + markViewed
+    void markViewed(int id);
+
     void removeTask(Integer id);
 
     void createTask(Task task);
 
     void updateTask(Task task);
 
+    // Пакетное создание: пересечения проверяются для всей пачки сразу, каждый эпик пересчитывается один раз.
+    // Задачи, которые нельзя применить, пропускаются, результат по каждой задаче - в BatchResult
+    BatchResult createTasks(Collection<Task> tasks);
+
+    // Пакетное изменение существующих задач по тем же правилам
+    BatchResult updateTasks(Collection<Task> tasks);
+
+    // Транзакция: изменения копятся в TaskTransaction и применяются при её commit все вместе или ни одно
+    default TaskTransaction beginTransaction() {
+        return new TaskTransaction(this);
+    }
+
+    // Применение всех изменений транзакции. При ошибке доска остаётся как до транзакции, исключение пробрасывается
+    void commit(TaskTransaction transaction) throws TaskTimeOverlapException, NotFoundException;
+
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
 
+    // Задачи с началом в интервале [from, to) по приоритету, null - граница не задана
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    // То же без копирования: ленивый обход индекса приоритетов
+    Iterator<Task> iteratePrioritized(LocalDateTime from, LocalDateTime to);
+
 }
\ No newline at end of file
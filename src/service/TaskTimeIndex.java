@@ -0,0 +1,174 @@
+package service;
+
+import model.DateTimeFormat;
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+/*
+ Индекс интервалов времени задач для проверки пересечений за O(log n).
+ Декартово дерево (treap) по ключу (начало, id), в каждом узле хранится наибольший конец интервала в поддереве.
+ Интервалы полуоткрытые [начало, конец): задачи, которые только касаются границами, не пересекаются.
+ Совпадающий по началу и концу интервал пересечением не считается.
+ Границы хранятся минутами, поэтому проверка не создаёт объектов.
+ */
+public class TaskTimeIndex {
+    private final Random random = new Random();
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public void add(Task task) {
+        root = insert(root, new Node(task, random.nextInt()));
+        size++;
+    }
+
+    public boolean remove(Task task) {
+        int sizeBefore = size;
+        root = delete(root, task.getStartMinute(), task.getId());
+        return size < sizeBefore;
+    }
+
+    // Построение индекса из задач, отсортированных по (начало, id), за O(n)
+    public void addAllSorted(List<Task> tasks) {
+        clear();
+        Node[] stack = new Node[tasks.size()];
+        int depth = 0;
+        for (Task task : tasks) {
+            Node node = new Node(task, random.nextInt());
+            Node last = null;
+            while (depth > 0 && stack[depth - 1].priority < node.priority) {
+                last = stack[--depth];
+                update(last);
+            }
+            node.left = last;
+            if (depth > 0) {
+                stack[depth - 1].right = node;
+            }
+            stack[depth++] = node;
+        }
+        while (depth > 0) {
+            update(stack[--depth]);
+        }
+        root = tasks.isEmpty() ? null : stack[0];
+        size = tasks.size();
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return overlaps(DateTimeFormat.toEpochMinute(start), DateTimeFormat.toEpochMinute(end));
+    }
+
+    // Есть ли задача, пересекающая интервал [start, end) в минутах
+    public boolean overlaps(long start, long end) {
+        return overlaps(root, start, end);
+    }
+
+    private static boolean overlaps(Node node, long start, long end) {
+        if (node == null || node.maxEnd <= start) return false;
+        if (overlaps(node.left, start, end)) return true;
+        // У узла и всего правого поддерева начало не раньше конца интервала
+        if (node.start >= end) return false;
+        boolean identical = node.start == start && node.end == end;
+        if (node.end > start && !identical) return true;
+        return overlaps(node.right, start, end);
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node delete(Node node, long start, int id) {
+        if (node == null) return null;
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) maxEnd = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd > maxEnd) maxEnd = node.right.maxEnd;
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int comparison = Long.compare(start, node.start);
+        return comparison != 0 ? comparison : Integer.compare(id, node.id);
+    }
+
+    private static class Node {
+        private final long start;
+        private final long end;
+        private final int id;
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(Task task, int priority) {
+            this.start = task.getStartMinute();
+            this.end = task.getEndMinute();
+            this.id = task.getId();
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+}
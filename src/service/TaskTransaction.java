@@ -0,0 +1,103 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ Транзакция менеджера задач: создания, изменения и удаления копятся в порядке вызова и применяются при commit
+ все вместе или ни одно. Если какое-то изменение не проходит (пересечение по времени, нет задачи или эпика),
+ commit возвращает доску в состояние до транзакции и бросает исключение этого изменения.
+ Изменения применяются только при commit, поэтому подзадача может ссылаться только на уже существующий эпик.
+ Откатить можно только изменение, переданное новым объектом задачи: объект, который уже хранится в менеджере
+ и изменён на месте, прежнего состояния не помнит
+ */
+public class TaskTransaction {
+
+    public enum Action {
+        CREATE,
+        UPDATE,
+        REMOVE
+    }
+
+    public static class Operation {
+        private final Action action;
+        private final Task task; // null для удаления
+        private final int id;
+
+        private Operation(Action action, Task task, int id) {
+            this.action = action;
+            this.task = task;
+            this.id = id;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        // id задачи: для создания известен только после commit
+        public int getId() {
+            return task == null ? id : task.getId();
+        }
+    }
+
+    private final TaskManager taskManager;
+    private final List<Operation> operations = new ArrayList<>();
+    private boolean finished;
+
+    public TaskTransaction(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    public TaskTransaction createTask(Task task) {
+        return add(new Operation(Action.CREATE, requireTask(task), 0));
+    }
+
+    public TaskTransaction updateTask(Task task) {
+        return add(new Operation(Action.UPDATE, requireTask(task), 0));
+    }
+
+    public TaskTransaction removeTask(int id) {
+        return add(new Operation(Action.REMOVE, null, id));
+    }
+
+    public List<Operation> getOperations() {
+        return List.copyOf(operations);
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    // Транзакция завершается и при ошибке применения: доска в этом случае не меняется
+    public void commit() throws TaskTimeOverlapException, NotFoundException {
+        finish();
+        taskManager.commit(this);
+    }
+
+    public void rollback() {
+        finish();
+        operations.clear();
+    }
+
+    private TaskTransaction add(Operation operation) {
+        if (finished) throw new IllegalStateException("Транзакция уже завершена");
+        operations.add(operation);
+        return this;
+    }
+
+    private void finish() {
+        if (finished) throw new IllegalStateException("Транзакция уже завершена");
+        finished = true;
+    }
+
+    private static Task requireTask(Task task) {
+        if (task == null) throw new IllegalArgumentException("Пустая задача");
+        return task;
+    }
+}
@@ -0,0 +1,11 @@
+package service;
+
+// Менеджер, который публикует доску версиями: ответ можно пометить версией, из которой он построен
+public interface VersionedTaskManager extends TaskManager {
+
+    // Последняя опубликованная версия доски
+    long getVersion();
+
+    // Версия, из которой текущий поток последний раз читал или которую опубликовал своим изменением
+    long getServedVersion();
+}
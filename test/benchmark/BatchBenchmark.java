@@ -0,0 +1,85 @@
+package benchmark;
+
+import model.EpicTask;
+import model.SubTask;
+import model.Task;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Замер загрузки пачки задач импортом: поштучный createTask против одного createTasks
+public class BatchBenchmark {
+    private static final int[] SIZES = {1_000, 5_000};
+    private static final int SUB_TASKS_PER_EPIC = 100;
+    private static final int IN_MEMORY_REPEATS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("BatchBenchmark", ".csv");
+        try {
+            // Прогрев JIT
+            for (int i = 0; i < 10; i++) {
+                measure(new InMemoryTaskManager(), SIZES[1], false);
+                measure(new InMemoryTaskManager(), SIZES[1], true);
+            }
+
+            System.out.println("задач   в памяти по одной, мс   в памяти пачкой, мс   с файлом по одной, мс   с файлом пачкой, мс");
+            for (int size : SIZES) {
+                double inMemorySingle = Double.MAX_VALUE;
+                double inMemoryBatch = Double.MAX_VALUE;
+                // В памяти замер короткий: берётся лучший из нескольких
+                for (int i = 0; i < IN_MEMORY_REPEATS; i++) {
+                    inMemorySingle = Math.min(inMemorySingle, measure(new InMemoryTaskManager(), size, false));
+                    inMemoryBatch = Math.min(inMemoryBatch, measure(new InMemoryTaskManager(), size, true));
+                }
+                Files.deleteIfExists(file);
+                double fileSingle = measure(new FileBackedTaskManager(file), size, false);
+                Files.deleteIfExists(file);
+                double fileBatch = measure(new FileBackedTaskManager(file), size, true);
+                System.out.printf("%-7d %23.1f %21.1f %23.1f %21.1f%n",
+                                  size, inMemorySingle, inMemoryBatch, fileSingle, fileBatch);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".prev"));
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".index"));
+        }
+    }
+
+    // Эпики создаются заранее, замеряется загрузка подзадач: половина со временем, каждая десятая пересекается
+    private static double measure(InMemoryTaskManager taskManager, int size, boolean batch) {
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < size / SUB_TASKS_PER_EPIC; i++) {
+            EpicTask epicTask = new EpicTask("Epic" + i, "Epic " + i);
+            taskManager.createTask(epicTask);
+            epicIds.add(epicTask.getId());
+        }
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int epicId = epicIds.get(i / SUB_TASKS_PER_EPIC);
+            int duration = i % 10 == 0 ? 45 : 15;
+            tasks.add(i % 2 == 0
+                      ? new SubTask("SubTask" + i, "Subtask " + i, startTime.plusMinutes(i * 30L), duration, epicId)
+                      : new SubTask("SubTask" + i, "Subtask " + i, epicId));
+        }
+        long startNanos = System.nanoTime();
+        if (batch) {
+            taskManager.createTasks(tasks);
+        } else {
+            for (Task task : tasks) {
+                try {
+                    taskManager.createTask(task);
+                } catch (RuntimeException ignored) {
+                    // Пересечения пропускаются, как и в пачке
+                }
+            }
+        }
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import model.EpicTask;
+import model.SubTask;
+import model.Task;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+import service.TaskCsvWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Замер очистки подзадач (DELETE /subtasks): пачкой из всех индексов, с одним пересчётом эпика и одним сохранением
+public class ClearBenchmark {
+    private static final int[] SIZES = {10_000, 100_000};
+    private static final int SUB_TASKS_PER_EPIC = 1_000;
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("ClearBenchmark", ".csv");
+        try {
+            // Прогрев JIT
+            measure(new InMemoryTaskManager(), SIZES[0]);
+
+            System.out.println("подзадач    в памяти, мс   с файлом, мс");
+            for (int size : SIZES) {
+                double inMemoryMillis = measure(new InMemoryTaskManager(), size);
+                double fileMillis = measure(file, size);
+                System.out.printf("%-10d %13.1f %14.1f%n", size, inMemoryMillis, fileMillis);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".prev"));
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".index"));
+        }
+    }
+
+    // Время очистки подзадач в памяти в миллисекундах
+    private static double measure(InMemoryTaskManager taskManager, int size) {
+        fill(taskManager, size);
+        return clearSubTasks(taskManager);
+    }
+
+    // Доска с файлом собирается в памяти и загружается из снимка: поштучное создание сохраняло бы файл на каждую задачу
+    private static double measure(Path file, int size) throws IOException {
+        InMemoryTaskManager board = new InMemoryTaskManager();
+        fill(board, size);
+        List<Task> tasks = new ArrayList<>(board.listEpicTasks());
+        tasks.addAll(board.listSubTasks());
+        TaskCsvWriter.write(file, tasks);
+        FileBackedTaskManager taskManager = FileBackedTaskManager.loadFromFile(file);
+        for (Task task : taskManager.listSubTasks()) {
+            if (task.getId() % 2 == 0) {
+                taskManager.markViewed(task.getId());
+            }
+        }
+        return clearSubTasks(taskManager);
+    }
+
+    // Половина подзадач со временем и в истории просмотров
+    private static void fill(InMemoryTaskManager taskManager, int size) {
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        EpicTask epicTask = null;
+        for (int i = 0; i < size; i++) {
+            if (i % SUB_TASKS_PER_EPIC == 0) {
+                epicTask = new EpicTask("Epic" + i, "Epic " + i);
+                taskManager.createTask(epicTask);
+            }
+            SubTask subTask = i % 2 == 0
+                              ? new SubTask("SubTask" + i, "Subtask " + i, startTime.plusMinutes(i * 30L), 15, epicTask.getId())
+                              : new SubTask("SubTask" + i, "Subtask " + i, epicTask.getId());
+            taskManager.createTask(subTask);
+            if (i % 2 == 0) {
+                taskManager.markViewed(subTask.getId());
+            }
+        }
+    }
+
+    private static double clearSubTasks(InMemoryTaskManager taskManager) {
+        long startNanos = System.nanoTime();
+        taskManager.clearSubTasks();
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
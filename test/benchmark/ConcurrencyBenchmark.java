@@ -0,0 +1,135 @@
+package benchmark;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.SubTask;
+import model.Task;
+import service.ConcurrentTaskManager;
+import service.InMemoryTaskManager;
+import service.NotFoundException;
+import service.SnapshotTaskManager;
+import service.TaskManager;
+import service.TaskTimeOverlapException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Пропускная способность ConcurrentTaskManager при 1-32 потоках: 95% чтений (поиск по id, окно приоритетов,
+ список эпиков) и 5% изменений. Для сравнения - InMemoryTaskManager за одной общей блокировкой
+ и SnapshotTaskManager с чтением без блокировок.
+ */
+public class ConcurrencyBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int TASKS = 50_000;
+    private static final int EPICS = 100;
+    private static final long MEASURE_MILLIS = 2_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws InterruptedException {
+        // Прогрев JIT
+        measure(fill(new ConcurrentTaskManager()), 4);
+        measure(fill(new CoarseLockedBoard()), 4);
+        measure(fill(new SnapshotTaskManager()), 4);
+
+        System.out.println("потоков   StampedLock, оп/с   общая блокировка, оп/с   версии доски, оп/с");
+        for (int threads : THREADS) {
+            long concurrent = measure(fill(new ConcurrentTaskManager()), threads);
+            long coarse = measure(fill(new CoarseLockedBoard()), threads);
+            long snapshot = measure(fill(new SnapshotTaskManager()), threads);
+            System.out.printf("%-8d %19d %24d %20d%n", threads, concurrent, coarse, snapshot);
+        }
+    }
+
+    private static TaskManager fill(TaskManager taskManager) {
+        for (int i = 0; i < EPICS; i++) {
+            taskManager.createTask(new EpicTask("Epic" + i, "Epic " + i));
+        }
+        for (int i = 0; i < TASKS; i++) {
+            if (i % 2 == 0) {
+                taskManager.createTask(new SingleTask("Task" + i, "Task " + i, START.plusMinutes(i * 30L), 15));
+            } else {
+                taskManager.createTask(new SubTask("SubTask" + i, "Subtask " + i, START.plusMinutes(i * 30L), 15, 1 + i % EPICS));
+            }
+        }
+        return taskManager;
+    }
+
+    // Число операций в секунду
+    private static long measure(TaskManager taskManager, int threads) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    runOperation(taskManager, random);
+                    count++;
+                }
+                operations.add(count);
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+        return operations.sum() * 1_000 / MEASURE_MILLIS;
+    }
+
+    private static void runOperation(TaskManager taskManager, ThreadLocalRandom random) {
+        int operation = random.nextInt(100);
+        int id = 1 + random.nextInt(EPICS + TASKS);
+        try {
+            if (operation < 60) {
+                taskManager.findTask(id);
+            } else if (operation < 85) {
+                LocalDateTime from = START.plusMinutes(random.nextInt(TASKS) * 30L);
+                taskManager.getPrioritizedTasks(from, from.plusHours(5));
+            } else if (operation < 95) {
+                taskManager.listEpicTasks();
+            } else {
+                // Перенос задачи на тот же слот: изменение без роста доски
+                Task task = taskManager.findTask(id);
+                if (task instanceof SingleTask) {
+                    SingleTask moved = new SingleTask(task.getName(), task.getDescription(), task.getStartTime(), 15);
+                    moved.setId(id);
+                    taskManager.updateTask(moved);
+                }
+            }
+        } catch (NotFoundException | TaskTimeOverlapException ignored) {
+        }
+    }
+
+    // InMemoryTaskManager, в котором каждая операция выполняется под одной общей блокировкой
+    private static class CoarseLockedBoard extends InMemoryTaskManager {
+        @Override
+        public synchronized Task findTask(int id) {
+            return super.findTask(id);
+        }
+
+        @Override
+        public synchronized List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+            return super.getPrioritizedTasks(from, to);
+        }
+
+        @Override
+        public synchronized List<Task> listEpicTasks() {
+            return super.listEpicTasks();
+        }
+
+        @Override
+        public synchronized void updateTask(Task task) {
+            super.updateTask(task);
+        }
+
+        @Override
+        public synchronized void createTask(Task task) {
+            super.createTask(task);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.SubTask;
+import service.InMemoryTaskManager;
+
+import java.util.function.Supplier;
+
+// Замер выдачи списков задач: get*Tasks записывает каждую задачу в историю просмотров, list*Tasks - нет.
+// Разница - цена перестановок в связном списке истории и вставок в её хеш-таблицу на каждую выданную задачу.
+public class ListingBenchmark {
+    private static final int SINGLE_TASKS = 100_000;
+    private static final int EPICS = 1_000;
+    private static final int SUB_TASKS_PER_EPIC = 100;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        InMemoryTaskManager taskManager = createBoard();
+
+        // Прогрев JIT
+        measure(taskManager::getSubTasks, 3);
+        measure(taskManager::listSubTasks, 3);
+
+        System.out.println("список          get*, мс   list*, мс   ускорение");
+        report("обычные задачи", measure(taskManager::getSingleTasks, ROUNDS), measure(taskManager::listSingleTasks, ROUNDS));
+        report("эпики", measure(taskManager::getEpicTasks, ROUNDS), measure(taskManager::listEpicTasks, ROUNDS));
+        report("подзадачи", measure(taskManager::getSubTasks, ROUNDS), measure(taskManager::listSubTasks, ROUNDS));
+    }
+
+    private static InMemoryTaskManager createBoard() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        for (int i = 0; i < SINGLE_TASKS; i++) {
+            taskManager.createTask(new SingleTask("Task" + i, "Task " + i));
+        }
+        for (int i = 0; i < EPICS; i++) {
+            EpicTask epicTask = new EpicTask("Epic" + i, "Epic " + i);
+            taskManager.createTask(epicTask);
+            for (int j = 0; j < SUB_TASKS_PER_EPIC; j++) {
+                taskManager.createTask(new SubTask("SubTask" + j, "Subtask " + j, epicTask.getId()));
+            }
+        }
+        return taskManager;
+    }
+
+    // Среднее время одного вызова в миллисекундах
+    private static double measure(Supplier<?> listing, int rounds) {
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            listing.get();
+        }
+        return (System.nanoTime() - startNanos) / 1_000_000.0 / rounds;
+    }
+
+    private static void report(String name, double getMillis, double listMillis) {
+        System.out.printf("%-15s %9.2f %11.2f %10.1fx%n", name, getMillis, listMillis, getMillis / listMillis);
+    }
+}
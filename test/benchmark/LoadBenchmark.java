@@ -0,0 +1,103 @@
+package benchmark;
+
+import service.AtomicFiles;
+import service.FileBackedTaskManager;
+import service.LoadStatistics;
+import service.StorageConverter;
+import service.StorageFormat;
+import service.TaskIndexFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static model.DateTimeFormat.DATE_TIME_FORMAT;
+
+// Замер времени загрузки FileBackedTaskManager.loadFromFile в зависимости от размера и формата файла.
+// При линейной загрузке время на одну задачу не должно расти вместе с размером файла.
+// Колонка "проверка" - доля времени на проверку контрольных сумм снимка.
+public class LoadBenchmark {
+    private static final int[] SIZES = {25_000, 50_000, 100_000, 200_000};
+    private static final int SUBTASKS_PER_EPIC = 10;
+
+    public static void main(String[] args) throws IOException {
+        Path boardFile = Files.createTempFile("LoadBenchmark", ".board");
+        Path file = Files.createTempFile("LoadBenchmark", ".csv");
+        Path binaryFile = Files.createTempFile("LoadBenchmark", ".bin");
+        try {
+            // Прогрев JIT
+            writeBoard(boardFile, SIZES[0]);
+            StorageConverter.convert(boardFile, StorageFormat.CSV, file, StorageFormat.CSV);
+            for (int i = 0; i < 3; i++) {
+                FileBackedTaskManager.loadFromFile(file);
+            }
+
+            System.out.println("формат  задач       мс      нс/задачу   задач/с   проверка");
+            for (int size : SIZES) {
+                // Снимки пересохраняются менеджером, чтобы в них были контрольные суммы
+                writeBoard(boardFile, size);
+                StorageConverter.convert(boardFile, StorageFormat.CSV, file, StorageFormat.CSV);
+                StorageConverter.csvToBinary(boardFile, binaryFile);
+                // Пересохранение менеджером добавляет файл индексов рядом со снимком
+                FileBackedTaskManager.loadFromFile(file).save();
+                FileBackedTaskManager.loadFromFile(binaryFile, StorageFormat.BINARY).save();
+                print(StorageFormat.CSV, measure(file, StorageFormat.CSV));
+                print(StorageFormat.BINARY, measure(binaryFile, StorageFormat.BINARY));
+            }
+        } finally {
+            Files.deleteIfExists(boardFile);
+            for (Path snapshot : new Path[]{file, binaryFile}) {
+                Files.deleteIfExists(snapshot);
+                Files.deleteIfExists(AtomicFiles.previousGeneration(snapshot));
+                Files.deleteIfExists(TaskIndexFile.indexPath(snapshot));
+            }
+        }
+    }
+
+    private static LoadStatistics measure(Path file, StorageFormat storageFormat) {
+        LoadStatistics best = null;
+        for (int i = 0; i < 3; i++) {
+            LoadStatistics statistics = FileBackedTaskManager.loadFromFile(file, storageFormat).getLoadStatistics();
+            if (best == null || statistics.getNanos() < best.getNanos()) {
+                best = statistics;
+            }
+        }
+        return best;
+    }
+
+    private static void print(StorageFormat storageFormat, LoadStatistics statistics) {
+        System.out.printf("%-7s %-10d %7.1f %10.0f %10.0f %8.1f%%%n",
+                          storageFormat,
+                          statistics.getTasks(),
+                          statistics.getNanos() / 1_000_000.0,
+                          (double) statistics.getNanos() / statistics.getTasks(),
+                          statistics.getTasksPerSecond(),
+                          statistics.getValidationPercent());
+    }
+
+    // Доска из обычных задач и эпиков с подзадачами в формате FileBackedTaskManager
+    static void writeBoard(Path file, int size) throws IOException {
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,type,name,status,description,startTime,duration,epic\n");
+            int id = 1;
+            int epicId = 0;
+            while (id <= size) {
+                if (id % (SUBTASKS_PER_EPIC + 2) == 1) {
+                    writer.write(id + ",REG,Task" + id + ",NEW,Task " + id + ","
+                                 + startTime.plusMinutes(id * 30L).format(DATE_TIME_FORMAT) + ",15\n");
+                } else if (id % (SUBTASKS_PER_EPIC + 2) == 2) {
+                    epicId = id;
+                    writer.write(id + ",EPIC,Epic" + id + ",NEW,Epic " + id + "\n");
+                } else {
+                    writer.write(id + ",SUB,SubTask" + id + ",DONE,Subtask " + id + ","
+                                 + startTime.plusMinutes(id * 30L).format(DATE_TIME_FORMAT) + ",15," + epicId + "\n");
+                }
+                id++;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package benchmark;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.SubTask;
+import model.Task;
+import service.CompactTaskManager;
+import service.InMemoryTaskManager;
+import service.IntObjectMap;
+import service.TaskManager;
+
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ Память на одну задачу в индексе по id: HashMap<Integer, Task> против IntObjectMap<Task>.
+ Сами задачи создаются заранее и живут всё время замера, поэтому разница кучи - это только цена индекса:
+ в HashMap это Integer и узел на запись плюс массив корзин, в IntObjectMap - два плоских массива.
+ Тот же индекс хранит узлы списка истории просмотров, поэтому выигрыш получают обе таблицы.
+ Вторая таблица - память на задачу для доски целиком: InMemoryTaskManager против CompactTaskManager.
+ */
+public class MemoryBenchmark {
+    private static final int[] SIZES = {1_000, 100_000, 1_000_000};
+    private static final int[] BOARD_SIZES = {100_000, 1_000_000};
+    private static final int EPICS = 1_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        System.out.println("задач      HashMap, байт/задачу   IntObjectMap, байт/задачу");
+        for (int size : SIZES) {
+            List<Task> tasks = createTasks(size);
+            long boxed = measure(tasks, MemoryBenchmark::fillHashMap);
+            long primitive = measure(tasks, MemoryBenchmark::fillIntObjectMap);
+            System.out.printf("%-10d %22.1f %27.1f%n", size, (double) boxed / size, (double) primitive / size);
+        }
+
+        System.out.println();
+        System.out.println("задач      InMemoryTaskManager, байт/задачу   CompactTaskManager, байт/задачу");
+        for (int size : BOARD_SIZES) {
+            long objects = measureBoard(InMemoryTaskManager::new, size);
+            long compact = measureBoard(CompactTaskManager::new, size);
+            System.out.printf("%-10d %34.1f %33.1f%n", size, (double) objects / size, (double) compact / size);
+        }
+    }
+
+    // Доска из эпиков, подзадач и обычных задач со временем; строки названий у обеих досок одинаковые
+    private static long measureBoard(Supplier<TaskManager> boardFactory, int size) {
+        long before = usedMemory();
+        TaskManager taskManager = boardFactory.get();
+        for (int i = 0; i < EPICS; i++) {
+            taskManager.createTask(new EpicTask("Epic" + i, "Epic " + i));
+        }
+        for (int i = EPICS; i < size; i++) {
+            LocalDateTime start = START.plusMinutes(i * 30L);
+            if (i % 2 == 0) {
+                taskManager.createTask(new SingleTask("Task" + i, "Task " + i, start, 15));
+            } else {
+                taskManager.createTask(new SubTask("SubTask" + i, "Subtask " + i, start, 15, 1 + i % EPICS));
+            }
+        }
+        long used = usedMemory() - before;
+        Reference.reachabilityFence(taskManager);
+        return used;
+    }
+
+    private static List<Task> createTasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Task task = new SingleTask("Task" + i, "Task " + i);
+            task.setId(i);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static Object fillHashMap(List<Task> tasks) {
+        Map<Integer, Task> map = new HashMap<>();
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+
+    private static Object fillIntObjectMap(List<Task> tasks) {
+        IntObjectMap<Task> map = new IntObjectMap<>();
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+
+    // Рост занятой кучи после построения индекса, медиана из нескольких замеров
+    private static long measure(List<Task> tasks, Function<List<Task>, Object> fill) {
+        long[] samples = new long[5];
+        for (int i = 0; i < samples.length; i++) {
+            long before = usedMemory();
+            Object index = fill.apply(tasks);
+            samples[i] = usedMemory() - before;
+            Reference.reachabilityFence(index); // Индекс должен дожить до второго замера
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
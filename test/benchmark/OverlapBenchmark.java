@@ -0,0 +1,34 @@
+package benchmark;
+
+import model.SingleTask;
+import service.InMemoryTaskManager;
+
+import java.time.LocalDateTime;
+
+// Замер создания задач со временем в InMemoryTaskManager: проверка пересечений выполняется при каждом создании.
+// При проверке за O(log n) время создания одной задачи почти не растёт с размером доски.
+public class OverlapBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) {
+        // Прогрев JIT
+        createBoard(SIZES[0]);
+
+        System.out.println("задач        мс    нс/задачу");
+        for (int size : SIZES) {
+            long startNanos = System.nanoTime();
+            createBoard(size);
+            long nanos = System.nanoTime() - startNanos;
+            System.out.printf("%-10d %7.1f %10.0f%n", size, nanos / 1_000_000.0, (double) nanos / size);
+        }
+    }
+
+    // Задачи по 15 минут с промежутками, чтобы ни одна не пересекалась с остальными
+    private static void createBoard(int size) {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < size; i++) {
+            taskManager.createTask(new SingleTask("Task" + i, "Task " + i, startTime.plusMinutes(i * 30L), 15));
+        }
+    }
+}
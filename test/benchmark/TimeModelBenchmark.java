@@ -0,0 +1,98 @@
+package benchmark;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.SubTask;
+import model.Task;
+import service.TaskTimeIndex;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ Время и память на горячих путях модели времени: проверка пересечения в индексе интервалов
+ и пересчёт итогов эпика при замене одной подзадачи. Все задачи и границы создаются заранее,
+ поэтому выделенная за замер память - это только память самой проверки или пересчёта.
+ */
+public class TimeModelBenchmark {
+    private static final int INDEX_SIZE = 1_000_000;
+    private static final int SUB_TASKS = 1_000;
+    private static final int OPERATIONS = 1_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        TaskTimeIndex index = new TaskTimeIndex();
+        List<Task> tasks = new ArrayList<>(INDEX_SIZE);
+        for (int i = 0; i < INDEX_SIZE; i++) {
+            Task task = new SingleTask("Task" + i, "Task " + i, START.plusMinutes(i * 30L), 15);
+            task.setId(i + 1);
+            tasks.add(task);
+        }
+        index.addAllSorted(tasks);
+        Random random = new Random(23);
+        LocalDateTime[] queryStarts = new LocalDateTime[OPERATIONS];
+        LocalDateTime[] queryEnds = new LocalDateTime[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            queryStarts[i] = START.plusMinutes(random.nextInt(INDEX_SIZE * 30));
+            queryEnds[i] = queryStarts[i].plusMinutes(10);
+        }
+
+        EpicTask epicTask = new EpicTask("Epic", "Epic");
+        epicTask.setId(1);
+        for (int i = 0; i < SUB_TASKS; i++) {
+            epicTask.modifySubTask(subTask(i, START.plusHours(i)));
+        }
+        SubTask[] changes = new SubTask[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            changes[i] = subTask(random.nextInt(SUB_TASKS), START.plusHours(random.nextInt(SUB_TASKS * 2)));
+        }
+
+        // Прогрев JIT
+        runOverlaps(index, queryStarts, queryEnds);
+        runRollups(epicTask, changes);
+
+        System.out.println("операция                    нс/операцию   байт/операцию");
+        long bytes = allocatedBytes();
+        long nanos = System.nanoTime();
+        int found = runOverlaps(index, queryStarts, queryEnds);
+        report("пересечение, 1 млн задач", System.nanoTime() - nanos, allocatedBytes() - bytes);
+
+        bytes = allocatedBytes();
+        nanos = System.nanoTime();
+        runRollups(epicTask, changes);
+        report("итоги эпика, 1000 подзадач", System.nanoTime() - nanos, allocatedBytes() - bytes);
+        System.out.println("найдено пересечений: " + found);
+    }
+
+    private static SubTask subTask(int number, LocalDateTime start) {
+        SubTask subTask = new SubTask("SubTask" + number, "Subtask", start, 45, 1);
+        subTask.setId(2 + number);
+        return subTask;
+    }
+
+    private static int runOverlaps(TaskTimeIndex index, LocalDateTime[] starts, LocalDateTime[] ends) {
+        int found = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (index.overlaps(starts[i], ends[i])) found++;
+        }
+        return found;
+    }
+
+    private static void runRollups(EpicTask epicTask, SubTask[] changes) {
+        for (SubTask change : changes) {
+            epicTask.modifySubTask(change);
+        }
+    }
+
+    private static void report(String operation, long nanos, long bytes) {
+        System.out.printf("%-27s %12.1f %15.1f%n", operation, (double) nanos / OPERATIONS, (double) bytes / OPERATIONS);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,28 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateTimeFormatTest {
+
+    @Test
+    void parseMatchesFormatterTest() {
+        LocalDateTime[] dateTimes = {LocalDateTime.of(1, 1, 1, 0, 0),
+                                     LocalDateTime.of(2025, 12, 31, 23, 59),
+                                     LocalDateTime.of(2024, 2, 29, 9, 5)};
+        for (LocalDateTime dateTime : dateTimes) {
+            String text = "x," + dateTime.format(DateTimeFormat.DATE_TIME_FORMAT) + ",15";
+            assertEquals(dateTime, DateTimeFormat.parse(text, 2), "Дата разобрана неверно");
+        }
+    }
+
+    @Test
+    void parseWrongFormatTest() {
+        assertThrows(DateTimeParseException.class, () -> DateTimeFormat.parse("10:00 2025.01.01", 0), "Неверный формат принят");
+        assertThrows(DateTimeParseException.class, () -> DateTimeFormat.parse("1a:00 01.01.2025", 0), "Неверный формат принят");
+    }
+}
@@ -2,6 +2,13 @@ package model;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTaskTest {
@@ -18,4 +25,62 @@ class EpicTaskTest {
         assertNotEquals(epicTask1, epicTask2, "Задачи с разными ID равны");
     }
 
-}
\ No newline at end of file
+    @Test
+    void aggregatesMatchFullRecalculation() {
+        EpicTask epicTask = new EpicTask("EpicTask3", "Epic task 3");
+        epicTask.setId(1);
+        Random random = new Random(17);
+        LocalDateTime noTime = LocalDateTime.of(1, 1, 1, 0, 0);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Map<Integer, SubTask> expected = new HashMap<>();
+        for (int step = 0; step < 2_000; step++) {
+            int id = 2 + random.nextInt(50);
+            if (random.nextInt(4) == 0) {
+                SubTask removed = expected.remove(id);
+                if (removed != null) {
+                    epicTask.removeSubTask(removed);
+                }
+            } else {
+                StatusTask status = StatusTask.values()[random.nextInt(StatusTask.values().length)];
+                SubTask subTask = random.nextInt(3) == 0
+                                  ? new SubTask("SubTask" + id, "Subtask", 1, status)
+                                  : new SubTask("SubTask" + id, "Subtask", start.plusHours(random.nextInt(100)),
+                                                random.nextInt(120), 1, status);
+                subTask.setId(id);
+                expected.put(id, subTask);
+                epicTask.modifySubTask(subTask);
+            }
+
+            Collection<SubTask> subTasks = expected.values();
+            StatusTask expectedStatus = subTasks.stream().allMatch(task -> task.getStatusTask() == StatusTask.NEW)
+                                        ? StatusTask.NEW
+                                        : subTasks.stream().allMatch(task -> task.getStatusTask() == StatusTask.DONE)
+                                          ? StatusTask.DONE
+                                          : StatusTask.IN_PROGRESS;
+            LocalDateTime expectedStart = subTasks.stream().map(Task::getStartTime).filter(time -> !time.isEqual(noTime))
+                                                  .min(LocalDateTime::compareTo).orElse(noTime);
+            LocalDateTime expectedEnd = subTasks.stream().map(Task::getEndTime).filter(time -> !time.isEqual(noTime))
+                                                .max(LocalDateTime::compareTo).orElse(noTime);
+            Duration expectedDuration = subTasks.stream().map(Task::getDuration).reduce(Duration.ZERO, Duration::plus);
+            assertEquals(expectedStatus, epicTask.getStatusTask(), "Неверный статус эпика на шаге " + step);
+            assertEquals(expectedStart, epicTask.getStartTime(), "Неверное начало эпика на шаге " + step);
+            assertEquals(expectedEnd, epicTask.getEndTime(), "Неверное окончание эпика на шаге " + step);
+            assertEquals(expectedDuration, epicTask.getDuration(), "Неверная длительность эпика на шаге " + step);
+        }
+    }
+
+    @Test
+    void subTaskChangedInPlaceIsRecounted() {
+        EpicTask epicTask = new EpicTask("EpicTask3", "Epic task 3");
+        epicTask.setId(1);
+        SubTask subTask = new SubTask("SubTask1", "Subtask 1", 1);
+        subTask.setId(2);
+        epicTask.modifySubTask(subTask);
+        subTask.setStatus(StatusTask.DONE);
+        epicTask.modifySubTask(subTask);
+        assertEquals(StatusTask.DONE, epicTask.getStatusTask(), "Изменённая на месте подзадача учтена дважды");
+        epicTask.removeSubTask(subTask);
+        assertEquals(StatusTask.NEW, epicTask.getStatusTask(), "Удалённая подзадача осталась в итогах");
+    }
+
+}
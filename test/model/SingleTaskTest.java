@@ -2,6 +2,9 @@ package model;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SingleTaskTest {
@@ -17,4 +20,22 @@ class SingleTaskTest {
         singleTask2.setId(id + 1);
         assertNotEquals(singleTask1, singleTask2, "Задачи с разными Id равны");
     }
-}
\ No newline at end of file
+
+    @Test
+    void timeIsStoredInMinutes() {
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 30, 45);
+        SingleTask singleTask = new SingleTask("CommonTask1", "Common task 1", start, 90);
+
+        assertTrue(singleTask.isScheduled(), "Задача со временем считается задачей без расписания");
+        assertEquals(LocalDateTime.of(2025, 5, 1, 9, 30), singleTask.getStartTime(), "Начало должно храниться до минуты");
+        assertEquals(LocalDateTime.of(2025, 5, 1, 11, 0), singleTask.getEndTime(), "Неверное окончание");
+        assertEquals(singleTask.getStartMinute() + 90, singleTask.getEndMinute(), "Окончание в минутах не совпадает");
+        assertEquals(Duration.ofMinutes(90), singleTask.getDuration(), "Неверная длительность");
+        assertEquals(singleTask.getStartMinute(), singleTask.copy().getStartMinute(), "Копия потеряла время");
+
+        SingleTask unscheduled = new SingleTask("CommonTask2", "Common task 2", DateTimeFormat.NO_TIME, 30);
+        assertFalse(unscheduled.isScheduled(), "Время NO_TIME должно означать задачу без расписания");
+        assertEquals(DateTimeFormat.NO_TIME, unscheduled.getStartTime(), "Для JSON и CSV начало задачи без времени - NO_TIME");
+        assertFalse(new SingleTask("CommonTask3", "Common task 3").isScheduled(), "Задача без времени получила расписание");
+    }
+}
@@ -0,0 +1,117 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BatchHandlerTest {
+
+    private final TaskManager taskManager;
+    private final HttpTaskServer httpTaskServer;
+    private final Gson gson;
+    private final LocalDateTime startTime;
+    private EpicTask epicTask;
+
+    HttpClient client;
+
+    public BatchHandlerTest() throws IOException {
+        taskManager = Managers.getDefaultTaskManager();
+        httpTaskServer = new HttpTaskServer(taskManager);
+        gson = new BaseHttpHandler().getGson();
+        startTime = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    @BeforeEach
+    public void initialization() {
+        taskManager.clearSingleTasks();
+        taskManager.clearEpicTasks();
+
+        epicTask = new EpicTask("EpicTask1", "Epic task 1");
+        taskManager.createTask(epicTask);
+        httpTaskServer.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        httpTaskServer.stop();
+    }
+
+    @Test
+    public void batchReturnsResultPerItem() throws IOException, InterruptedException {
+        SingleTask existing = new SingleTask("CommonTask1", "Common task 1", startTime, 30);
+        taskManager.createTask(existing);
+        SingleTask moved = new SingleTask("CommonTask1", "Common task 1", startTime.plusHours(1), 30);
+        moved.setId(existing.getId());
+
+        JsonArray batch = new JsonArray();
+        batch.add(withType(new SingleTask("CommonTask2", "Common task 2", startTime.plusMinutes(10), 30), TypeTask.REG));
+        batch.add(withType(new SubTask("SubTask1", "Subtask 1", startTime.plusHours(2), 30, epicTask.getId()), TypeTask.SUB));
+        batch.add(withType(moved, TypeTask.REG));
+        batch.add(withType(new SingleTask("CommonTask3", "Common task 3", startTime.plusMinutes(70), 30), TypeTask.REG));
+        JsonObject untyped = gson.toJsonTree(new SingleTask("CommonTask4", "Common task 4")).getAsJsonObject();
+        batch.add(untyped);
+
+        client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/batch");
+        HttpRequest request = HttpRequest.newBuilder()
+                                         .uri(url)
+                                         .POST(HttpRequest.BodyPublishers.ofString(batch.toString()))
+                                         .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpCodeResponse.OK.getCode(), response.statusCode(), "Ошибка сервера");
+        JsonArray items = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(5, items.size(), "Результат нужен по каждому элементу пачки");
+        // Изменения применяются раньше созданий: время, освобождённое первой задачей, уже свободно
+        assertEquals(List.of("CREATED", "CREATED", "UPDATED", "OVERLAP", "INVALID"),
+                     List.of(outcome(items, 0), outcome(items, 1), outcome(items, 2), outcome(items, 3), outcome(items, 4)),
+                     "Неверные результаты пачки");
+        assertEquals(existing.getId(), items.get(2).getAsJsonObject().get("id").getAsInt(), "Неверный id изменённой задачи");
+        assertEquals(2, taskManager.listSingleTasks().size(), "Неверное число обычных задач");
+        assertEquals(30, taskManager.findTask(epicTask.getId()).getDuration().toMinutes(), "Время эпика не пересчитано");
+    }
+
+    @Test
+    public void batchRequiresArray() throws IOException, InterruptedException {
+        String singleTaskJson = gson.toJson(new SingleTask("CommonTask1", "Common task 1"));
+
+        client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/batch");
+        HttpRequest request = HttpRequest.newBuilder()
+                                         .uri(url)
+                                         .POST(HttpRequest.BodyPublishers.ofString(singleTaskJson))
+                                         .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpCodeResponse.BAD_REQUEST.getCode(), response.statusCode(), "Принята пачка не массивом");
+        assertEquals(0, taskManager.listSingleTasks().size(), "Задача создана из неверной пачки");
+    }
+
+    private JsonObject withType(Task task, TypeTask typeTask) {
+        JsonObject json = gson.toJsonTree(task).getAsJsonObject();
+        json.addProperty("type", typeTask.name());
+        return json;
+    }
+
+    private static String outcome(JsonArray items, int index) {
+        return items.get(index).getAsJsonObject().get("outcome").getAsString();
+    }
+}
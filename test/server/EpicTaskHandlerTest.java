@@ -1,6 +1,7 @@
 package server;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import model.*;
 import org.junit.jupiter.api.AfterEach;
@@ -75,6 +76,7 @@ public class EpicTaskHandlerTest {
 
         assertEquals(epicTask, epicTasksResponse.get(0), "Задачи не совпадают");
         assertEquals(epicTask1, epicTasksResponse.get(1), "Задачи не совпадают");
+        assertTrue(taskManager.getHistory().isEmpty(), "Список эпиков записан в историю просмотров");
     }
 
     @Test
@@ -100,6 +102,7 @@ public class EpicTaskHandlerTest {
         Task epicTasksResponse = gson.fromJson(response.body(), EpicTask.class);
 
         assertEquals(epicTask1, epicTasksResponse, "Задачи не совпадают");
+        assertEquals(List.of(epicTask1), taskManager.getHistory(), "Просмотр эпика не записан в историю");
 
     }
 
@@ -194,6 +197,26 @@ public class EpicTaskHandlerTest {
         assertEquals("CommonTask2", tasksFromManager.get(0).getName(), "Ошибка обновления задачи");
     }
 
+    @Test
+    public void updateEpicOverOtherTypeIsBadRequest() throws IOException, InterruptedException {
+        SingleTask singleTask = new SingleTask("CommonTask1", "Common task 1");
+        taskManager.createTask(singleTask);
+        epicTask.setId(singleTask.getId());
+        String epicTaskJson = gson.toJson(epicTask);
+
+        client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/epics");
+        HttpRequest request = HttpRequest.newBuilder()
+                                         .uri(url)
+                                         .POST(HttpRequest.BodyPublishers.ofString(epicTaskJson))
+                                         .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        taskManager.removeTask(singleTask.getId());
+
+        assertEquals(HttpCodeResponse.BAD_REQUEST.getCode(), response.statusCode(), "Тип задачи изменён запросом");
+        assertTrue(taskManager.listEpicTasks().isEmpty(), "Эпик создан вместо обычной задачи");
+    }
+
     @Test
     public void removeTaskById() throws IOException, InterruptedException {
         taskManager.createTask(epicTask);
@@ -244,4 +267,43 @@ public class EpicTaskHandlerTest {
     }
 
 
+
+    @Test
+    public void epicJsonKeepsSubTaskArray() {
+        taskManager.createTask(epicTask);
+        SubTask subTask1 = new SubTask("SubTask1", "Subtask 1", startTime, 60, epicTask.getId(), StatusTask.DONE);
+        taskManager.createTask(subTask1);
+        SubTask subTask2 = new SubTask("SubTask2", "Subtask 2", startTime.plusHours(2), 60, epicTask.getId());
+        taskManager.createTask(subTask2);
+
+        JsonObject json = gson.toJsonTree(epicTask).getAsJsonObject();
+        assertTrue(json.get("subTasks").isJsonArray(), "Подзадачи эпика записаны не массивом");
+        assertEquals(2, json.getAsJsonArray("subTasks").size(), "Неверное число подзадач в JSON");
+
+        EpicTask restored = gson.fromJson(json, EpicTask.class);
+        assertEquals(List.of(subTask1, subTask2), restored.getSubTasks(), "Порядок подзадач не сохранён");
+        SubTask doneSubTask2 = new SubTask("SubTask2", "Subtask 2", startTime.plusHours(2), 60, epicTask.getId(), StatusTask.DONE);
+        doneSubTask2.setId(subTask2.getId());
+        restored.modifySubTask(doneSubTask2);
+        assertEquals(List.of(subTask1, doneSubTask2), restored.getSubTasks(), "Подзадача не заменена на месте");
+        assertEquals(StatusTask.DONE, restored.getStatusTask(), "Итоги подзадач не восстановлены после JSON");
+    }
+
+    @Test
+    public void taskJsonKeepsTimeFields() {
+        SubTask subTask = new SubTask("SubTask1", "Subtask 1", startTime, 45, 7, StatusTask.IN_PROGRESS);
+        subTask.setId(8);
+
+        JsonObject json = gson.toJsonTree(subTask).getAsJsonObject();
+        assertEquals(startTime.format(DateTimeFormat.DATE_TIME_FORMAT), json.get("startTime").getAsString(), "Неверное начало в JSON");
+        assertEquals(45, json.get("duration").getAsInt(), "Неверная длительность в JSON");
+        assertFalse(json.has("startMinute"), "Внутреннее представление времени попало в JSON");
+
+        SubTask restored = gson.fromJson(json, SubTask.class);
+        assertEquals(subTask.toString(), restored.toString(), "Подзадача изменилась после JSON");
+        assertEquals(subTask.getEndMinute(), restored.getEndMinute(), "Окончание изменилось после JSON");
+
+        SingleTask unscheduled = gson.fromJson(gson.toJson(new SingleTask("CommonTask1", "Common task 1")), SingleTask.class);
+        assertFalse(unscheduled.isScheduled(), "Задача без времени получила расписание после JSON");
+    }
 }
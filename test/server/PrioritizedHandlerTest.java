@@ -10,10 +10,14 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 
 import com.google.gson.reflect.TypeToken;
@@ -79,4 +83,104 @@ public class PrioritizedHandlerTest {
 
         assertEquals(HttpCodeResponse.NOT_ALLOWED.getCode(), response.statusCode());
     }
+
+    @Test
+    public void getPrioritizedTasksInTimeWindow() throws IOException, InterruptedException {
+        LocalDateTime windowStart = startTime.withSecond(0).withNano(0);
+        SingleTask before = new SingleTask("Before", "Before window", windowStart.minusHours(1), 30);
+        taskManager.createTask(before);
+        SingleTask inside = new SingleTask("Inside", "Inside window", windowStart, 30);
+        taskManager.createTask(inside);
+        SingleTask after = new SingleTask("After", "After window", windowStart.plusHours(1), 30);
+        taskManager.createTask(after);
+
+        String from = URLEncoder.encode(windowStart.format(DateTimeFormat.DATE_TIME_FORMAT), StandardCharsets.UTF_8);
+        String to = URLEncoder.encode(windowStart.plusHours(1).format(DateTimeFormat.DATE_TIME_FORMAT), StandardCharsets.UTF_8);
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?from=" + from + "&to=" + to);
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpCodeResponse.OK.getCode(), response.statusCode());
+        List<SingleTask> serverTasks = gson.fromJson(response.body(), new TypeToken<List<SingleTask>>() {
+        }.getType());
+        assertEquals(List.of(inside), serverTasks, "Неверные задачи в окне времени");
+        assertEquals(inside.getName(), serverTasks.get(0).getName(), "Задача передана не полностью");
+    }
+
+    @Test
+    public void badTimeWindowFormat() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?from=yesterday");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(HttpCodeResponse.BAD_REQUEST.getCode(), response.statusCode());
+    }
+
+    @Test
+    public void failedWindowReadAnswersServerError() throws IOException, InterruptedException {
+        taskServer.stop();
+        SingleTask task = new SingleTask("CommonTask1", "Common task 1", startTime, 30);
+        // Доска меняется во время чтения окна
+        TaskManager changingManager = new InMemoryTaskManager() {
+            @Override
+            public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+                throw new ConcurrentModificationException();
+            }
+
+            @Override
+            public Iterator<Task> iteratePrioritized(LocalDateTime from, LocalDateTime to) {
+                Iterator<Task> tasks = List.<Task>of(task).iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (tasks.hasNext()) return tasks.next();
+                        throw new ConcurrentModificationException();
+                    }
+                };
+            }
+        };
+        HttpTaskServer changingServer = new HttpTaskServer(changingManager);
+        changingServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String from = URLEncoder.encode(startTime.format(DateTimeFormat.DATE_TIME_FORMAT), StandardCharsets.UTF_8);
+            URI url = URI.create("http://localhost:8080/prioritized?from=" + from);
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(HttpCodeResponse.SERVER_ERROR.getCode(), response.statusCode(), "Оборванное окно отдано с кодом 200");
+        } finally {
+            changingServer.stop();
+        }
+    }
+
+    @Test
+    public void responseReportsBoardVersion() throws IOException, InterruptedException {
+        taskServer.stop();
+        SnapshotTaskManager snapshotTaskManager = new SnapshotTaskManager();
+        snapshotTaskManager.createTask(new SingleTask("CommonTask1", "Common task 1", startTime, 30));
+        snapshotTaskManager.createTask(new SingleTask("CommonTask2", "Common task 2", startTime.plusHours(1), 30));
+        HttpTaskServer snapshotServer = new HttpTaskServer(snapshotTaskManager);
+        snapshotServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI url = URI.create("http://localhost:8080/prioritized");
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(HttpCodeResponse.OK.getCode(), response.statusCode());
+            assertEquals(String.valueOf(snapshotTaskManager.getVersion()),
+                         response.headers().firstValue(BaseHttpHandler.VERSION_HEADER).orElse(""),
+                         "Ответ не помечен версией доски");
+        } finally {
+            snapshotServer.stop();
+        }
+    }
 }
@@ -0,0 +1,135 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TransactionHandlerTest {
+
+    private final TaskManager taskManager;
+    private final HttpTaskServer httpTaskServer;
+    private final Gson gson;
+    private final LocalDateTime startTime;
+    private SingleTask singleTask;
+
+    HttpClient client;
+
+    public TransactionHandlerTest() throws IOException {
+        taskManager = Managers.getDefaultTaskManager();
+        httpTaskServer = new HttpTaskServer(taskManager);
+        gson = new BaseHttpHandler().getGson();
+        startTime = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    @BeforeEach
+    public void initialization() {
+        taskManager.clearSingleTasks();
+        taskManager.clearEpicTasks();
+
+        singleTask = new SingleTask("CommonTask1", "Common task 1", startTime, 30);
+        taskManager.createTask(singleTask);
+        httpTaskServer.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        httpTaskServer.stop();
+    }
+
+    @Test
+    public void transactionReturnsIds() throws IOException, InterruptedException {
+        SingleTask moved = new SingleTask("CommonTask1", "Common task 1", startTime.plusHours(1), 30);
+        moved.setId(singleTask.getId());
+
+        JsonArray changes = new JsonArray();
+        changes.add(change("UPDATE", moved, TypeTask.REG));
+        changes.add(change("CREATE", new SingleTask("CommonTask2", "Common task 2", startTime, 30), TypeTask.REG));
+
+        HttpResponse<String> response = send(changes.toString());
+
+        assertEquals(HttpCodeResponse.OK.getCode(), response.statusCode(), "Ошибка сервера");
+        JsonArray ids = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2, ids.size(), "Id нужен по каждому изменению");
+        assertEquals(singleTask.getId(), ids.get(0).getAsInt(), "Неверный id изменённой задачи");
+        // Время, освобождённое первым изменением, занято вторым
+        assertEquals(startTime, taskManager.findTask(ids.get(1).getAsInt()).getStartTime(), "Задача не создана");
+        assertEquals(startTime.plusHours(1), taskManager.findTask(singleTask.getId()).getStartTime(), "Задача не изменена");
+    }
+
+    @Test
+    public void overlappingTransactionChangesNothing() throws IOException, InterruptedException {
+        JsonArray changes = new JsonArray();
+        changes.add(change("CREATE", new SingleTask("CommonTask2", "Common task 2", startTime.plusHours(1), 30), TypeTask.REG));
+        JsonObject remove = new JsonObject();
+        remove.addProperty("action", "REMOVE");
+        remove.addProperty("id", singleTask.getId());
+        changes.add(remove);
+        changes.add(change("CREATE", new SingleTask("CommonTask3", "Common task 3", startTime.plusMinutes(70), 30), TypeTask.REG));
+
+        HttpResponse<String> response = send(changes.toString());
+
+        assertEquals(HttpCodeResponse.OVERLAP.getCode(), response.statusCode(), "Пересечение по времени не выявлено");
+        assertEquals(List.of(singleTask), taskManager.listSingleTasks(), "Транзакция применена частично");
+    }
+
+    @Test
+    public void invalidChangeRejectsTransaction() throws IOException, InterruptedException {
+        JsonArray changes = new JsonArray();
+        changes.add(change("CREATE", new SingleTask("CommonTask2", "Common task 2"), TypeTask.REG));
+        changes.add(gson.toJsonTree(new SingleTask("CommonTask3", "Common task 3")));
+
+        HttpResponse<String> response = send(changes.toString());
+
+        assertEquals(HttpCodeResponse.BAD_REQUEST.getCode(), response.statusCode(), "Принято изменение без действия");
+        assertEquals(1, taskManager.listSingleTasks().size(), "Задача создана из неверной транзакции");
+    }
+
+    @Test
+    public void typeChangeRejectsTransaction() throws IOException, InterruptedException {
+        EpicTask epicTask = new EpicTask("EpicTask1", "Epic task 1");
+        epicTask.setId(singleTask.getId());
+        JsonArray changes = new JsonArray();
+        changes.add(change("CREATE", new SingleTask("CommonTask2", "Common task 2"), TypeTask.REG));
+        changes.add(change("UPDATE", epicTask, TypeTask.EPIC));
+
+        HttpResponse<String> response = send(changes.toString());
+
+        assertEquals(HttpCodeResponse.BAD_REQUEST.getCode(), response.statusCode(), "Смена типа задачи не отклонена");
+        assertEquals(List.of(singleTask), taskManager.listSingleTasks(), "Транзакция применена частично");
+    }
+
+    private HttpResponse<String> send(String body) throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/transaction");
+        HttpRequest request = HttpRequest.newBuilder()
+                                         .uri(url)
+                                         .POST(HttpRequest.BodyPublishers.ofString(body))
+                                         .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonObject change(String action, Task task, TypeTask typeTask) {
+        JsonObject json = gson.toJsonTree(task).getAsJsonObject();
+        json.addProperty("type", typeTask.name());
+        json.addProperty("action", action);
+        return json;
+    }
+}
@@ -0,0 +1,166 @@
+package service;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.StatusTask;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ArchivingTaskManagerTest extends TaskManagerTest<ArchivingTaskManager> {
+    private Path tempFile;
+
+    private void createTestFile() {
+        try {
+            tempFile = Files.createTempFile("TestTaskStorage", ".csv");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public ArchivingTaskManager createTestManager() {
+        createTestFile();
+        return ArchivingTaskManager.loadFromFile(tempFile);
+    }
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        taskManager.close();
+        for (Path file : List.of(tempFile,
+                                 AtomicFiles.previousGeneration(tempFile),
+                                 TaskIndexFile.indexPath(tempFile),
+                                 taskManager.getArchivePath(),
+                                 TaskIndexFile.indexPath(taskManager.getArchivePath()))) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void doneTasksMovedToArchive() throws IOException {
+        SingleTask doneTask = new SingleTask("DoneTask", "Done task", StatusTask.DONE, LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        taskManager.createTask(doneTask);
+        SingleTask recentTask = new SingleTask("RecentTask", "Recent task", StatusTask.DONE, LocalDateTime.now(), 15);
+        taskManager.createTask(recentTask);
+
+        Assertions.assertEquals(1, taskManager.archiveDoneTasks(), "Неверное число заархивированных задач");
+        Assertions.assertEquals(List.of(singleTask, recentTask), taskManager.getSingleTasks(), "Архивная задача осталась в памяти");
+        Assertions.assertFalse(Files.readString(tempFile).contains("DoneTask"), "Архивная задача осталась в снимке");
+
+        Task restored = taskManager.getTaskById(doneTask.getId());
+        Assertions.assertEquals(doneTask.toString(), restored.toString(), "Задача не возвращена из архива");
+        Assertions.assertEquals(0, taskManager.getArchivedTasks(), "Возвращённая задача осталась в индексе архива");
+        Assertions.assertEquals(List.of(doneTask, recentTask), taskManager.getPrioritizedTasks(), "Приоритеты не восстановлены");
+    }
+
+    @Test
+    void epicArchivedWithSubTasks() {
+        SubTask doneSubTask1 = new SubTask("SubTask1", "Subtask 1", LocalDateTime.of(2025, 1, 1, 10, 0), 15,
+                                           epicTask.getId(), StatusTask.DONE);
+        doneSubTask1.setId(subTask1.getId());
+        taskManager.updateTask(doneSubTask1);
+        SubTask doneSubTask2 = new SubTask("SubTask2", "Subtask 2", LocalDateTime.of(2025, 1, 2, 10, 0), 15,
+                                           epicTask.getId(), StatusTask.DONE);
+        doneSubTask2.setId(subTask2.getId());
+        taskManager.updateTask(doneSubTask2);
+        taskManager.close();
+
+        ArchivingTaskManager restarted = ArchivingTaskManager.loadFromFile(tempFile);
+        Assertions.assertEquals(3, restarted.getArchivedTasks(), "Эпик заархивирован без подзадач");
+        Assertions.assertTrue(restarted.getSubTasks().isEmpty(), "Подзадачи остались в памяти");
+
+        Task restoredSubTask = restarted.getTaskById(doneSubTask2.getId());
+        EpicTask restoredEpicTask = (EpicTask) restarted.getTaskById(epicTask.getId());
+        Assertions.assertEquals(doneSubTask2.toString(), restoredSubTask.toString(), "Подзадача не возвращена из архива");
+        Assertions.assertEquals(2, restoredEpicTask.getSubTasks().size(), "Подзадачи не привязаны к эпику");
+        Assertions.assertEquals(StatusTask.DONE, restoredEpicTask.getStatusTask(), "Статус эпика не восстановлен");
+        restarted.close();
+    }
+
+    @Test
+    void unscheduledDoneTasksAreNotArchived() {
+        SingleTask doneTask = new SingleTask("DoneTask", "Done task");
+        doneTask.setStatus(StatusTask.DONE);
+        taskManager.createTask(doneTask);
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        subTask2.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask2);
+
+        Assertions.assertEquals(0, taskManager.archiveDoneTasks(), "Задачи без времени заархивированы");
+        Assertions.assertEquals(List.of(singleTask, doneTask), taskManager.listSingleTasks(), "Задача без времени убрана из памяти");
+        Assertions.assertEquals(List.of(epicTask), taskManager.listEpicTasks(), "Эпик без времени убран из памяти");
+    }
+
+    @Test
+    void archivedTaskOverlappingNewTaskIsNotRestored() {
+        SingleTask doneTask = new SingleTask("DoneTask", "Done task", StatusTask.DONE, LocalDateTime.of(2025, 1, 1, 10, 0), 30);
+        taskManager.createTask(doneTask);
+        taskManager.archiveDoneTasks();
+        SingleTask newTask = new SingleTask("NewTask", "New task", LocalDateTime.of(2025, 1, 1, 10, 15), 30);
+        taskManager.createTask(newTask);
+
+        Assertions.assertThrows(TaskTimeOverlapException.class, () -> taskManager.findTask(doneTask.getId()),
+                                "Возвращённая из архива задача пересекается с новой");
+        Assertions.assertEquals(List.of(newTask), taskManager.getPrioritizedTasks(), "Приоритеты изменены");
+        Assertions.assertEquals(1, taskManager.getArchivedTasks(), "Задача убрана из архива");
+    }
+
+    @Test
+    void archivedTaskUpdatedAndRemovedDoesNotComeBack() {
+        SingleTask doneTask = new SingleTask("DoneTask", "Done task", StatusTask.DONE, LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        taskManager.createTask(doneTask);
+        taskManager.archiveDoneTasks();
+        SingleTask changedTask = new SingleTask("ChangedTask", "Changed task", StatusTask.IN_PROGRESS,
+                                                LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        changedTask.setId(doneTask.getId());
+
+        taskManager.updateTask(changedTask);
+        Assertions.assertEquals(0, taskManager.getArchivedTasks(), "Изменённая задача осталась в индексе архива");
+        taskManager.removeTask(doneTask.getId());
+
+        Assertions.assertThrows(NotFoundException.class, () -> taskManager.findTask(doneTask.getId()),
+                                "Удалённая задача вернулась из архива");
+    }
+
+    @Test
+    void failedTransactionRemovingArchivedTaskLeavesSnapshotUnchanged() throws IOException {
+        SingleTask doneTask = new SingleTask("DoneTask", "Done task", StatusTask.DONE, LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        taskManager.createTask(doneTask);
+        taskManager.archiveDoneTasks();
+        SingleTask changedTask = new SingleTask("ChangedTask", "Changed task");
+        changedTask.setId(singleTask.getId());
+        TaskTransaction transaction = new TaskTransaction(taskManager)
+                .updateTask(changedTask)
+                .removeTask(doneTask.getId())
+                .removeTask(9999);
+
+        Assertions.assertThrows(NotFoundException.class, () -> taskManager.commit(transaction), "Транзакция не отклонена");
+        Assertions.assertFalse(Files.readString(tempFile).contains("ChangedTask"), "Откаченное изменение попало в снимок");
+        Assertions.assertEquals(singleTask, taskManager.findTask(singleTask.getId()), "Изменение не откачено");
+        Assertions.assertEquals(doneTask.toString(), taskManager.findTask(doneTask.getId()).toString(),
+                                "Возвращённая из архива задача потеряна");
+    }
+
+    @Test
+    void archivedIdsAreNotReused() {
+        SingleTask doneTask = new SingleTask("DoneTask", "Done task", StatusTask.DONE, LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        taskManager.createTask(doneTask);
+        taskManager.archiveDoneTasks();
+        taskManager.close();
+
+        ArchivingTaskManager restarted = ArchivingTaskManager.loadFromFile(tempFile);
+        SingleTask newTask = new SingleTask("NewTask", "New task");
+        restarted.createTask(newTask);
+        Assertions.assertEquals(doneTask.getId() + 1, newTask.getId(), "Повторно выдан id архивной задачи");
+        restarted.close();
+    }
+}
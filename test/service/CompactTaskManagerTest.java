@@ -0,0 +1,193 @@
+package service;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.StatusTask;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CompactTaskManagerTest extends TaskManagerTest<CompactTaskManager> {
+    @Override
+    public CompactTaskManager createTestManager() {
+        return new CompactTaskManager();
+    }
+
+    // Менеджер не хранит переданные объекты, поэтому статус эпика читается с доски, а не из исходного объекта
+    @Test
+    @Override
+    void checkEpicStatusWithDoneStatus() {
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        subTask2.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask2);
+        Assertions.assertEquals(StatusTask.DONE, taskManager.findTask(epicTask.getId()).getStatusTask(), "Статус эпика не верный");
+    }
+
+    @Test
+    @Override
+    void checkEpicStatusWithInProgressStatus() {
+        subTask1.setStatus(StatusTask.IN_PROGRESS);
+        taskManager.updateTask(subTask1);
+        subTask2.setStatus(StatusTask.IN_PROGRESS);
+        taskManager.updateTask(subTask2);
+        Assertions.assertEquals(StatusTask.IN_PROGRESS, taskManager.findTask(epicTask.getId()).getStatusTask(), "Статус эпика не верный");
+    }
+
+    @Test
+    @Override
+    void checkEpicStatusWithNewAndDoneStatus() {
+        subTask1.setStatus(StatusTask.NEW);
+        taskManager.updateTask(subTask1);
+        subTask2.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask2);
+        Assertions.assertEquals(StatusTask.IN_PROGRESS, taskManager.findTask(epicTask.getId()).getStatusTask(), "Статус эпика не верный");
+    }
+
+    @Test
+    void returnedTasksAreDetachedFromBoard() {
+        SubTask viewed = (SubTask) taskManager.findTask(subTask1.getId());
+        viewed.setStatus(StatusTask.DONE);
+        Assertions.assertEquals(StatusTask.NEW, taskManager.findTask(subTask1.getId()).getStatusTask(),
+                                "Изменение выданного объекта попало на доску");
+        Assertions.assertFalse(taskManager.findTask(epicTask.getId()) == taskManager.findTask(epicTask.getId()),
+                               "Задачи должны собираться заново при каждой выдаче");
+
+        taskManager.getTaskById(subTask1.getId());
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        Assertions.assertEquals(StatusTask.DONE, taskManager.getHistory().get(0).getStatusTask(),
+                                "История должна показывать текущее состояние задачи");
+    }
+
+    @Test
+    void equalTextsAreStoredOnce() {
+        int pooled = taskManager.getPooledStringCount();
+        for (int i = 0; i < 1_000; i++) {
+            taskManager.createTask(new SingleTask("Повтор", "Одинаковое описание"));
+        }
+        Assertions.assertEquals(pooled + 2, taskManager.getPooledStringCount(), "Одинаковые строки должны храниться один раз");
+        taskManager.clearSingleTasks();
+        Assertions.assertEquals(pooled - 2, taskManager.getPooledStringCount(), "Строки удалённых задач остались в пуле");
+    }
+
+    @Test
+    void subTaskMovesBetweenEpics() {
+        EpicTask otherEpic = new EpicTask("EpicTask2", "Epic task 2");
+        taskManager.createTask(otherEpic);
+        SubTask moved = new SubTask(subTask1.getName(), subTask1.getDescription(), otherEpic.getId(), StatusTask.DONE);
+        moved.setId(subTask1.getId());
+        taskManager.updateTask(moved);
+
+        Assertions.assertEquals(List.of(subTask2), ((EpicTask) taskManager.findTask(epicTask.getId())).getSubTasks(),
+                                "Подзадача осталась в прежнем эпике");
+        EpicTask changedEpic = (EpicTask) taskManager.findTask(otherEpic.getId());
+        Assertions.assertEquals(List.of(moved), changedEpic.getSubTasks(), "Подзадача не перешла в новый эпик");
+        Assertions.assertEquals(StatusTask.DONE, changedEpic.getStatusTask(), "Статус нового эпика не пересчитан");
+    }
+
+    @Test
+    void clientIdsAndTimesOutOfRangeAreRejected() {
+        SingleTask unknown = new SingleTask("Unknown", "Unknown task");
+        unknown.setId(2_000_000_000);
+        Assertions.assertThrows(NotFoundException.class, () -> taskManager.updateTask(unknown),
+                                "Изменение по ещё не выданному id добавило задачу");
+        SingleTask created = new SingleTask("Created", "Created task");
+        taskManager.createTask(created);
+        Assertions.assertTrue(created.getId() < 1_000, "Клиентский id сдвинул генератор");
+
+        SingleTask farFuture = new SingleTask("FarFuture", "Far future task", LocalDateTime.of(9000, 1, 1, 0, 0), 15);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> taskManager.createTask(farFuture),
+                                "Время вне диапазона int-минут должно отклоняться");
+        Assertions.assertEquals(List.of(singleTask, created), taskManager.listSingleTasks(), "Отклонённая задача попала на доску");
+    }
+
+    // Случайная последовательность изменений даёт ту же доску, что и у InMemoryTaskManager
+    @Test
+    void matchesInMemoryTaskManager() {
+        Random random = new Random(22);
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 9, 0);
+        InMemoryTaskManager expected = new InMemoryTaskManager();
+        CompactTaskManager actual = new CompactTaskManager();
+        List<Integer> epicIds = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (int step = 0; step < 3_000; step++) {
+            int operation = random.nextInt(10);
+            LocalDateTime time = random.nextInt(5) == 0 ? null : start.plusMinutes(random.nextInt(2_000) * 15L);
+            int duration = 15 * (1 + random.nextInt(4));
+            StatusTask status = StatusTask.values()[random.nextInt(StatusTask.values().length)];
+            if (operation == 0 || epicIds.isEmpty()) {
+                EpicTask epic = new EpicTask("Epic" + step, "Epic " + step);
+                expected.createTask(epic);
+                actual.createTask(new EpicTask("Epic" + step, "Epic " + step));
+                epicIds.add(epic.getId());
+                ids.add(epic.getId());
+            } else if (operation < 6) {
+                int epicId = epicIds.get(random.nextInt(epicIds.size()));
+                boolean subTask = operation < 3;
+                Task task = newTask(subTask, "Task" + step, time, duration, epicId, status);
+                Task copy = newTask(subTask, "Task" + step, time, duration, epicId, status);
+                boolean created = applies(() -> expected.createTask(task));
+                Assertions.assertEquals(created, applies(() -> actual.createTask(copy)),
+                                        "Разное решение о пересечении на шаге " + step);
+                if (created) ids.add(task.getId());
+            } else if (operation < 8 && !ids.isEmpty()) {
+                Task old = expected.findTask(ids.get(random.nextInt(ids.size())));
+                if (old instanceof EpicTask) continue;
+                int epicId = old instanceof SubTask ? ((SubTask) old).getEpicId() : 0;
+                Task task = newTask(old instanceof SubTask, old.getName(), time, duration, epicId, status);
+                task.setId(old.getId());
+                Task copy = newTask(old instanceof SubTask, old.getName(), time, duration, epicId, status);
+                copy.setId(old.getId());
+                Assertions.assertEquals(applies(() -> expected.updateTask(task)), applies(() -> actual.updateTask(copy)),
+                                        "Разное решение о пересечении на шаге " + step);
+            } else if (!ids.isEmpty()) {
+                int id = ids.get(random.nextInt(ids.size()));
+                expected.removeTask(id);
+                actual.removeTask(id);
+                ids.clear();
+                expected.listSingleTasks().forEach(task -> ids.add(task.getId()));
+                expected.listEpicTasks().forEach(task -> ids.add(task.getId()));
+                expected.listSubTasks().forEach(task -> ids.add(task.getId()));
+                epicIds.clear();
+                expected.listEpicTasks().forEach(task -> epicIds.add(task.getId()));
+            }
+        }
+        assertSameTasks(expected.listSingleTasks(), actual.listSingleTasks());
+        assertSameTasks(expected.listSubTasks(), actual.listSubTasks());
+        assertSameTasks(expected.listEpicTasks(), actual.listEpicTasks());
+        assertSameTasks(expected.getPrioritizedTasks(), actual.getPrioritizedTasks());
+        LocalDateTime from = start.plusHours(100);
+        assertSameTasks(expected.getPrioritizedTasks(from, from.plusHours(50)), actual.getPrioritizedTasks(from, from.plusHours(50)));
+    }
+
+    private static Task newTask(boolean subTask, String name, LocalDateTime time, int duration, int epicId, StatusTask status) {
+        if (subTask) {
+            return time == null ? new SubTask(name, name, epicId, status) : new SubTask(name, name, time, duration, epicId, status);
+        }
+        return time == null ? new SingleTask(name, name) : new SingleTask(name, name, status, time, duration);
+    }
+
+    private static boolean applies(Runnable change) {
+        try {
+            change.run();
+            return true;
+        } catch (TaskTimeOverlapException exception) {
+            return false;
+        }
+    }
+
+    private static void assertSameTasks(List<Task> expected, List<Task> actual) {
+        Assertions.assertEquals(expected.size(), actual.size(), "Разное число задач");
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).toString(), actual.get(i).toString(), "Задачи различаются");
+            Assertions.assertEquals(expected.get(i).getEndTime(), actual.get(i).getEndTime(), "Разное окончание " + expected.get(i));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package service;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.StatusTask;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+    private static final int STEPS = 3_000;
+
+    @Override
+    public ConcurrentTaskManager createTestManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    @Test
+    void boardStaysConsistentUnderConcurrentLoad() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            executor.execute(() -> {
+                try {
+                    ready.await();
+                    runMixedWorkload(start);
+                } catch (Throwable throwable) {
+                    errors.add(throwable);
+                }
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Нагрузка не завершилась");
+        Assertions.assertTrue(errors.isEmpty(), "Ошибки при параллельной работе: " + errors);
+
+        List<Task> timed = new ArrayList<>();
+        timed.addAll(taskManager.listSingleTasks());
+        timed.addAll(taskManager.listSubTasks());
+        timed.removeIf(task -> task.getStartTime().isEqual(LocalDateTime.of(1, 1, 1, 0, 0)));
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        Assertions.assertEquals(new HashSet<>(timed), new HashSet<>(prioritized), "Индекс приоритетов рассогласован");
+        for (int i = 1; i < prioritized.size(); i++) {
+            Task previous = prioritized.get(i - 1);
+            Task current = prioritized.get(i);
+            boolean identical = previous.getStartTime().isEqual(current.getStartTime())
+                                && previous.getEndTime().isEqual(current.getEndTime());
+            Assertions.assertTrue(identical || !previous.getEndTime().isAfter(current.getStartTime()),
+                                  "Задачи пересекаются: " + previous + " и " + current);
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : taskManager.listSingleTasks()) {
+            Assertions.assertTrue(ids.add(task.getId()), "Повторный id " + task.getId());
+        }
+        for (Task task : taskManager.listEpicTasks()) {
+            Assertions.assertTrue(ids.add(task.getId()), "Повторный id " + task.getId());
+            EpicTask epic = (EpicTask) task;
+            boolean allDone = !epic.getSubTasks().isEmpty()
+                              && epic.getSubTasks().stream().allMatch(subTask -> subTask.getStatusTask() == StatusTask.DONE);
+            Assertions.assertEquals(allDone, epic.getStatusTask() == StatusTask.DONE, "Неверный статус эпика " + epic);
+        }
+        for (Task task : taskManager.listSubTasks()) {
+            Assertions.assertTrue(ids.add(task.getId()), "Повторный id " + task.getId());
+            EpicTask epic = (EpicTask) taskManager.findTask(((SubTask) task).getEpicId());
+            Assertions.assertTrue(epic.getSubTasks().contains(task), "Подзадача не привязана к эпику " + task);
+        }
+        for (Task task : taskManager.getHistory()) {
+            Assertions.assertNotNull(taskManager.findTask(task.getId()), "В истории удалённая задача");
+        }
+    }
+
+    @Test
+    void readsReturnCopiesOfBoardTasks() {
+        EpicTask epic = (EpicTask) taskManager.findTask(epicTask.getId());
+        List<Task> epics = taskManager.listEpicTasks();
+        taskManager.removeTask(subTask2.getId());
+
+        Assertions.assertEquals(List.of(subTask1, subTask2), epic.getSubTasks(), "Прочитанный эпик изменён записью");
+        Assertions.assertEquals(List.of(subTask1, subTask2), ((EpicTask) epics.get(0)).getSubTasks(),
+                                "Эпик из списка изменён записью");
+        Assertions.assertEquals(List.of(subTask1),
+                                ((EpicTask) taskManager.findTask(epicTask.getId())).getSubTasks(),
+                                "Запись не применена");
+    }
+
+    // Смесь чтений и изменений одного потока: пересечения и отсутствующие задачи - ожидаемые исходы гонок
+    private void runMixedWorkload(LocalDateTime start) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int step = 0; step < STEPS; step++) {
+            int operation = random.nextInt(20);
+            LocalDateTime taskStart = start.plusHours(random.nextInt(5_000));
+            int duration = random.nextInt(1, 61);
+            try {
+                if (operation < 3) {
+                    taskManager.createTask(new SingleTask("Task" + step, "Task " + step, taskStart, duration));
+                } else if (operation < 5) {
+                    List<Task> epics = taskManager.listEpicTasks();
+                    int epicId = epics.get(random.nextInt(epics.size())).getId();
+                    StatusTask status = random.nextBoolean() ? StatusTask.DONE : StatusTask.NEW;
+                    taskManager.createTask(new SubTask("SubTask" + step, "Subtask " + step, taskStart, duration, epicId, status));
+                } else if (operation < 6) {
+                    taskManager.createTask(new EpicTask("Epic" + step, "Epic " + step));
+                } else if (operation < 8) {
+                    List<Task> singleTasks = taskManager.listSingleTasks();
+                    if (singleTasks.isEmpty()) continue;
+                    Task old = singleTasks.get(random.nextInt(singleTasks.size()));
+                    SingleTask updated = new SingleTask(old.getName(), old.getDescription(), taskStart, duration);
+                    updated.setId(old.getId());
+                    taskManager.updateTask(updated);
+                } else if (operation < 9) {
+                    List<Task> subTasks = taskManager.listSubTasks();
+                    if (subTasks.isEmpty()) continue;
+                    taskManager.removeTask(subTasks.get(random.nextInt(subTasks.size())).getId());
+                } else if (operation < 14) {
+                    taskManager.getTaskById(1 + random.nextInt(STEPS));
+                } else if (operation < 17) {
+                    taskManager.findTask(1 + random.nextInt(STEPS));
+                } else if (operation < 19) {
+                    taskManager.getPrioritizedTasks(taskStart, taskStart.plusHours(100));
+                } else {
+                    taskManager.listEpicTasks();
+                }
+            } catch (TaskTimeOverlapException | NotFoundException ignored) {
+            }
+        }
+    }
+}
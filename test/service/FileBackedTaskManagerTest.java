@@ -2,7 +2,9 @@ package service;
 
 import model.EpicTask;
 import model.SingleTask;
+import model.StatusTask;
 import model.SubTask;
+import model.Task;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +17,9 @@ import java.io.Writer;
 import java.io.FileWriter;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     private File tempFile;
@@ -23,6 +28,8 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         try {
             tempFile = File.createTempFile("TestTaskStorage", ".csv");
             tempFile.deleteOnExit();
+            AtomicFiles.previousGeneration(tempFile.toPath()).toFile().deleteOnExit();
+            TaskIndexFile.indexPath(tempFile.toPath()).toFile().deleteOnExit();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -40,6 +47,101 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         return FileBackedTaskManager.loadFromFile(tempFile.toPath());
     }
 
+    @Test
+    void clearSavesOnce() {
+        int[] saves = {0};
+        FileBackedTaskManager countingManager = new FileBackedTaskManager(tempFile.toPath()) {
+            @Override
+            public void save() {
+                saves[0]++;
+                super.save();
+            }
+        };
+        EpicTask epicTaskNew = new EpicTask("EpicTask2", "Epic task 2");
+        countingManager.createTask(epicTaskNew);
+        for (int i = 0; i < 10; i++) {
+            countingManager.createTask(new SubTask("SubTask" + i, "Subtask " + i, epicTaskNew.getId()));
+        }
+        saves[0] = 0;
+
+        countingManager.clearSubTasks();
+
+        Assertions.assertEquals(1, saves[0], "Очистка подзадач сохраняет файл больше одного раза");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertTrue(loaded.listSubTasks().isEmpty(), "Подзадачи остались в файле");
+        Assertions.assertEquals(List.of(epicTaskNew), loaded.listEpicTasks(), "Эпик не сохранён");
+    }
+
+    @Test
+    void batchSavesOnce() {
+        int[] saves = {0};
+        FileBackedTaskManager countingManager = new FileBackedTaskManager(tempFile.toPath()) {
+            @Override
+            public void save() {
+                saves[0]++;
+                super.save();
+            }
+        };
+        EpicTask epicTaskNew = new EpicTask("EpicTask2", "Epic task 2");
+        countingManager.createTask(epicTaskNew);
+        List<Task> subTasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            subTasks.add(new SubTask("SubTask" + i, "Subtask " + i, LocalDateTime.of(2025, 1, 1, 10, 0).plusHours(i), 30,
+                                     epicTaskNew.getId()));
+        }
+        saves[0] = 0;
+
+        countingManager.createTasks(subTasks);
+        Assertions.assertEquals(1, saves[0], "Пакетное создание сохраняет файл больше одного раза");
+
+        List<Task> doneSubTasks = new ArrayList<>();
+        for (Task task : subTasks) {
+            SubTask done = new SubTask(task.getName(), task.getDescription(), task.getStartTime(), 30,
+                                       epicTaskNew.getId(), StatusTask.DONE);
+            done.setId(task.getId());
+            doneSubTasks.add(done);
+        }
+        countingManager.updateTasks(doneSubTasks);
+        Assertions.assertEquals(2, saves[0], "Пакетное изменение сохраняет файл больше одного раза");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(10, loaded.listSubTasks().size(), "Подзадачи пачки не сохранены");
+        Assertions.assertEquals(StatusTask.DONE, loaded.findTask(epicTaskNew.getId()).getStatusTask(),
+                                "Статус эпика не восстановлен после пачки");
+    }
+
+    @Test
+    void transactionSavesOnce() {
+        int[] saves = {0};
+        FileBackedTaskManager countingManager = new FileBackedTaskManager(tempFile.toPath()) {
+            @Override
+            public void save() {
+                saves[0]++;
+                super.save();
+            }
+        };
+        SingleTask singleTaskTimed = new SingleTask("CommonTask2", "Common task 2", LocalDateTime.of(2025, 1, 1, 10, 0), 30);
+        countingManager.createTask(singleTaskTimed);
+        saves[0] = 0;
+
+        TaskTransaction transaction = countingManager.beginTransaction();
+        for (int i = 1; i <= 5; i++) {
+            transaction.createTask(new SingleTask("CommonTask" + (i + 2), "Common task", LocalDateTime.of(2025, 1, 1, 10, 0).plusHours(i), 30));
+        }
+        transaction.removeTask(singleTaskTimed.getId()).commit();
+        Assertions.assertEquals(1, saves[0], "Транзакция сохраняет файл больше одного раза");
+
+        TaskTransaction failing = countingManager.beginTransaction()
+                                                 .createTask(new SingleTask("CommonTask8", "Common task 8"))
+                                                 .createTask(new SingleTask("CommonTask9", "Common task 9",
+                                                                            LocalDateTime.of(2025, 1, 1, 11, 10), 30));
+        Assertions.assertThrows(TaskTimeOverlapException.class, failing::commit, "Пересечение по времени не выявлено");
+        Assertions.assertEquals(1, saves[0], "Отменённая транзакция сохранена в файл");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(5, loaded.listSingleTasks().size(), "Транзакция не сохранена");
+    }
+
     @Test
     void saveAndLoadEmptyFile() {
         clearTasks();
@@ -62,7 +164,11 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         SubTask subTask1 = new SubTask("SubTask1", "Subtask 1", epicTask1.getId());
         taskManager.createTask(subTask1);
 
-        String[] linesOfFile = Files.readString(tempFile.toPath()).split("\n");
+        // Строки контрольных сумм не относятся к данным
+        String[] linesOfFile = Files.readAllLines(tempFile.toPath())
+                                    .stream()
+                                    .filter(line -> !line.startsWith("#"))
+                                    .toArray(String[]::new);
 
         Assertions.assertEquals("id,type,name,status,description,startTime,duration,epic",
                                 linesOfFile[0],
@@ -100,4 +206,142 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
 
     }
 
+    @Test
+    void loadWithoutRewritingFile() throws IOException {
+        clearTasks();
+        String content = String.join("\n",
+                                     "id,type,name,status,description,startTime,duration,epic",
+                                     "3,SUB,SubTask1,DONE,Subtask 1,10:00 01.01.2025,30,2",
+                                     "1,REG,CommonTask1,NEW,Common task 1,00:00 01.01.0001,0",
+                                     "2,EPIC,EpicTask1,NEW,Epic task 1");
+        Files.writeString(tempFile.toPath(), content, StandardCharsets.UTF_8);
+
+        taskManager = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+
+        Assertions.assertEquals(content, Files.readString(tempFile.toPath()), "Файл изменён при загрузке");
+        Assertions.assertEquals(3, taskManager.getLoadStatistics().getTasks(), "Ошибка подсчёта загруженных задач");
+        Assertions.assertEquals(StatusTask.DONE, taskManager.getTaskById(2).getStatusTask(), "Подзадача не привязана к эпику");
+        Assertions.assertEquals(1, taskManager.getPrioritizedTasks().size(), "Ошибка восстановления приоритетов");
+        SingleTask singleTask1 = new SingleTask("CommonTask2", "Common task 2");
+        taskManager.createTask(singleTask1);
+        Assertions.assertEquals(4, singleTask1.getId(), "Генератор ID не восстановлен");
+    }
+
+    @Test
+    void saveAndLoadBinaryFormat() throws IOException {
+        FileBackedTaskManager binaryManager = new FileBackedTaskManager(tempFile.toPath(), StorageFormat.BINARY);
+        SingleTask singleTask1 = new SingleTask("Задача", "Описание", LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        binaryManager.createTask(singleTask1);
+        EpicTask epicTask1 = new EpicTask("EpicTask1", "Epic task 1");
+        binaryManager.createTask(epicTask1);
+        SubTask subTask1 = new SubTask("SubTask1", "Subtask 1", LocalDateTime.of(2025, 1, 2, 10, 0), 30, epicTask1.getId(), StatusTask.DONE);
+        binaryManager.createTask(subTask1);
+
+        Assertions.assertTrue(BinaryTaskSnapshot.isBinarySnapshot(tempFile.toPath()), "Файл записан не в бинарном формате");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath(), StorageFormat.BINARY);
+        Assertions.assertEquals(singleTask1.toString(), loaded.getTaskById(singleTask1.getId()).toString(), "Ошибка чтения обычной задачи");
+        Assertions.assertEquals(epicTask1.toString(), loaded.getTaskById(epicTask1.getId()).toString(), "Ошибка чтения эпика");
+        Assertions.assertEquals(subTask1.toString(), loaded.getTaskById(subTask1.getId()).toString(), "Ошибка чтения подзадачи");
+        Assertions.assertEquals(binaryManager.getPrioritizedTasks(), loaded.getPrioritizedTasks(), "Ошибка восстановления приоритетов");
+    }
+
+    @Test
+    void convertCsvToBinary() throws IOException {
+        File binaryFile = File.createTempFile("TestTaskStorage", ".bin");
+        binaryFile.deleteOnExit();
+
+        StorageConverter.csvToBinary(tempFile.toPath(), binaryFile.toPath());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(binaryFile.toPath(), StorageFormat.BINARY);
+        Assertions.assertEquals(taskManager.getSingleTasks().toString(), loaded.getSingleTasks().toString(), "Обычные задачи не перенесены");
+        Assertions.assertEquals(taskManager.getEpicTasks().toString(), loaded.getEpicTasks().toString(), "Эпики не перенесены");
+        Assertions.assertEquals(taskManager.getSubTasks().toString(), loaded.getSubTasks().toString(), "Подзадачи не перенесены");
+    }
+
+    @Test
+    void corruptedSnapshotFallsBackToPreviousGeneration() throws IOException {
+        String previousSubTasks = taskManager.getSubTasks().toString();
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+
+        // Повреждение одного байта в строке данных последнего снимка
+        String content = Files.readString(tempFile.toPath());
+        Files.writeString(tempFile.toPath(), content.replace("DONE", "DONF"), StandardCharsets.UTF_8);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertTrue(loaded.getLoadStatistics().isFromPreviousGeneration(), "Повреждение снимка не обнаружено");
+        Assertions.assertEquals(previousSubTasks, loaded.getSubTasks().toString(), "Предыдущее поколение не загружено");
+    }
+
+    @Test
+    void snapshotTruncatedAfterBlockChecksumIsDetected() throws IOException {
+        taskManager.createTask(new SingleTask("CommonTask2", "Common task 2"));
+        String previousSingleTasks = taskManager.getSingleTasks().toString();
+        taskManager.removeTask(singleTask.getId());
+
+        // Обрезка ровно после суммы блока с заголовком: суммы блоков сходятся, задачи пропали
+        String content = Files.readString(tempFile.toPath());
+        int blockEnd = content.indexOf('\n', content.indexOf(SnapshotChecksums.CSV_CHECKSUM_PREFIX)) + 1;
+        Files.writeString(tempFile.toPath(), content.substring(0, blockEnd), StandardCharsets.UTF_8);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertTrue(loaded.getLoadStatistics().isFromPreviousGeneration(), "Обрезанный снимок не обнаружен");
+        Assertions.assertEquals(previousSingleTasks, loaded.getSingleTasks().toString(), "Предыдущее поколение не загружено");
+    }
+
+    @Test
+    void truncatedBinarySnapshotIsDetected() throws IOException {
+        FileBackedTaskManager binaryManager = new FileBackedTaskManager(tempFile.toPath(), StorageFormat.BINARY);
+        binaryManager.createTask(new SingleTask("CommonTask2", "Common task 2"));
+        binaryManager.createTask(new SingleTask("CommonTask3", "Common task 3"));
+        byte[] content = Files.readAllBytes(tempFile.toPath());
+        Files.write(tempFile.toPath(), Arrays.copyOf(content, content.length - 3));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath(), StorageFormat.BINARY);
+        Assertions.assertTrue(loaded.getLoadStatistics().isFromPreviousGeneration(), "Обрезанный снимок не обнаружен");
+        Assertions.assertEquals(1, loaded.getSingleTasks().size(), "Предыдущее поколение не загружено");
+    }
+
+    @Test
+    void missingSnapshotAfterCrashLoadsPreviousGeneration() throws IOException {
+        taskManager.createTask(new SingleTask("CommonTask2", "Common task 2"));
+        String previousSingleTasks = taskManager.getSingleTasks().toString();
+        taskManager.removeTask(singleTask.getId());
+        // Сбой при записи снимка на файловой системе без атомарной замены
+        // (новый снимок ещё не появился, на его месте создан пустой файл)
+        Files.write(tempFile.toPath(), new byte[0]);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertTrue(loaded.getLoadStatistics().isFromPreviousGeneration(), "Предыдущее поколение не использовано");
+        Assertions.assertEquals(previousSingleTasks, loaded.getSingleTasks().toString(), "Задачи потеряны после сбоя");
+    }
+
+    @Test
+    void historyAndPrioritiesSurviveRestart() {
+        SingleTask singleTask2 = new SingleTask("CommonTask2", "Common task 2", LocalDateTime.of(2025, 1, 2, 10, 0), 15);
+        taskManager.createTask(singleTask2);
+        SingleTask singleTask3 = new SingleTask("CommonTask3", "Common task 3", LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        taskManager.createTask(singleTask3);
+        taskManager.getTaskById(subTask2.getId());
+        taskManager.getTaskById(singleTask.getId());
+        taskManager.save();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(taskManager.getHistory().toString(), loaded.getHistory().toString(), "История не восстановлена");
+        Assertions.assertEquals(List.of(singleTask3, singleTask2), loaded.getPrioritizedTasks(), "Приоритеты не восстановлены");
+    }
+
+    @Test
+    void staleIndexIsRebuilt() throws IOException {
+        SingleTask singleTask2 = new SingleTask("CommonTask2", "Common task 2", LocalDateTime.of(2025, 1, 2, 10, 0), 15);
+        taskManager.createTask(singleTask2);
+        byte[] staleIndex = Files.readAllBytes(TaskIndexFile.indexPath(tempFile.toPath()));
+        SingleTask singleTask3 = new SingleTask("CommonTask3", "Common task 3", LocalDateTime.of(2025, 1, 1, 10, 0), 15);
+        taskManager.createTask(singleTask3);
+        Files.write(TaskIndexFile.indexPath(tempFile.toPath()), staleIndex);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(List.of(singleTask3, singleTask2), loaded.getPrioritizedTasks(), "Устаревший индекс не перестроен");
+    }
 }
@@ -1,8 +1,168 @@
 package service;
 
+import model.EpicTask;
+import model.SingleTask;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
 public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     @Override
     public InMemoryTaskManager createTestManager() {
         return new InMemoryTaskManager();
     }
+
+    @Test
+    void tasksWithSameStartTimeArePrioritized() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        SingleTask singleTask1 = new SingleTask("CommonTask2", "Common task 2", start, 0);
+        taskManager.createTask(singleTask1);
+        SingleTask singleTask2 = new SingleTask("CommonTask3", "Common task 3", start, 30);
+        taskManager.createTask(singleTask2);
+
+        Assertions.assertEquals(List.of(singleTask1, singleTask2), taskManager.getPrioritizedTasks(), "Задачи с одним началом слились");
+    }
+
+    @Test
+    void updatedTaskIsRepositioned() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        SingleTask singleTask1 = new SingleTask("CommonTask2", "Common task 2", start, 30);
+        taskManager.createTask(singleTask1);
+        SingleTask moved = new SingleTask("CommonTask2", "Common task 2", start.plusMinutes(15), 30);
+        moved.setId(singleTask1.getId());
+        taskManager.updateTask(moved);
+
+        Assertions.assertEquals(List.of(moved), taskManager.getPrioritizedTasks(), "Прежняя версия задачи осталась в приоритетах");
+        Assertions.assertEquals(start.plusMinutes(15), taskManager.getPrioritizedTasks().get(0).getStartTime(), "Задача не переставлена");
+    }
+
+    @Test
+    void prioritizedIndexStaysConsistent() {
+        Random random = new Random(7);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Integer> epicIds = new ArrayList<>(List.of(epicTask.getId()));
+        for (int step = 0; step < 3_000; step++) {
+            List<Task> timed = new ArrayList<>();
+            timed.addAll(taskManager.getSingleTasks());
+            timed.addAll(taskManager.getSubTasks());
+            int operation = random.nextInt(10);
+            // Время кратно часу, длительность не больше часа: пересечения возможны, но не слишком часты
+            LocalDateTime taskStart = random.nextInt(5) == 0
+                                      ? LocalDateTime.of(1, 1, 1, 0, 0)
+                                      : start.plusHours(random.nextInt(2_000));
+            int duration = random.nextInt(61);
+            try {
+                if (operation < 4) {
+                    taskManager.createTask(new SingleTask("Task" + step, "Task " + step, taskStart, duration));
+                } else if (operation < 6 && !epicIds.isEmpty()) {
+                    int epicId = epicIds.get(random.nextInt(epicIds.size()));
+                    taskManager.createTask(new SubTask("SubTask" + step, "Subtask " + step, taskStart, duration, epicId));
+                } else if (operation < 7) {
+                    EpicTask epicTaskNew = new EpicTask("Epic" + step, "Epic " + step);
+                    taskManager.createTask(epicTaskNew);
+                    epicIds.add(epicTaskNew.getId());
+                } else if (operation < 9 && !timed.isEmpty()) {
+                    Task old = timed.get(random.nextInt(timed.size()));
+                    Task updated = old instanceof SubTask
+                                   ? new SubTask(old.getName(), old.getDescription(), taskStart, duration, ((SubTask) old).getEpicId())
+                                   : new SingleTask(old.getName(), old.getDescription(), taskStart, duration);
+                    updated.setId(old.getId());
+                    taskManager.updateTask(updated);
+                } else if (!timed.isEmpty()) {
+                    int id = random.nextBoolean() && epicIds.size() > 1
+                             ? epicIds.remove(random.nextInt(epicIds.size()))
+                             : timed.get(random.nextInt(timed.size())).getId();
+                    taskManager.removeTask(id);
+                }
+            } catch (TaskTimeOverlapException ignored) {
+            }
+
+            List<Task> expected = new ArrayList<>();
+            expected.addAll(taskManager.getSingleTasks());
+            expected.addAll(taskManager.getSubTasks());
+            expected = expected.stream()
+                               .filter(task -> !task.getStartTime().isEqual(LocalDateTime.of(1, 1, 1, 0, 0)))
+                               .sorted(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId))
+                               .collect(Collectors.toList());
+            Assertions.assertEquals(expected, taskManager.getPrioritizedTasks(), "Индекс приоритетов рассогласован на шаге " + step);
+        }
+    }
+
+    @Test
+    void typeListingsFollowChanges() {
+        SingleTask singleTask2 = new SingleTask("CommonTask2", "Common task 2");
+        taskManager.createTask(singleTask2);
+        EpicTask epicTask2 = new EpicTask("EpicTask2", "Epic task 2");
+        taskManager.createTask(epicTask2);
+        SubTask subTask3 = new SubTask("SubTask3", "Subtask 3", epicTask2.getId());
+        taskManager.createTask(subTask3);
+
+        SingleTask updated = new SingleTask("CommonTask1", "Updated task 1");
+        updated.setId(singleTask.getId());
+        taskManager.updateTask(updated);
+        taskManager.removeTask(subTask1.getId());
+        taskManager.removeTask(epicTask2.getId());
+
+        Assertions.assertEquals(List.of(updated, singleTask2), taskManager.getSingleTasks(), "Неверный список обычных задач");
+        Assertions.assertSame(updated, taskManager.getSingleTasks().get(0), "В списке осталась прежняя версия задачи");
+        Assertions.assertEquals(List.of(epicTask), taskManager.getEpicTasks(), "Неверный список эпиков");
+        Assertions.assertEquals(List.of(subTask2), taskManager.getSubTasks(), "Неверный список подзадач");
+    }
+
+    @Test
+    void batchUpdateSwapsTaskTimes() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        SingleTask first = new SingleTask("CommonTask2", "Common task 2", start, 30);
+        taskManager.createTask(first);
+        SingleTask second = new SingleTask("CommonTask3", "Common task 3", start.plusMinutes(60), 30);
+        taskManager.createTask(second);
+        SingleTask firstMoved = new SingleTask("CommonTask2", "Common task 2", start.plusMinutes(60), 30);
+        firstMoved.setId(first.getId());
+        SingleTask secondMoved = new SingleTask("CommonTask3", "Common task 3", start, 30);
+        secondMoved.setId(second.getId());
+
+        // По одной задаче обмен временем невозможен: первое изменение пересекается со второй задачей
+        BatchResult result = taskManager.updateTasks(List.of(firstMoved, secondMoved));
+
+        Assertions.assertEquals(2, result.getAppliedCount(), "Обмен временем в пачке не выполнен");
+        Assertions.assertEquals(List.of(secondMoved, firstMoved), taskManager.getPrioritizedTasks(),
+                                "Неверные приоритеты после обмена");
+        Assertions.assertSame(firstMoved, taskManager.getPrioritizedTasks().get(1), "В индексе осталась прежняя версия");
+    }
+
+    @Test
+    void rejectedBatchUpdateKeepsItsTime() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        SingleTask blocker = new SingleTask("CommonTask2", "Common task 2", start.plusMinutes(100), 30);
+        taskManager.createTask(blocker);
+        SingleTask first = new SingleTask("CommonTask3", "Common task 3", start, 30);
+        taskManager.createTask(first);
+        SingleTask second = new SingleTask("CommonTask4", "Common task 4", start.plusMinutes(60), 30);
+        taskManager.createTask(second);
+        SingleTask firstMoved = new SingleTask("CommonTask3", "Common task 3", start.plusMinutes(110), 10);
+        firstMoved.setId(first.getId());
+        SingleTask secondMoved = new SingleTask("CommonTask4", "Common task 4", start.plusMinutes(10), 30);
+        secondMoved.setId(second.getId());
+
+        // Первая задача не переносится и остаётся на прежнем времени, которое нужно второй
+        BatchResult result = taskManager.updateTasks(List.of(firstMoved, secondMoved));
+
+        Assertions.assertEquals(BatchOutcome.OVERLAP, result.getItem(0).getOutcome(), "Пересечение не выявлено");
+        Assertions.assertEquals(BatchOutcome.OVERLAP, result.getItem(1).getOutcome(),
+                                "Пересечение с прежним временем отклонённой задачи не выявлено");
+        Assertions.assertEquals(List.of(first, second, blocker), taskManager.getPrioritizedTasks(),
+                                "Индекс приоритетов изменён отклонённой пачкой");
+        Assertions.assertSame(first, taskManager.findTask(first.getId()), "Отклонённое изменение применено");
+        Assertions.assertThrows(TaskTimeOverlapException.class,
+                                () -> taskManager.createTask(new SingleTask("CommonTask5", "Common task 5", start.plusMinutes(5), 30)),
+                                "Прежний интервал отклонённой задачи не вернулся в индекс");
+    }
 }
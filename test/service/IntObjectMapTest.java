@@ -0,0 +1,36 @@
+package service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+public class IntObjectMapTest {
+    @Test
+    void matchesHashMap() {
+        Random random = new Random(5);
+        Map<Integer, String> expected = new HashMap<>();
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // Узкий диапазон ключей даёт длинные цепочки и удаления со сдвигом, широкий - отрицательные ключи и ноль
+            int key = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(2_000);
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                Assertions.assertEquals(expected.remove(key), map.remove(key), "Неверное удаление на шаге " + step);
+            } else if (operation == 1) {
+                String value = "value" + step;
+                Assertions.assertEquals(expected.put(key, value), map.put(key, value), "Неверная вставка на шаге " + step);
+            } else {
+                Assertions.assertEquals(expected.get(key), map.get(key), "Неверный поиск на шаге " + step);
+            }
+            Assertions.assertEquals(expected.size(), map.size(), "Неверный размер на шаге " + step);
+        }
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            Assertions.assertEquals(entry.getValue(), map.get(entry.getKey()), "Потеряна запись " + entry.getKey());
+        }
+        Assertions.assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()), "Неверный обход значений");
+    }
+}
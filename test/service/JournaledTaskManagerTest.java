@@ -0,0 +1,401 @@
+package service;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.StatusTask;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class JournaledTaskManagerTest extends TaskManagerTest<JournaledTaskManager> {
+    private File tempFile;
+
+    private void createTestFile() {
+        try {
+            tempFile = File.createTempFile("TestTaskStorage", ".csv");
+            tempFile.deleteOnExit();
+            new File(tempFile.getPath() + ".journal").deleteOnExit();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public JournaledTaskManager createTestManager() {
+        createTestFile();
+        return JournaledTaskManager.loadFromFile(tempFile.toPath());
+    }
+
+    @Test
+    void changesAreAppendedToJournal() throws IOException {
+        List<String> journal = Files.readAllLines(taskManager.getJournalPath());
+        Assertions.assertEquals(4, journal.size(), "Каждое изменение должно занимать одну запись журнала");
+        Assertions.assertEquals(TaskJournal.put(singleTask), journal.get(0), "Ошибка записи обычной задачи в журнал");
+
+        taskManager.removeTask(singleTask.getId());
+        journal = Files.readAllLines(taskManager.getJournalPath());
+        Assertions.assertEquals(TaskJournal.delete(singleTask.getId()), journal.get(journal.size() - 1), "Ошибка записи удаления");
+        Assertions.assertEquals(0, Files.size(tempFile.toPath()), "Снимок не должен перезаписываться до контрольной точки");
+    }
+
+    @Test
+    void restoreFromSnapshotAndJournal() {
+        SingleTask singleTaskWithTime = new SingleTask("CommonTask2", "Common task 2", LocalDateTime.of(2025, 1, 1, 10, 0), 30);
+        taskManager.createTask(singleTaskWithTime);
+        taskManager.checkpoint();
+
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        taskManager.removeTask(singleTask.getId());
+
+        JournaledTaskManager restored = JournaledTaskManager.loadFromFile(tempFile.toPath());
+
+        Assertions.assertThrows(NotFoundException.class,
+                                () -> restored.getTaskById(singleTask.getId()),
+                                "Удаление из журнала не восстановлено");
+        Assertions.assertEquals(subTask1.toString(), restored.getTaskById(subTask1.getId()).toString(), "Ошибка восстановления подзадачи");
+        Assertions.assertEquals(StatusTask.IN_PROGRESS,
+                                restored.getTaskById(epicTask.getId()).getStatusTask(),
+                                "Статус эпика не пересчитан после восстановления");
+        Assertions.assertEquals(List.of(singleTaskWithTime), restored.getPrioritizedTasks(), "Ошибка восстановления приоритетов");
+
+        SingleTask singleTaskNew = new SingleTask("CommonTask3", "Common task 3");
+        restored.createTask(singleTaskNew);
+        Assertions.assertEquals(singleTaskWithTime.getId() + 1, singleTaskNew.getId(), "Генератор ID не восстановлен");
+    }
+
+    @Test
+    void batchIsAppendedAndReplayed() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(new SubTask("SubTask" + i, "Subtask " + i, epicTask.getId(), StatusTask.DONE));
+        }
+        taskManager.createTasks(tasks);
+
+        List<String> journal = Files.readAllLines(taskManager.getJournalPath());
+        Assertions.assertEquals(9, journal.size(), "Каждая задача пачки должна занимать одну запись журнала");
+        Assertions.assertEquals(TaskJournal.put(tasks.get(4)), journal.get(8), "Ошибка записи пачки в журнал");
+
+        JournaledTaskManager restored = JournaledTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(7, restored.listSubTasks().size(), "Пачка не восстановлена из журнала");
+        Assertions.assertEquals(StatusTask.IN_PROGRESS, restored.findTask(epicTask.getId()).getStatusTask(),
+                                "Статус эпика не пересчитан после восстановления пачки");
+    }
+
+    @Test
+    void transactionIsAppendedAsGroupAndReplayed() throws IOException {
+        SubTask doneSubTask = new SubTask("SubTask1", "Subtask 1", epicTask.getId(), StatusTask.DONE);
+        doneSubTask.setId(subTask1.getId());
+        SingleTask singleTaskNew = new SingleTask("CommonTask2", "Common task 2");
+        taskManager.beginTransaction()
+                   .createTask(singleTaskNew)
+                   .updateTask(doneSubTask)
+                   .removeTask(singleTask.getId())
+                   .commit();
+
+        List<String> journal = Files.readAllLines(taskManager.getJournalPath());
+        Assertions.assertEquals(TaskJournal.transaction(new TaskTransaction(taskManager)
+                                                                .createTask(singleTaskNew)
+                                                                .updateTask(doneSubTask)
+                                                                .removeTask(singleTask.getId())),
+                                journal.subList(4, journal.size()), "Ошибка записи транзакции в журнал");
+
+        JournaledTaskManager restored = JournaledTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(List.of(singleTaskNew), restored.listSingleTasks(), "Транзакция не восстановлена из журнала");
+        Assertions.assertEquals(StatusTask.IN_PROGRESS, restored.findTask(epicTask.getId()).getStatusTask(),
+                                "Статус эпика не пересчитан после восстановления транзакции");
+    }
+
+    @Test
+    void tornTransactionIsNotReplayed() throws IOException {
+        SingleTask singleTaskNew = new SingleTask("CommonTask2", "Common task 2");
+        taskManager.beginTransaction()
+                   .createTask(singleTaskNew)
+                   .removeTask(singleTask.getId())
+                   .commit();
+        // Сбой во время записи: последняя запись транзакции не дошла до диска
+        List<String> journal = Files.readAllLines(taskManager.getJournalPath());
+        Files.write(taskManager.getJournalPath(), journal.subList(0, journal.size() - 1));
+
+        JournaledTaskManager restored = JournaledTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(List.of(singleTask), restored.listSingleTasks(),
+                                "Транзакция, записанная не до конца, применена частично");
+    }
+
+    @Test
+    void tornLastRecordStopsReplay() throws IOException {
+        SingleTask singleTaskNew = new SingleTask("CommonTask2", "Common task 2", LocalDateTime.of(2025, 1, 1, 10, 0), 30);
+        taskManager.createTask(singleTaskNew);
+        // Сбой посреди записи: от последней строки на диске осталась часть без перевода строки
+        byte[] journal = Files.readAllBytes(taskManager.getJournalPath());
+        Files.write(taskManager.getJournalPath(), Arrays.copyOf(journal, journal.length - 3));
+
+        JournaledTaskManager restored = JournaledTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(List.of(singleTask), restored.listSingleTasks(), "Обрезанная запись применена");
+        SingleTask singleTaskNext = new SingleTask("CommonTask3", "Common task 3");
+        restored.createTask(singleTaskNext);
+        restored.close();
+
+        JournaledTaskManager reopened = JournaledTaskManager.loadFromFile(tempFile.toPath());
+        Assertions.assertEquals(List.of(singleTask, singleTaskNext), reopened.listSingleTasks(),
+                                "Запись после обрезанного хвоста потеряна");
+        reopened.close();
+    }
+
+    @Test
+    void replayOverNewerSnapshotAfterCrashedCheckpoint() {
+        LocalDateTime ten = LocalDateTime.of(2025, 1, 1, 10, 0);
+        SingleTask taskA = new SingleTask("CommonTask2", "Common task 2", ten, 30);
+        taskManager.createTask(taskA);
+        SingleTask movedA = new SingleTask("CommonTask2", "Common task 2", ten.plusHours(1), 30);
+        movedA.setId(taskA.getId());
+        taskManager.updateTask(movedA);
+        SingleTask taskB = new SingleTask("CommonTask3", "Common task 3", ten.plusMinutes(15), 30);
+        taskManager.createTask(taskB);
+        EpicTask epicTaskNew = new EpicTask("EpicTask2", "Epic task 2");
+        taskManager.createTask(epicTaskNew);
+        taskManager.checkpoint();
+        taskManager.createTask(new SubTask("SubTask3", "Subtask 3", epicTaskNew.getId()));
+        taskManager.removeTask(epicTaskNew.getId());
+        // Сбой контрольной точки после записи снимка и до очистки журнала: журнал проигрывается поверх нового снимка
+        taskManager.save();
+
+        JournaledTaskManager restored = JournaledTaskManager.loadFromFile(tempFile.toPath());
+
+        Assertions.assertEquals(List.of(taskB, movedA), restored.getPrioritizedTasks(), "Ошибка восстановления приоритетов");
+        Assertions.assertEquals(ten.plusHours(1), restored.findTask(taskA.getId()).getStartTime(),
+                                "Старая версия задачи из журнала заменила новую");
+        Assertions.assertEquals(List.of(epicTask), restored.listEpicTasks(), "Удалённый эпик восстановлен");
+        Assertions.assertEquals(List.of(subTask1, subTask2), restored.listSubTasks(),
+                                "Подзадача удалённого эпика восстановлена");
+    }
+
+    @Test
+    void concurrentGroupsAreNotInterleaved() throws IOException, InterruptedException {
+        Path journal = Files.createTempFile("TestJournal", ".journal");
+        journal.toFile().deleteOnExit();
+        GroupCommitWriter writer = new GroupCommitWriter(journal, DurabilityPolicy.everyOperations(50));
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String name = "T" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    writer.appendAll(List.of("TX,3", name, name, name));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+
+        List<String> lines = Files.readAllLines(journal);
+        Assertions.assertEquals(threads.length * 200 * 4, lines.size(), "Записи потеряны");
+        for (int i = 0; i < lines.size(); i += 4) {
+            Assertions.assertEquals("TX,3", lines.get(i), "Группа записей разорвана");
+            Assertions.assertEquals(List.of(lines.get(i + 1), lines.get(i + 1)), lines.subList(i + 2, i + 4),
+                                    "Записи параллельных групп перемешаны");
+        }
+    }
+
+    @Test
+    void checkpointAfterThreshold() throws IOException {
+        JournaledTaskManager journaled = new JournaledTaskManager(tempFile.toPath(), 3);
+        EpicTask epicTaskNew = new EpicTask("EpicTask1", "Epic task 1");
+        journaled.createTask(epicTaskNew);
+        journaled.createTask(new SubTask("SubTask1", "Subtask 1", epicTaskNew.getId()));
+        Assertions.assertEquals(2, journaled.getJournalRecords(), "Ошибка подсчёта записей журнала");
+
+        journaled.createTask(new SubTask("SubTask2", "Subtask 2", epicTaskNew.getId()));
+        Assertions.assertEquals(0, journaled.getJournalRecords(), "Контрольная точка не выполнена");
+        Assertions.assertEquals(0, Files.size(journaled.getJournalPath()), "Журнал не очищен после контрольной точки");
+        Assertions.assertEquals(4,
+                                Files.readAllLines(tempFile.toPath()).stream().filter(line -> !line.startsWith("#")).count(),
+                                "Снимок не записан");
+    }
+
+    @Test
+    void groupCommitFlushesOnClose() throws IOException {
+        JournaledTaskManager journaled = JournaledTaskManager.loadFromFile(tempFile.toPath(),
+                                                                           DurabilityPolicy.everyOperations(1_000));
+        for (int i = 0; i < 10; i++) {
+            journaled.createTask(new SingleTask("CommonTask" + i, "Common task " + i));
+        }
+        Assertions.assertEquals(10, journaled.getPendingRecords(), "Изменения записаны до накопления группы");
+        Assertions.assertEquals(4, Files.readAllLines(journaled.getJournalPath()).size(), "Изменения записаны до накопления группы");
+
+        journaled.close();
+
+        Assertions.assertEquals(0, journaled.getPendingRecords(), "Очередь не записана при закрытии");
+        Assertions.assertEquals(14, Files.readAllLines(journaled.getJournalPath()).size(), "Очередь не записана при закрытии");
+        Assertions.assertEquals(taskManager.getSingleTasks().size() + 10,
+                                JournaledTaskManager.loadFromFile(tempFile.toPath()).getSingleTasks().size(),
+                                "Изменения не восстановлены после закрытия");
+    }
+
+    @Test
+    void incompleteGroupIsFlushedAfterMaxDelay() throws InterruptedException {
+        JournaledTaskManager journaled = JournaledTaskManager.loadFromFile(tempFile.toPath(),
+                                                                           DurabilityPolicy.everyOperations(1_000, 20));
+        journaled.createTask(new SingleTask("CommonTask2", "Common task 2"));
+        for (int i = 0; i < 100 && journaled.getPendingRecords() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, journaled.getPendingRecords(), "Неполная группа не записана по предельной задержке");
+        journaled.close();
+    }
+
+    @Test
+    void groupCommitByInterval() throws InterruptedException {
+        JournaledTaskManager journaled = JournaledTaskManager.loadFromFile(tempFile.toPath(),
+                                                                           DurabilityPolicy.everyMillis(20));
+        journaled.createTask(new SingleTask("CommonTask2", "Common task 2"));
+        for (int i = 0; i < 100 && journaled.getPendingRecords() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, journaled.getPendingRecords(), "Изменения не записаны по таймеру");
+        Assertions.assertEquals(0, journaled.getFlushLagMillis(), "Задержка записи не сброшена");
+        journaled.close();
+    }
+
+    @Test
+    void failedGroupIsRetriedAndBlocksNewChanges() throws IOException {
+        Path journal = Files.createTempFile("TestJournal", ".journal");
+        journal.toFile().deleteOnExit();
+        FileChannel file = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        GroupCommitWriter writer = new GroupCommitWriter(new FailingOnceChannel(file),
+                                                         DurabilityPolicy.everyOperations(1000, 60_000), 1000);
+        writer.appendAll(List.of("A1", "A2"));
+
+        Assertions.assertThrows(ManagerSaveException.class, writer::flush, "Ошибка записи не передана");
+        Assertions.assertEquals(1, writer.getPendingRecords(), "Незаписанная группа потеряна");
+        Assertions.assertThrows(ManagerSaveException.class, () -> writer.append("B"),
+                                "Журнал принимает изменения до повторной записи");
+
+        writer.flush();
+        Assertions.assertEquals(List.of("A1", "A2"), Files.readAllLines(journal), "Группа не записана повторно");
+        writer.append("B");
+        writer.close();
+        Assertions.assertEquals(List.of("A1", "A2", "B"), Files.readAllLines(journal), "Ошибка записи после повтора");
+    }
+
+    // Первая запись обрывается на середине с ошибкой, остальные операции передаются файлу
+    private static class FailingOnceChannel extends FileChannel {
+        private final FileChannel file;
+        private boolean failed;
+
+        FailingOnceChannel(FileChannel file) {
+            this.file = file;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            if (failed) return file.write(source);
+            failed = true;
+            ByteBuffer half = source.duplicate();
+            half.limit(source.position() + source.remaining() / 2);
+            file.write(half);
+            throw new IOException("Нет места на диске");
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            return file.read(destination);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+            return file.read(destinations, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+            return file.write(sources, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            file.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+            return file.transferFrom(source, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer destination, long position) throws IOException {
+            return file.read(destination, position);
+        }
+
+        @Override
+        public int write(ByteBuffer source, long position) throws IOException {
+            return file.write(source, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+}
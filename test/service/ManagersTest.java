@@ -19,4 +19,14 @@ class ManagersTest {
     void ManagerReturnFileBackedTaskManagerTest() {
         assertInstanceOf(FileBackedTaskManager.class, Managers.getDefaultFileBackedTaskManager());
     }
-}
\ No newline at end of file
+
+    @Test
+    void ManagerReturnConcurrentTaskManagerTest() {
+        assertInstanceOf(ConcurrentTaskManager.class, Managers.getConcurrentTaskManager());
+    }
+
+    @Test
+    void ManagerReturnCompactTaskManagerTest() {
+        assertInstanceOf(CompactTaskManager.class, Managers.getCompactTaskManager());
+    }
+}
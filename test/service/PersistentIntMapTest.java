@@ -0,0 +1,50 @@
+package service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class PersistentIntMapTest {
+    @Test
+    void matchesTreeMapAndKeepsOldVersions() {
+        Random random = new Random(11);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        List<PersistentIntMap<String>> versions = new ArrayList<>();
+        List<TreeMap<Integer, String>> expectedVersions = new ArrayList<>();
+        for (int step = 0; step < 5_000; step++) {
+            // Ключи из узкого и широкого диапазона: общие и разные префиксы
+            int key = random.nextBoolean() ? random.nextInt(200) : random.nextInt(Integer.MAX_VALUE);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "value" + step);
+                map = map.put(key, "value" + step);
+            }
+            if (step % 500 == 0) {
+                versions.add(map);
+                expectedVersions.add(new TreeMap<>(expected));
+            }
+            Assertions.assertEquals(expected.size(), map.size(), "Неверный размер на шаге " + step);
+            Assertions.assertEquals(expected.get(key), map.get(key), "Неверное значение на шаге " + step);
+        }
+        Assertions.assertEquals(new ArrayList<>(expected.values()), map.values(), "Обход не по возрастанию ключей");
+        for (int i = 0; i < versions.size(); i++) {
+            Assertions.assertEquals(new ArrayList<>(expectedVersions.get(i).values()), versions.get(i).values(),
+                                    "Старая версия изменилась: " + i);
+        }
+    }
+
+    @Test
+    void removingLastKeyGivesEmptyMap() {
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().put(7, "seven");
+        Assertions.assertTrue(map.remove(7).isEmpty(), "Отображение не пусто");
+        Assertions.assertNull(map.get(-1), "Найден отрицательный ключ");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(-1, "minus"), "Принят отрицательный ключ");
+    }
+}
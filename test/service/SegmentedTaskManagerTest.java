@@ -0,0 +1,180 @@
+package service;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.StatusTask;
+import model.Task;
+import model.TypeTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class SegmentedTaskManagerTest extends TaskManagerTest<SegmentedTaskManager> {
+    private Path tempFile;
+
+    private void createTestFile() {
+        try {
+            tempFile = Files.createTempFile("TestTaskStorage", ".csv");
+            tempFile.toFile().deleteOnExit();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public SegmentedTaskManager createTestManager() {
+        createTestFile();
+        return SegmentedTaskManager.loadFromFile(tempFile);
+    }
+
+    private void createSingleTasks(int count) {
+        for (int i = 0; i < count; i++) {
+            taskManager.createTask(new SingleTask("CommonTask" + i, "Common task " + i));
+        }
+    }
+
+    @AfterEach
+    void deleteSegments() throws IOException {
+        taskManager.close();
+        Files.deleteIfExists(taskManager.getJournalPath());
+        try (Stream<Path> files = Files.walk(taskManager.getSegmentsDirectory())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    void checkpointRewritesOnlyDirtySegments() throws IOException {
+        createSingleTasks(3 * SegmentedTaskManager.SEGMENT_SIZE);
+        taskManager.checkpoint();
+        Assertions.assertEquals(4, taskManager.getSegmentCount(TypeTask.REG), "Неверное число сегментов");
+
+        long rewrittenBefore = taskManager.getRewrittenSegments();
+        SingleTask changed = (SingleTask) taskManager.getTaskById(SegmentedTaskManager.SEGMENT_SIZE + 5);
+        changed.setStatus(StatusTask.DONE);
+        taskManager.updateTask(changed);
+        Assertions.assertEquals(1, taskManager.getDirtyTasks(), "Изменение не отмечено");
+        taskManager.checkpoint();
+
+        Assertions.assertEquals(rewrittenBefore + 1, taskManager.getRewrittenSegments(), "Перезаписаны лишние сегменты");
+        Assertions.assertEquals(0, taskManager.getDirtyTasks(), "Отметки изменений не сброшены");
+        Task restored = SegmentedTaskManager.loadFromFile(tempFile).getTaskById(changed.getId());
+        Assertions.assertEquals(StatusTask.DONE, restored.getStatusTask(), "Изменение не записано");
+    }
+
+    @Test
+    void indexesAreRewrittenOnlyWhenChanged() throws IOException {
+        taskManager.checkpoint();
+        Path indexPath = TaskIndexFile.indexPath(tempFile);
+        Files.delete(indexPath);
+
+        singleTask.setStatus(StatusTask.DONE);
+        taskManager.updateTask(singleTask);
+        taskManager.checkpoint();
+        Assertions.assertFalse(Files.exists(indexPath), "Индексы перезаписаны без изменений истории и приоритетов");
+
+        taskManager.getTaskById(singleTask.getId());
+        taskManager.checkpoint();
+        Assertions.assertTrue(Files.exists(indexPath), "Изменённая история не записана");
+        Assertions.assertEquals(List.of(singleTask), SegmentedTaskManager.loadFromFile(tempFile).getHistory(),
+                                "История не восстановлена");
+    }
+
+    @Test
+    void subTaskChangeRewritesOnlyRelatedTypes() throws IOException {
+        taskManager.checkpoint();
+        Assertions.assertEquals(3, taskManager.getSegmentCount(), "Для каждого типа нужен свой сегмент");
+        Path singleSegment = taskManager.getSegmentsDirectory().resolve("reg-0-1024.csv");
+        List<String> singleSegmentBefore = Files.readAllLines(singleSegment);
+
+        long rewrittenBefore = taskManager.getRewrittenSegments();
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        taskManager.checkpoint();
+
+        Assertions.assertEquals(rewrittenBefore + 2, taskManager.getRewrittenSegments(), "Перезаписаны лишние сегменты");
+        Assertions.assertEquals(singleSegmentBefore, Files.readAllLines(singleSegment), "Сегмент обычных задач изменён");
+        Assertions.assertEquals("#segment," + SegmentedTaskManager.SEGMENT_VERSION + ",REG,0,1024",
+                                singleSegmentBefore.get(0),
+                                "Неверный заголовок сегмента");
+        Task restoredEpicTask = SegmentedTaskManager.loadFromFile(tempFile).getTaskById(epicTask.getId());
+        Assertions.assertEquals(StatusTask.IN_PROGRESS, restoredEpicTask.getStatusTask(), "Статус эпика не записан");
+    }
+
+    @Test
+    void unsupportedSegmentVersionIsRejected() throws IOException {
+        taskManager.checkpoint();
+        Path singleSegment = taskManager.getSegmentsDirectory().resolve("reg-0-1024.csv");
+        List<String> lines = new ArrayList<>(Files.readAllLines(singleSegment));
+        lines.set(0, "#segment," + (SegmentedTaskManager.SEGMENT_VERSION + 1) + ",REG,0,1024");
+        Files.write(singleSegment, lines);
+
+        Assertions.assertThrows(ManagerSaveException.class,
+                                () -> SegmentedTaskManager.loadFromFile(tempFile),
+                                "Сегмент неизвестной версии должен отклоняться");
+    }
+
+    @Test
+    void restoreAfterClose() throws IOException {
+        taskManager.removeTask(subTask1.getId());
+        taskManager.close();
+
+        SegmentedTaskManager restored = SegmentedTaskManager.loadFromFile(tempFile);
+        Assertions.assertEquals(taskManager.getSingleTasks(), restored.getSingleTasks(), "Обычные задачи не восстановлены");
+        Assertions.assertEquals(taskManager.getSubTasks(), restored.getSubTasks(), "Подзадачи не восстановлены");
+        EpicTask restoredEpicTask = (EpicTask) restored.getTaskById(epicTask.getId());
+        Assertions.assertEquals(List.of(subTask2), restoredEpicTask.getSubTasks(), "Подзадачи не привязаны к эпику");
+    }
+
+    @Test
+    void changesSurviveCrashBeforeCheckpoint() throws IOException {
+        SegmentedTaskManager segmented = SegmentedTaskManager.loadFromFile(tempFile, 1_000, Long.MAX_VALUE);
+        SingleTask singleTaskNew = new SingleTask("CommonTask2", "Common task 2");
+        segmented.createTask(singleTaskNew);
+        segmented.removeTask(subTask1.getId());
+        segmented.clearSingleTasks();
+        segmented.createTask(new SingleTask("CommonTask3", "Common task 3"));
+        Assertions.assertTrue(segmented.getDirtyTasks() > 0, "Изменения записаны в сегменты до контрольной точки");
+
+        // Менеджер не закрыт: изменения есть только в журнале
+        SegmentedTaskManager restored = SegmentedTaskManager.loadFromFile(tempFile);
+        Assertions.assertEquals(segmented.listSingleTasks(), restored.listSingleTasks(), "Обычные задачи не восстановлены из журнала");
+        Assertions.assertEquals(List.of(subTask2), restored.listSubTasks(), "Удаление не восстановлено из журнала");
+        Assertions.assertEquals(List.of(subTask2), ((EpicTask) restored.findTask(epicTask.getId())).getSubTasks(),
+                                "Подзадачи эпика не восстановлены из журнала");
+
+        restored.checkpoint();
+        Assertions.assertEquals(0, Files.size(restored.getJournalPath()), "Журнал не очищен контрольной точкой");
+        Assertions.assertEquals(segmented.listSingleTasks(), SegmentedTaskManager.loadFromFile(tempFile).listSingleTasks(),
+                                "Изменения из журнала не перенесены в сегменты");
+    }
+
+    @Test
+    void compactionMergesSparseSegments() throws IOException {
+        createSingleTasks(10 * SegmentedTaskManager.SEGMENT_SIZE);
+        taskManager.checkpoint();
+        int segmentsBefore = taskManager.getSegmentCount();
+        for (int id = 10; id <= taskManager.getLastId(); id++) {
+            if (id % 100 != 0) {
+                taskManager.removeTask(id);
+            }
+        }
+        taskManager.checkpoint();
+        taskManager.compact();
+
+        Assertions.assertTrue(taskManager.getSegmentCount() < segmentsBefore, "Разреженные сегменты не объединены");
+        SegmentedTaskManager restored = SegmentedTaskManager.loadFromFile(tempFile);
+        Assertions.assertEquals(new HashSet<>(taskManager.getSingleTasks()),
+                                new HashSet<>(restored.getSingleTasks()),
+                                "Задачи потеряны при компактизации");
+    }
+}
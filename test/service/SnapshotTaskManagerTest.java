@@ -0,0 +1,163 @@
+package service;
+
+import model.EpicTask;
+import model.SingleTask;
+import model.StatusTask;
+import model.SubTask;
+import model.Task;
+import model.TypeTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SnapshotTaskManagerTest extends TaskManagerTest<SnapshotTaskManager> {
+    @Override
+    public SnapshotTaskManager createTestManager() {
+        return new SnapshotTaskManager();
+    }
+
+    // Менеджер хранит копии переданных объектов, поэтому статус эпика читается с доски, а не из исходного объекта
+    @Test
+    @Override
+    void checkEpicStatusWithDoneStatus() {
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        subTask2.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask2);
+        Assertions.assertEquals(StatusTask.DONE, taskManager.findTask(epicTask.getId()).getStatusTask(), "Статус эпика не верный");
+    }
+
+    @Test
+    @Override
+    void checkEpicStatusWithInProgressStatus() {
+        subTask1.setStatus(StatusTask.IN_PROGRESS);
+        taskManager.updateTask(subTask1);
+        subTask2.setStatus(StatusTask.IN_PROGRESS);
+        taskManager.updateTask(subTask2);
+        Assertions.assertEquals(StatusTask.IN_PROGRESS, taskManager.findTask(epicTask.getId()).getStatusTask(), "Статус эпика не верный");
+    }
+
+    @Test
+    @Override
+    void checkEpicStatusWithNewAndDoneStatus() {
+        subTask1.setStatus(StatusTask.NEW);
+        taskManager.updateTask(subTask1);
+        subTask2.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask2);
+        Assertions.assertEquals(StatusTask.IN_PROGRESS, taskManager.findTask(epicTask.getId()).getStatusTask(), "Статус эпика не верный");
+    }
+
+    @Test
+    void publishedEpicPassedBackStaysImmutable() {
+        EpicTask published = (EpicTask) taskManager.findTask(epicTask.getId());
+        BoardSnapshot before = taskManager.getSnapshot();
+        taskManager.updateTask(published);
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        taskManager.createTask(new SubTask("SubTask3", "Subtask 3", epicTask.getId()));
+
+        Assertions.assertEquals(StatusTask.NEW, published.getStatusTask(), "Опубликованный эпик изменён доской");
+        Assertions.assertEquals(2, published.getSubTaskCount(), "Подзадачи опубликованного эпика изменены доской");
+        Assertions.assertTrue(before.findTask(epicTask.getId()) == published, "Старая версия должна хранить тот же объект");
+        Assertions.assertEquals(3, ((EpicTask) taskManager.findTask(epicTask.getId())).getSubTaskCount(),
+                                "Подзадачи эпика потеряны при изменении");
+    }
+
+    @Test
+    void publishedEpicSharesPublishedSubTasks() {
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        BoardSnapshot snapshot = taskManager.getSnapshot();
+        List<SubTask> subTasks = ((EpicTask) snapshot.findTask(epicTask.getId())).getSubTasks();
+
+        Assertions.assertTrue(subTasks.get(0) == snapshot.findTask(subTask1.getId()), "Эпик хранит копию изменённой подзадачи");
+        Assertions.assertTrue(subTasks.get(1) == snapshot.findTask(subTask2.getId()), "Эпик хранит копию неизменённой подзадачи");
+
+        taskManager.clearSingleTasks();
+        BoardSnapshot cleared = taskManager.getSnapshot();
+        Assertions.assertTrue(((EpicTask) cleared.findTask(epicTask.getId())).getSubTasks().get(0) == cleared.findTask(subTask1.getId()),
+                              "После полной публикации эпик хранит копию подзадачи");
+    }
+
+    @Test
+    void negativeIdIsRejectedBeforeBoardChanges() {
+        SingleTask negative = new SingleTask("CommonTask2", "Common task 2");
+        negative.setId(-5);
+        long version = taskManager.getVersion();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(negative), "Отрицательный id принят");
+        Assertions.assertEquals(version, taskManager.getVersion(), "Опубликована новая версия");
+        taskManager.clearSubTasks();
+        Assertions.assertEquals(List.of(singleTask), taskManager.listSingleTasks(), "Доска и версия разошлись");
+    }
+
+    @Test
+    void oldSnapshotIsNotChangedByWrites() {
+        BoardSnapshot before = taskManager.getSnapshot();
+        SingleTask singleTaskWithTime = new SingleTask("CommonTask2", "Common task 2", startTime, 30);
+        taskManager.createTask(singleTaskWithTime);
+        subTask1.setStatus(StatusTask.DONE);
+        taskManager.updateTask(subTask1);
+        taskManager.removeTask(subTask2.getId());
+
+        Assertions.assertEquals(List.of(subTask1, subTask2), before.listTasks(TypeTask.SUB), "Старая версия изменилась");
+        Assertions.assertEquals(StatusTask.NEW, before.findTask(epicTask.getId()).getStatusTask(), "Эпик старой версии изменился");
+        Assertions.assertEquals(StatusTask.NEW, before.findTask(subTask1.getId()).getStatusTask(), "Подзадача старой версии изменилась");
+        Assertions.assertTrue(before.getPrioritizedTasks().isEmpty(), "Приоритеты старой версии изменились");
+
+        BoardSnapshot after = taskManager.getSnapshot();
+        Assertions.assertEquals(before.getVersion() + 3, after.getVersion(), "Каждое изменение публикует одну версию");
+        Assertions.assertEquals(StatusTask.DONE, after.findTask(epicTask.getId()).getStatusTask(), "Эпик не обновлён в новой версии");
+        Assertions.assertEquals(List.of(singleTaskWithTime), after.getPrioritizedTasks(), "Приоритеты не обновлены");
+    }
+
+    @Test
+    void servedVersionFollowsReadsAndWrites() {
+        long version = taskManager.getVersion();
+        taskManager.listEpicTasks();
+        Assertions.assertEquals(version, taskManager.getServedVersion(), "Неверная версия чтения");
+        taskManager.createTask(new SingleTask("CommonTask2", "Common task 2"));
+        Assertions.assertEquals(version + 1, taskManager.getServedVersion(), "Неверная версия записи");
+    }
+
+    @Test
+    void readersSeeConsistentVersionsDuringWrites() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        EpicTask epicTaskNew = new EpicTask("EpicTask2", "Epic task 2");
+        taskManager.createTask(epicTaskNew);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                BoardSnapshot snapshot = taskManager.getSnapshot();
+                EpicTask epic = (EpicTask) snapshot.findTask(epicTaskNew.getId());
+                List<Task> subTasks = snapshot.listTasks(TypeTask.SUB);
+                long epicSubTasks = subTasks.stream().filter(task -> ((SubTask) task).getEpicId() == epic.getId()).count();
+                if (epicSubTasks != epic.getSubTaskCount()) {
+                    errors.add("Эпик и подзадачи из разных версий: " + snapshot.getVersion());
+                }
+                List<Task> prioritized = snapshot.getPrioritizedTasks();
+                for (int i = 1; i < prioritized.size(); i++) {
+                    if (prioritized.get(i - 1).getEndTime().isAfter(prioritized.get(i).getStartTime())) {
+                        errors.add("Пересечение в версии " + snapshot.getVersion());
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2_000; i++) {
+            SubTask subTask = new SubTask("SubTask" + i, "Subtask " + i, start.plusHours(i), 30, epicTaskNew.getId());
+            taskManager.createTask(subTask);
+            if (i % 3 == 0) {
+                taskManager.removeTask(subTask.getId());
+            }
+        }
+        writing.set(false);
+        reader.join();
+        Assertions.assertTrue(errors.isEmpty(), "Несогласованные версии: " + errors.peek());
+    }
+}
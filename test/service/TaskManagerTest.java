@@ -9,6 +9,10 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public abstract class TaskManagerTest<T extends TaskManager> {
 
@@ -23,7 +27,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     @BeforeEach
     void initialize() {
-        startTime = LocalDateTime.now();
+        startTime = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES); // Задача округляет начало вниз до минуты, сравнение идёт с уже округлённым временем
         taskManager = createTestManager();
         singleTask = new SingleTask("CommonTask1", "Common task 1");
         taskManager.createTask(singleTask);
@@ -159,4 +163,268 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     }
 
+    @Test
+    void prioritizedTasksInTimeWindow() {
+        SingleTask before = new SingleTask("Before", "Before window", startTime.minusHours(1), 30);
+        taskManager.createTask(before);
+        SingleTask atStart = new SingleTask("AtStart", "Window start", startTime, 30);
+        taskManager.createTask(atStart);
+        SingleTask inside = new SingleTask("Inside", "Inside window", startTime.plusHours(1), 30);
+        taskManager.createTask(inside);
+        SingleTask atEnd = new SingleTask("AtEnd", "Window end", startTime.plusHours(2), 30);
+        taskManager.createTask(atEnd);
+
+        assertEquals(List.of(atStart, inside),
+                     taskManager.getPrioritizedTasks(startTime, startTime.plusHours(2)),
+                     "Неверные задачи в окне времени");
+        assertEquals(List.of(before, atStart), taskManager.getPrioritizedTasks(null, startTime.plusMinutes(1)),
+                     "Неверные задачи без начала окна");
+        assertEquals(List.of(atEnd), taskManager.getPrioritizedTasks(startTime.plusHours(2), null),
+                     "Неверные задачи без конца окна");
+
+        Iterator<Task> iterator = taskManager.iteratePrioritized(startTime, startTime.plusHours(2));
+        assertEquals(atStart, iterator.next(), "Неверная первая задача обхода");
+        assertEquals(inside, iterator.next(), "Неверная вторая задача обхода");
+        assertFalse(iterator.hasNext(), "Обход вышел за окно");
+        assertThrows(IllegalArgumentException.class,
+                     () -> taskManager.getPrioritizedTasks(startTime, startTime.minusHours(1)),
+                     "Принят интервал с концом раньше начала");
+    }
+
+    @Test
+    void listingsDoNotTouchHistory() {
+        taskManager.getTaskById(subTask1.getId());
+        taskManager.getTaskById(singleTask.getId());
+        List<Task> history = taskManager.getHistory();
+
+        assertEquals(List.of(singleTask), taskManager.listSingleTasks(), "Неверный список обычных задач");
+        assertEquals(List.of(epicTask), taskManager.listEpicTasks(), "Неверный список эпиков");
+        assertEquals(List.of(subTask1, subTask2), taskManager.listSubTasks(), "Неверный список подзадач");
+        assertEquals(epicTask, taskManager.findTask(epicTask.getId()), "Задача не найдена");
+        assertEquals(history, taskManager.getHistory(), "Чтение без просмотра изменило историю");
+
+        taskManager.markViewed(subTask1.getId());
+        assertEquals(List.of(singleTask, subTask1), taskManager.getHistory(), "Просмотр не отмечен в истории");
+        assertThrows(NotFoundException.class, () -> taskManager.findTask(100), "Найдена несуществующая задача");
+    }
+
+    @Test
+    void clearSubTasksResetsEpicsAndHistory() {
+        SubTask timedSubTask = new SubTask("SubTask3", "Subtask 3", startTime, 30, epicTask.getId(), StatusTask.DONE);
+        taskManager.createTask(timedSubTask);
+        SingleTask timedTask = new SingleTask("CommonTask2", "Common task 2", startTime.plusHours(1), 30);
+        taskManager.createTask(timedTask);
+        taskManager.getTaskById(subTask1.getId());
+        taskManager.getTaskById(singleTask.getId());
+        taskManager.getTaskById(timedSubTask.getId());
+
+        taskManager.clearSubTasks();
+
+        assertTrue(taskManager.listSubTasks().isEmpty(), "Подзадачи не удалены");
+        assertTrue(epicTask.getSubTasks().isEmpty(), "Подзадачи остались у эпика");
+        assertEquals(StatusTask.NEW, epicTask.getStatusTask(), "Статус эпика не сброшен");
+        assertEquals(Duration.ZERO, epicTask.getDuration(), "Длительность эпика не сброшена");
+        assertEquals(List.of(singleTask), taskManager.getHistory(), "Подзадачи остались в истории");
+        assertEquals(List.of(timedTask), taskManager.getPrioritizedTasks(), "Подзадачи остались в приоритетах");
+        assertThrows(NotFoundException.class, () -> taskManager.findTask(subTask1.getId()), "Подзадача осталась в хранилище");
+
+        // Освободившееся время снова доступно
+        taskManager.createTask(new SingleTask("CommonTask3", "Common task 3", startTime, 30));
+        taskManager.clearEpicTasks();
+        assertTrue(taskManager.listEpicTasks().isEmpty(), "Эпики не удалены");
+        assertEquals(List.of(singleTask), taskManager.getHistory(), "История изменилась при очистке эпиков");
+    }
+
+    @Test
+    void createTasksChecksWholeBatch() {
+        SingleTask existing = new SingleTask("CommonTask2", "Common task 2", startTime, 30);
+        taskManager.createTask(existing);
+        SingleTask free = new SingleTask("CommonTask3", "Common task 3", startTime.plusMinutes(60), 30);
+        SingleTask overlapsBoard = new SingleTask("CommonTask4", "Common task 4", startTime.plusMinutes(15), 30);
+        SubTask overlapsBatch = new SubTask("SubTask3", "Subtask 3", startTime.plusMinutes(75), 30, epicTask.getId());
+        SubTask timedSubTask = new SubTask("SubTask4", "Subtask 4", startTime.plusMinutes(90), 30, epicTask.getId());
+        SubTask withoutEpic = new SubTask("SubTask5", "Subtask 5", 100);
+        SubTask doneSubTask = new SubTask("SubTask6", "Subtask 6", epicTask.getId(), StatusTask.DONE);
+
+        BatchResult result = taskManager.createTasks(List.of(free, overlapsBoard, overlapsBatch,
+                                                             timedSubTask, withoutEpic, doneSubTask));
+
+        assertEquals(List.of(BatchOutcome.CREATED, BatchOutcome.OVERLAP, BatchOutcome.OVERLAP,
+                             BatchOutcome.CREATED, BatchOutcome.NOT_FOUND, BatchOutcome.CREATED),
+                     result.getItems().stream().map(BatchResult.Item::getOutcome).collect(Collectors.toList()),
+                     "Неверные результаты пачки");
+        assertEquals(3, result.getAppliedCount(), "Неверное число созданных задач");
+        assertEquals(List.of(free.getId(), timedSubTask.getId(), doneSubTask.getId()), result.getAppliedIds(),
+                     "Неверные id созданных задач");
+        assertEquals(List.of(existing, free, timedSubTask), taskManager.getPrioritizedTasks(),
+                     "Неверные приоритеты после пачки");
+        Task epic = taskManager.findTask(epicTask.getId());
+        assertEquals(StatusTask.IN_PROGRESS, epic.getStatusTask(), "Статус эпика не пересчитан после пачки");
+        assertEquals(startTime.plusMinutes(90), epic.getStartTime(), "Время эпика не пересчитано после пачки");
+        assertThrows(NotFoundException.class, () -> taskManager.findTask(withoutEpic.getId()),
+                     "Создана подзадача без эпика");
+    }
+
+    @Test
+    void updateTasksAppliesValidItems() {
+        SingleTask timedTask = new SingleTask("CommonTask2", "Common task 2", startTime, 30);
+        taskManager.createTask(timedTask);
+        SubTask timedSubTask = new SubTask("SubTask3", "Subtask 3", startTime.plusMinutes(60), 30, epicTask.getId());
+        taskManager.createTask(timedSubTask);
+
+        SingleTask moved = new SingleTask("CommonTask2", "Moved", StatusTask.IN_PROGRESS, startTime.plusMinutes(120), 30);
+        moved.setId(timedTask.getId());
+        SubTask doneSubTask = new SubTask("SubTask3", "Subtask 3", startTime.plusMinutes(60), 30,
+                                          epicTask.getId(), StatusTask.DONE);
+        doneSubTask.setId(timedSubTask.getId());
+        SingleTask unknown = new SingleTask("CommonTask3", "Common task 3");
+        unknown.setId(100);
+        SingleTask repeated = new SingleTask("CommonTask2", "Repeated", StatusTask.DONE, startTime.plusMinutes(180), 30);
+        repeated.setId(timedTask.getId());
+        SingleTask typeChanged = new SingleTask("SubTask1", "Subtask 1");
+        typeChanged.setId(subTask1.getId());
+
+        BatchResult result = taskManager.updateTasks(List.of(moved, doneSubTask, unknown, repeated, typeChanged));
+
+        assertEquals(List.of(BatchOutcome.UPDATED, BatchOutcome.UPDATED, BatchOutcome.NOT_FOUND,
+                             BatchOutcome.INVALID, BatchOutcome.INVALID),
+                     result.getItems().stream().map(BatchResult.Item::getOutcome).collect(Collectors.toList()),
+                     "Неверные результаты пачки");
+        assertEquals("Moved", taskManager.findTask(timedTask.getId()).getDescription(), "Задача не изменена");
+        assertEquals(List.of(timedSubTask, timedTask), taskManager.getPrioritizedTasks(),
+                     "Неверные приоритеты после пачки");
+        assertEquals(StatusTask.IN_PROGRESS, taskManager.findTask(epicTask.getId()).getStatusTask(),
+                     "Статус эпика не пересчитан после пачки");
+        assertEquals(TypeTask.SUB, taskManager.findTask(subTask1.getId()).getTypeTask(), "Тип задачи изменён");
+    }
+
+    @Test
+    void updateCannotChangeTaskType() {
+        EpicTask epicOverSingle = new EpicTask("EpicTask2", "Epic task 2");
+        epicOverSingle.setId(singleTask.getId());
+        SingleTask singleOverSubTask = new SingleTask("CommonTask2", "Common task 2");
+        singleOverSubTask.setId(subTask1.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(epicOverSingle),
+                     "Обычная задача заменена эпиком");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(singleOverSubTask),
+                     "Подзадача заменена обычной задачей");
+        assertEquals(List.of(singleTask), taskManager.listSingleTasks(), "Обычные задачи изменены");
+        assertEquals(List.of(subTask1, subTask2), taskManager.listSubTasks(), "Подзадачи изменены");
+        assertEquals(List.of(subTask1, subTask2), ((EpicTask) taskManager.findTask(epicTask.getId())).getSubTasks(),
+                     "Подзадачи эпика изменены");
+    }
+
+    @Test
+    void transactionAppliesAllChanges() {
+        SingleTask timedTask = new SingleTask("CommonTask2", "Common task 2", startTime, 30);
+        SubTask doneSubTask = new SubTask("SubTask1", "Subtask 1", epicTask.getId(), StatusTask.DONE);
+        doneSubTask.setId(subTask1.getId());
+
+        TaskTransaction transaction = taskManager.beginTransaction();
+        transaction.createTask(timedTask)
+                   .updateTask(doneSubTask)
+                   .removeTask(singleTask.getId());
+        transaction.commit();
+
+        assertEquals(5, timedTask.getId(), "Созданной задаче не выдан id");
+        assertEquals(List.of(timedTask), taskManager.listSingleTasks(), "Неверный список обычных задач");
+        assertEquals(StatusTask.DONE, taskManager.findTask(subTask1.getId()).getStatusTask(), "Подзадача не изменена");
+        assertEquals(StatusTask.IN_PROGRESS, taskManager.findTask(epicTask.getId()).getStatusTask(),
+                     "Статус эпика не пересчитан");
+        assertEquals(List.of(timedTask), taskManager.getPrioritizedTasks(), "Неверные приоритеты после транзакции");
+        assertThrows(IllegalStateException.class, transaction::commit, "Транзакция применена повторно");
+    }
+
+    @Test
+    void failedTransactionLeavesBoardUnchanged() {
+        SingleTask timedTask = new SingleTask("CommonTask2", "Common task 2", startTime, 30);
+        taskManager.createTask(timedTask);
+        taskManager.markViewed(singleTask.getId());
+        taskManager.markViewed(subTask1.getId());
+        taskManager.markViewed(subTask2.getId());
+        List<Task> singleTasks = taskManager.listSingleTasks();
+        List<Task> subTasks = taskManager.listSubTasks();
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        List<Task> history = taskManager.getHistory();
+        List<SubTask> epicSubTasks = ((EpicTask) taskManager.findTask(epicTask.getId())).getSubTasks();
+
+        SingleTask created = new SingleTask("CommonTask3", "Common task 3", startTime.plusHours(1), 30);
+        SubTask moved = new SubTask("SubTask2", "Subtask 2", startTime.plusHours(2), 30, epicTask.getId(), StatusTask.DONE);
+        moved.setId(subTask2.getId());
+        SingleTask overlapping = new SingleTask("CommonTask4", "Common task 4", startTime.plusMinutes(10), 30);
+        TaskTransaction transaction = taskManager.beginTransaction()
+                                                 .createTask(created)
+                                                 .updateTask(moved)
+                                                 .removeTask(singleTask.getId())
+                                                 .removeTask(subTask1.getId())
+                                                 .createTask(overlapping);
+
+        assertThrows(TaskTimeOverlapException.class, transaction::commit, "Пересечение по времени не выявлено");
+
+        assertEquals(0, created.getId(), "У отменённой задачи остался id");
+        assertEquals(singleTasks, taskManager.listSingleTasks(), "Обычные задачи изменены");
+        assertEquals(subTasks, taskManager.listSubTasks(), "Подзадачи изменены");
+        assertEquals(prioritized, taskManager.getPrioritizedTasks(), "Приоритеты изменены");
+        assertEquals(history, taskManager.getHistory(), "История изменена");
+        EpicTask epic = (EpicTask) taskManager.findTask(epicTask.getId());
+        assertEquals(epicSubTasks, epic.getSubTasks(), "Подзадачи эпика изменены");
+        assertEquals(StatusTask.NEW, epic.getStatusTask(), "Статус эпика изменён");
+        assertEquals(StatusTask.NEW, taskManager.findTask(subTask2.getId()).getStatusTask(), "Подзадача изменена");
+        assertFalse(taskManager.findTask(subTask2.getId()).isScheduled(), "Время подзадачи изменено");
+
+        // Генератор id вернулся к прежнему значению, освободившееся время снова доступно
+        SingleTask next = new SingleTask("CommonTask5", "Common task 5", startTime.plusHours(2), 30);
+        taskManager.createTask(next);
+        assertEquals(timedTask.getId() + 1, next.getId(), "Генератор id не восстановлен");
+    }
+
+    @Test
+    void committedRemovalsLeaveHistory() {
+        taskManager.markViewed(singleTask.getId());
+        taskManager.markViewed(subTask1.getId());
+        taskManager.markViewed(subTask2.getId());
+
+        taskManager.beginTransaction()
+                   .removeTask(subTask1.getId())
+                   .removeTask(singleTask.getId())
+                   .commit();
+
+        assertEquals(List.of(subTask2), taskManager.getHistory(), "Удалённые транзакцией задачи остались в истории");
+    }
+
+    @Test
+    void failedTransactionRestoresRemovedEpic() {
+        SubTask timedSubTask = new SubTask("SubTask3", "Subtask 3", startTime, 30, epicTask.getId());
+        taskManager.createTask(timedSubTask);
+        SubTask orphan = new SubTask("SubTask4", "Subtask 4", startTime.plusHours(1), 30, epicTask.getId());
+
+        TaskTransaction transaction = taskManager.beginTransaction()
+                                                 .removeTask(epicTask.getId())
+                                                 .createTask(orphan);
+
+        assertThrows(NotFoundException.class, transaction::commit, "Создана подзадача удалённого эпика");
+        assertEquals(List.of(epicTask), taskManager.listEpicTasks(), "Эпик не восстановлен");
+        assertEquals(List.of(subTask1, subTask2, timedSubTask), taskManager.listSubTasks(), "Подзадачи не восстановлены");
+        assertEquals(List.of(subTask1, subTask2, timedSubTask),
+                     ((EpicTask) taskManager.findTask(epicTask.getId())).getSubTasks(),
+                     "Подзадачи эпика не восстановлены");
+        assertEquals(List.of(timedSubTask), taskManager.getPrioritizedTasks(), "Приоритеты не восстановлены");
+    }
+
+    @Test
+    void rolledBackTransactionChangesNothing() {
+        SingleTask created = new SingleTask("CommonTask2", "Common task 2");
+        TaskTransaction transaction = taskManager.beginTransaction()
+                                                 .createTask(created)
+                                                 .removeTask(singleTask.getId());
+
+        transaction.rollback();
+
+        assertEquals(List.of(singleTask), taskManager.listSingleTasks(), "Отменённая транзакция применена");
+        assertThrows(IllegalStateException.class, transaction::commit, "Отменённая транзакция применена");
+        assertThrows(IllegalStateException.class, () -> transaction.removeTask(subTask1.getId()),
+                     "Изменение добавлено в завершённую транзакцию");
+    }
+
 }
@@ -0,0 +1,73 @@
+package service;
+
+import model.SingleTask;
+import model.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class TaskTimeIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static Task task(int id, int startMinute, int duration) {
+        Task task = new SingleTask("Task" + id, "Task " + id, START.plusMinutes(startMinute), duration);
+        task.setId(id);
+        return task;
+    }
+
+    // Проверка пересечения в том виде, в каком она выполнялась перебором всех задач
+    private static boolean overlapsByScan(List<Task> tasks, LocalDateTime start, LocalDateTime end) {
+        return !tasks.stream()
+                     .allMatch(taskPrior -> (taskPrior.getStartTime().isEqual(start) &&
+                                             taskPrior.getEndTime().isEqual(end)) ||
+                                            !taskPrior.getStartTime().isBefore(end) ||
+                                            !taskPrior.getEndTime().isAfter(start));
+    }
+
+    @Test
+    void boundariesAndIdenticalIntervals() {
+        TaskTimeIndex index = new TaskTimeIndex();
+        index.add(task(1, 60, 30));
+
+        Assertions.assertFalse(index.overlaps(START.plusMinutes(30), START.plusMinutes(60)), "Касание началом - не пересечение");
+        Assertions.assertFalse(index.overlaps(START.plusMinutes(90), START.plusMinutes(120)), "Касание концом - не пересечение");
+        Assertions.assertFalse(index.overlaps(START.plusMinutes(60), START.plusMinutes(90)), "Совпадающий интервал - не пересечение");
+        Assertions.assertTrue(index.overlaps(START.plusMinutes(70), START.plusMinutes(80)), "Вложенный интервал не найден");
+        Assertions.assertTrue(index.overlaps(START.plusMinutes(60), START.plusMinutes(80)), "Интервал с общим началом не найден");
+        Assertions.assertTrue(index.overlaps(START, START.plusMinutes(200)), "Охватывающий интервал не найден");
+    }
+
+    @Test
+    void sameResultAsScan() {
+        Random random = new Random(42);
+        TaskTimeIndex index = new TaskTimeIndex();
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 1; id <= 2_000; id++) {
+            Task task = task(id, random.nextInt(100_000), random.nextInt(120));
+            tasks.add(task);
+            index.add(task);
+        }
+        for (int i = 0; i < 500; i++) {
+            index.remove(tasks.remove(random.nextInt(tasks.size())));
+        }
+        Assertions.assertEquals(tasks.size(), index.size(), "Неверный размер индекса после удаления");
+
+        TaskTimeIndex sortedIndex = new TaskTimeIndex();
+        List<Task> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
+        sortedIndex.addAllSorted(sorted);
+
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime start = START.plusMinutes(random.nextInt(100_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(120));
+            boolean expected = overlapsByScan(tasks, start, end);
+            Assertions.assertEquals(expected, index.overlaps(start, end), "Результат отличается от перебора: " + start);
+            Assertions.assertEquals(expected, sortedIndex.overlaps(start, end), "Результат отличается от перебора: " + start);
+        }
+    }
+}